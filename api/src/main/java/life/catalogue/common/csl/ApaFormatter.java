@@ -0,0 +1,283 @@
+package life.catalogue.common.csl;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import life.catalogue.api.model.CslData;
+import life.catalogue.api.model.CslDate;
+import life.catalogue.api.model.CslName;
+
+/**
+ * A native, thread safe APA text formatter for the most common reference types, journal articles and books,
+ * that produces the same plain text bibliography entry as the citeproc APA style.
+ *
+ * It deliberately only supports a conservative subset of CSL data.
+ * Whenever a reference contains fields that might influence the citeproc rendering in ways not implemented here,
+ * e.g. editors, literal names or dates, the formatter gives up and returns null,
+ * so the caller can fall back to citeproc.
+ * The same applies to texts with quotes or markup, which citeproc converts into typographic quotes or formatting.
+ */
+public class ApaFormatter {
+  // citeproc lists the first 6 authors followed by et al. for 8 or more authors
+  private static final int ET_AL_MIN = 8;
+  private static final int ET_AL_USE_FIRST = 6;
+  private static final String DOI_PREFIX = "https://doi.org/";
+  private static final Pattern PAGE_RANGE = Pattern.compile("^(\\d+)\\s*[-–]\\s*(\\d+)$");
+  private static final Pattern PAGE = Pattern.compile("^[A-Za-z]*\\d+$");
+
+  private ApaFormatter() {
+  }
+
+  /**
+   * @return the APA citation or null if the data is not supported by the native formatter
+   */
+  public static String format(CslData data) {
+    if (data == null || data.getType() == null || !supportedCommons(data)) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(128);
+    if (!appendAuthors(sb, data.getAuthor()) || !appendIssued(sb, data.getIssued()) || !appendTitle(sb, data.getTitle())) {
+      return null;
+    }
+    boolean ok;
+    switch (data.getType()) {
+      case ARTICLE_JOURNAL:
+        ok = appendJournal(sb, data);
+        break;
+      case BOOK:
+        ok = appendBook(sb, data);
+        break;
+      default:
+        ok = false;
+    }
+    if (!ok || !appendLink(sb, data)) {
+      return null;
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Checks the presence of fields which would be rendered by citeproc for any of the supported types.
+   */
+  private static boolean supportedCommons(CslData data) {
+    return isEmpty(data.getEditor())
+        && isEmpty(data.getCollectionEditor())
+        && isEmpty(data.getContainerAuthor())
+        && isEmpty(data.getTranslator())
+        && isEmpty(data.getOriginalAuthor())
+        && isEmpty(data.getReviewedAuthor())
+        && data.getOriginalDate() == null
+        && data.getStatus() == null
+        && data.getYearSuffix() == null
+        && data.getGenre() == null
+        && data.getMedium() == null
+        && data.getDimensions() == null
+        && data.getReviewedTitle() == null
+        && data.getCollectionTitle() == null
+        && data.getEdition() == null
+        && data.getNumberOfVolumes() == null;
+  }
+
+  private static boolean appendJournal(StringBuilder sb, CslData data) {
+    if (data.getPublisher() != null || data.getPublisherPlace() != null) {
+      return false;
+    }
+    String container = data.getContainerTitle();
+    if (container == null) {
+      return data.getVolume() == null && data.getIssue() == null && data.getPage() == null;
+    }
+    if (data.getIssue() != null && data.getVolume() == null) {
+      return false;
+    }
+    if (!plain(container) || !plain(data.getVolume()) || !plain(data.getIssue())) {
+      return false;
+    }
+    sb.append(' ').append(container);
+    if (data.getVolume() != null) {
+      sb.append(", ").append(data.getVolume());
+      if (data.getIssue() != null) {
+        sb.append('(').append(data.getIssue()).append(')');
+      }
+    }
+    if (data.getPage() != null) {
+      String page = page(data.getPage());
+      if (page == null) {
+        return false;
+      }
+      sb.append(", ").append(page);
+    }
+    sb.append('.');
+    return true;
+  }
+
+  private static boolean appendBook(StringBuilder sb, CslData data) {
+    if (data.getContainerTitle() != null || data.getVolume() != null || data.getIssue() != null || data.getPage() != null) {
+      return false;
+    }
+    String place = data.getPublisherPlace();
+    String publisher = data.getPublisher();
+    if (!plain(place) || !plain(publisher)) {
+      return false;
+    }
+    if (place != null && publisher != null) {
+      sb.append(' ').append(place).append(": ").append(publisher).append('.');
+    } else if (publisher != null) {
+      sb.append(' ').append(publisher).append('.');
+    } else if (place != null) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Appends the DOI as a resolvable URL. Plain URLs are rendered differently by citeproc depending on the type
+   * and the accessed date, so we only support references without a URL unless there is a DOI.
+   */
+  private static boolean appendLink(StringBuilder sb, CslData data) {
+    String doi = data.getDOI();
+    if (doi != null) {
+      if (doi.startsWith("http") || doi.contains(" ") || !plain(doi)) {
+        return false;
+      }
+      sb.append(' ').append(DOI_PREFIX).append(doi);
+      return true;
+    }
+    return data.getURL() == null;
+  }
+
+  private static boolean appendAuthors(StringBuilder sb, CslName[] authors) {
+    if (isEmpty(authors) || authors.length == ET_AL_MIN - 1) {
+      return false;
+    }
+    final boolean etAl = authors.length >= ET_AL_MIN;
+    final int size = etAl ? ET_AL_USE_FIRST : authors.length;
+    for (int i = 0; i < size; i++) {
+      CslName a = authors[i];
+      if (!supported(a) || !plain(a.getFamily()) || !plain(a.getGiven())) {
+        return false;
+      }
+      if (i > 0) {
+        sb.append(", ");
+        if (!etAl && i == size - 1) {
+          sb.append("& ");
+        }
+      }
+      sb.append(a.getFamily()).append(", ");
+      if (!appendInitials(sb, a.getGiven())) {
+        return false;
+      }
+    }
+    if (etAl) {
+      sb.append(", et al.");
+    }
+    return true;
+  }
+
+  private static boolean supported(CslName n) {
+    return n != null
+        && n.getFamily() != null
+        && n.getGiven() != null
+        && n.getLiteral() == null
+        && n.getDroppingParticle() == null
+        && n.getNonDroppingParticle() == null
+        && n.getSuffix() == null
+        && !Boolean.TRUE.equals(n.getIsInstitution());
+  }
+
+  /**
+   * Appends initials for all given names, keeping hyphens, e.g. Jean-Paul Maria becomes J.-P. M.
+   * Only names starting with an uppercase letter are supported.
+   */
+  private static boolean appendInitials(StringBuilder sb, String given) {
+    boolean first = true;
+    boolean start = true;
+    for (int i = 0; i < given.length(); i++) {
+      char c = given.charAt(i);
+      if (c == ' ' || c == '.') {
+        start = true;
+      } else if (c == '-') {
+        if (first) {
+          return false;
+        }
+        sb.append('-');
+        start = true;
+        // no space after a hyphen
+        first = true;
+      } else if (start) {
+        if (!Character.isUpperCase(c)) {
+          return false;
+        }
+        if (!first) {
+          sb.append(' ');
+        }
+        sb.append(c).append('.');
+        start = false;
+        first = false;
+      }
+    }
+    // nothing appended or a trailing hyphen
+    return !first;
+  }
+
+  private static boolean appendIssued(StringBuilder sb, CslDate issued) {
+    sb.append(" (");
+    if (issued == null) {
+      sb.append("n.d.");
+    } else {
+      if (issued.getLiteral() != null || issued.getRaw() != null || issued.getSeason() != null || issued.getCirca() != null
+          || issued.getDateParts() == null || issued.getDateParts().length != 1
+          || issued.getDateParts()[0] == null || issued.getDateParts()[0].length == 0) {
+        return false;
+      }
+      sb.append(issued.getDateParts()[0][0]);
+    }
+    sb.append(").");
+    return true;
+  }
+
+  private static boolean appendTitle(StringBuilder sb, String title) {
+    if (title == null || title.isEmpty() || !plain(title)) {
+      return false;
+    }
+    sb.append(' ').append(title);
+    char last = title.charAt(title.length() - 1);
+    if (last != '.' && last != '?' && last != '!') {
+      sb.append('.');
+    }
+    return true;
+  }
+
+  /**
+   * @return page or page range with an en dash or null if the page format is not supported
+   */
+  private static String page(String page) {
+    Matcher m = PAGE_RANGE.matcher(page);
+    if (m.find()) {
+      // citeproc expands abbreviated ranges which we do not support
+      if (m.group(1).length() != m.group(2).length()) {
+        return null;
+      }
+      return m.group(1) + '–' + m.group(2);
+    }
+    return PAGE.matcher(page).find() ? page : null;
+  }
+
+  /**
+   * @return true if the text contains no quotes or markup which citeproc would render differently
+   */
+  private static boolean plain(String x) {
+    if (x != null) {
+      for (int i = 0; i < x.length(); i++) {
+        char c = x.charAt(i);
+        if (c == '\'' || c == '"' || c == '<') {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isEmpty(Object[] arr) {
+    return arr == null || arr.length == 0;
+  }
+}
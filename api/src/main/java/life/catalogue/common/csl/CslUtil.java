@@ -1,15 +1,23 @@
 package life.catalogue.common.csl;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import de.undercouch.citeproc.CSL;
 import de.undercouch.citeproc.ItemDataProvider;
 import de.undercouch.citeproc.csl.CSLItemData;
+import life.catalogue.api.jackson.ApiModule;
 import life.catalogue.api.model.CslData;
 import life.catalogue.api.model.Reference;
 
@@ -17,7 +25,12 @@ public class CslUtil {
   private static final String CITATION_STYLE = "apa";
   private final static ReferenceProvider provider = new ReferenceProvider();
   private final static CSL csl;
+  private static final int CACHE_SIZE = 10000;
+  private static final Cache<HashCode, String> cache = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .build();
   private static Timer timer;
+  private static Timer citeprocTimer;
   
   static {
     try {
@@ -30,6 +43,7 @@ public class CslUtil {
   
   public static void register(MetricRegistry registry) {
     timer = registry.timer("life.catalogue.csl.citation-builder");
+    citeprocTimer = registry.timer("life.catalogue.csl.citeproc");
   }
   
   static class ReferenceProvider implements ItemDataProvider {
@@ -62,18 +76,18 @@ public class CslUtil {
   }
   
   /**
-   * WARNING!
-   * This is a very slow method that takes a second or more to build the citation string !!!
-   * It uses the JavaScript citeproc library internally.
+   * Builds an APA citation string using the native ApaFormatter for common reference types.
+   * Other references fall back to the very slow JavaScript citeproc library, which takes a second or more,
+   * so its results are cached by the content of the CSL data.
    */
   public static String buildCitation(Reference r) {
     return buildCitation(r.getCsl());
   }
   
   /**
-   * WARNING!
-   * This is a very slow method that takes a second or more to build the citation string !!!
-   * It uses the JavaScript citeproc library internally.
+   * Builds an APA citation string using the native ApaFormatter for common reference types.
+   * Other references fall back to the very slow JavaScript citeproc library, which takes a second or more,
+   * so its results are cached by the content of the CSL data.
    */
   public static String buildCitation(CslData data) {
     if (data == null)
@@ -81,7 +95,11 @@ public class CslUtil {
   
     Timer.Context ctx = timer == null ? null : timer.time();
     try {
-      return buildCitationInternal(data);
+      String citation = ApaFormatter.format(data);
+      if (citation == null) {
+        citation = buildCitationCached(data);
+      }
+      return citation;
     } finally {
       if (ctx != null) {
         ctx.stop();
@@ -89,13 +107,41 @@ public class CslUtil {
     }
   }
   
-  private static synchronized String buildCitationInternal(CslData data) {
+  private static String buildCitationCached(CslData data) {
+    HashCode key = contentHash(data);
+    String citation = cache.getIfPresent(key);
+    if (citation == null) {
+      Timer.Context ctx = citeprocTimer == null ? null : citeprocTimer.time();
+      try {
+        citation = buildCitationCiteproc(data);
+        cache.put(key, citation);
+      } finally {
+        if (ctx != null) {
+          ctx.stop();
+        }
+      }
+    }
+    return citation;
+  }
+  
+  /**
+   * @return a hash over the entire JSON serialisation of the CSL data, ignoring its id
+   */
+  private static HashCode contentHash(CslData data) {
+    ObjectNode json = ApiModule.MAPPER.valueToTree(data);
+    json.remove("id");
+    return Hashing.murmur3_128().hashString(json.toString(), StandardCharsets.UTF_8);
+  }
+  
+  /**
+   * WARNING!
+   * This is a very slow method that takes a second or more to build the citation string !!!
+   * It uses the JavaScript citeproc library internally and bypasses the native formatter and the cache.
+   */
+  @VisibleForTesting
+  static synchronized String buildCitationCiteproc(CslData data) {
     String key = provider.setData(data);
     csl.registerCitationItems(key);
     return csl.makeBibliography().getEntries()[0].trim();
   }
-  
-  
-  
-  
 }
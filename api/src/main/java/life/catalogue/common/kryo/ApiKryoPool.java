@@ -1,6 +1,8 @@
 package life.catalogue.common.kryo;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import com.esotericsoftware.kryo.util.Pool;
 import de.javakaffee.kryoserializers.UnmodifiableCollectionsSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableListSerializer;
@@ -132,4 +134,28 @@ public class ApiKryoPool extends Pool<Kryo> {
     
     return kryo;
   }
+  
+  /**
+   * Hashes the registrations of a kryo instance, i.e. the registration ids, classes, serializers
+   * and the fields of classes serialized with a FieldSerializer.
+   * Binary data written by a kryo instance can only be read by another with the same fingerprint,
+   * so it can be persisted together with the data to detect outdated formats.
+   */
+  public static int fingerprint(Kryo kryo) {
+    int hash = 1;
+    for (int id = 0; id < kryo.getNextRegistrationId(); id++) {
+      Registration reg = kryo.getRegistration(id);
+      if (reg != null) {
+        hash = 31 * hash + id;
+        hash = 31 * hash + reg.getType().getName().hashCode();
+        hash = 31 * hash + reg.getSerializer().getClass().getName().hashCode();
+        if (reg.getSerializer() instanceof FieldSerializer) {
+          for (FieldSerializer.CachedField f : ((FieldSerializer<?>) reg.getSerializer()).getFields()) {
+            hash = 31 * hash + f.getName().hashCode();
+          }
+        }
+      }
+    }
+    return hash;
+  }
 }
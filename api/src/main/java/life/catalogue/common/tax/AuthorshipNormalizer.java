@@ -34,7 +34,10 @@ public class AuthorshipNormalizer {
   private static final Pattern AUTHOR = Pattern.compile("^((?:[a-z]\\s)*).*?([a-z]+)( filius)?$");
   private static final String AUTHOR_MAP_FILENAME = "authorship/authormap.txt";
   private static final Pattern PUNCTUATION = Pattern.compile("[\\p{Punct}&&[^,]]+");
+  // version of the normalization rules, increase whenever they change the normalized authors
+  private static final int VERSION = 1;
   private final Map<String, String> authorMap;
+  private final int fingerprint;
 
   public static final AuthorshipNormalizer INSTANCE = createWithAuthormap();
 
@@ -62,9 +65,18 @@ public class AuthorshipNormalizer {
       }
     }
     authorMap = ImmutableMap.copyOf(map);
+    fingerprint = 31 * VERSION + authorMap.hashCode();
     LOG.info("Created author normalizer with {} abbreviation entries", map.size());
   }
   
+  /**
+   * @return a hash of the normalization rules and the author dictionary in use.
+   * It changes whenever normalized authors could change, so persisted ones can be detected as outdated.
+   */
+  public int fingerprint() {
+    return fingerprint;
+  }
+  
   /**
    * @return queue of normalized authors, never null.
    * ascii only, lower cased string without punctuation. Empty string instead of null.
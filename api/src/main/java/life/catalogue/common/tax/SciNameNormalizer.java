@@ -1,31 +1,23 @@
 package life.catalogue.common.tax;
 
-import java.util.regex.Pattern;
-
 import static life.catalogue.common.text.StringUtils.foldToAscii;
 
 
 /**
  * A scientific name normalizer that replaces common misspellings and epithet gender changes.
+ *
+ * The normalizer is on the hot path of name matching and indexing, so instead of a chain of regular expressions
+ * it uses hand written scanners working on a single char buffer per call.
+ * The former regex rules are given in the comments of each step.
  */
 public class SciNameNormalizer {
-  
-  private static final Pattern suffix_a = Pattern.compile("(?:on|um|us|a)$"); // is->e
-  private static final Pattern suffix_i = Pattern.compile("ei$");
-  private static final Pattern i = Pattern.compile("(?<!\\b)[jyi]+");
-  private static final Pattern trh = Pattern.compile("([gtr])h", Pattern.CASE_INSENSITIVE);
-  private static final Pattern removeRepeatedLetter = Pattern.compile("(\\p{L})\\1+");
-  private static final Pattern removeHybridSignGenus = Pattern.compile("^\\s*[×xX]\\s*([A-Z])");
-  private static final Pattern removeHybridSignEpithet = Pattern.compile("(?:^|\\s)(?:×\\s*|[xX]\\s+)([^A-Z])");
-  private static final Pattern empty = Pattern.compile("[?!\"'`_-]");
-  private static final Pattern punct = Pattern.compile("[,.:;]");
-  private static final Pattern white = Pattern.compile("\\s{2,}");
-  
+  private static final char HYBRID_SIGN = '×';
+
   // dont use guava or commons so we dont have to bundle it for the solr cloud plugin ...
   public static boolean hasContent(String s) {
     return s != null && !(s.trim().isEmpty());
   }
-  
+
   /**
    * Folds a name into its ASCII equivalent,
    * replaces all punctuation with space
@@ -34,17 +26,14 @@ public class SciNameNormalizer {
    */
   public static String normalizedAscii(String s) {
     if (s == null) return null;
-    
-    // Normalize letters and ligatures to their ASCII equivalent
-    s = foldToAscii(s);
-    
-    // normalize whitespace
-    s = empty.matcher(s).replaceAll("");
-    s = punct.matcher(s).replaceAll(" ");
-    s = white.matcher(s).replaceAll(" ");
-    return s.trim();
-  }
-  
+
+    s = fold(s);
+    char[] buf = new char[s.length()];
+    int len = normalizeAscii(s, buf);
+    int start = trimStart(buf, 0, len);
+    return new String(buf, start, trimEnd(buf, start, len) - start);
+  }
+
   /**
    * Normalizes the entire scientific name, keeping monomials or the first genus part rather unchanged,
    * applying the more drastic normalization incl stemming to the remainder of the name only.
@@ -53,7 +42,7 @@ public class SciNameNormalizer {
   public static String normalize(String s) {
     return normalize(s, false, true);
   }
-  
+
   /**
    * Normalizes and entire scientific name, keeping monomials or the first genus part rather unchanged,
    * applying the more drastic normalization to the remainder of the name only.
@@ -61,57 +50,375 @@ public class SciNameNormalizer {
   public static String normalize(String s, boolean stemming) {
     return normalize(s, false, stemming);
   }
-  
+
   /**
    * Normalizes an entire name string including monomials and genus parts of a name.
    */
   public static String normalizeAll(String s) {
     return normalize(s, true, true);
   }
-  
+
   private static String normalize(String s, boolean normMonomials, boolean stemming) {
     if (!hasContent(s)) return "";
-    
-    s = normalizedAscii(s);
-    
+
+    s = fold(s);
+    char[] buf = new char[s.length()];
+    int len = normalizeAscii(s, buf);
+    int start = trimStart(buf, 0, len);
+    int end = trimEnd(buf, start, len);
+
     // Remove a hybrid cross, or a likely hybrid cross.
-    s = removeHybridSignGenus.matcher(s).replaceAll("$1");
-    s = removeHybridSignEpithet.matcher(s).replaceAll(" $1");
-    
+    start = removeHybridSignGenus(buf, start, end);
+    end = removeHybridSignEpithet(buf, start, end);
+
     // Only for bi/trinomials, otherwise we mix up ranks.
     if (normMonomials) {
-      s = normStrongly(s, stemming);
-      
-    } else if (s.indexOf(' ') > 2) {
-      String[] parts = s.split(" ", 2);
-      s = parts[0] + " " + normStrongly(parts[1], stemming);
-    }
-    
-    return s.trim();
-  }
-  
-  private static String normStrongly(String s, boolean stemming) {
-    // remove repeated letters→leters in binomials
-    s = removeRepeatedLetter.matcher(s).replaceAll("$1");
-    
+      end = normStrongly(buf, start, end, stemming);
+
+    } else {
+      int space = indexOf(buf, start, end, ' ');
+      if (space - start > 2) {
+        end = normStrongly(buf, space + 1, end, stemming);
+      }
+    }
+
+    start = trimStart(buf, start, end);
+    return new String(buf, start, trimEnd(buf, start, end) - start);
+  }
+
+  /**
+   * Skips the unicode folding for pure ASCII strings which it would not change.
+   */
+  private static String fold(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) > 127) {
+        return foldToAscii(s);
+      }
+    }
+    return s;
+  }
+
+  /**
+   * Writes the string into the buffer removing [?!"'`_-], replacing [,.:;] with a space
+   * and replacing runs of 2 or more whitespace characters with a single space.
+   * @return the length of the written buffer
+   */
+  private static int normalizeAscii(String s, char[] buf) {
+    int len = 0;
+    int whiteRun = 0;
+    char white = ' ';
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '?':
+        case '!':
+        case '"':
+        case '\'':
+        case '`':
+        case '_':
+        case '-':
+          continue;
+        case ',':
+        case '.':
+        case ':':
+        case ';':
+          c = ' ';
+      }
+      if (isWhitespace(c)) {
+        if (whiteRun++ == 0) {
+          white = c;
+        }
+      } else {
+        if (whiteRun > 0) {
+          buf[len++] = whiteRun == 1 ? white : ' ';
+          whiteRun = 0;
+        }
+        buf[len++] = c;
+      }
+    }
+    if (whiteRun > 0) {
+      buf[len++] = whiteRun == 1 ? white : ' ';
+    }
+    return len;
+  }
+
+  /**
+   * ^\s*[×xX]\s*([A-Z]) -> $1
+   * The buffer is trimmed already.
+   * @return the new start of the buffer
+   */
+  private static int removeHybridSignGenus(char[] buf, int start, int end) {
+    if (start < end && (buf[start] == HYBRID_SIGN || buf[start] == 'x' || buf[start] == 'X')) {
+      int i = start + 1;
+      while (i < end && isWhitespace(buf[i])) {
+        i++;
+      }
+      if (i < end && isUpperAscii(buf[i])) {
+        return i;
+      }
+    }
+    return start;
+  }
+
+  /**
+   * (?:^|\s)(?:×\s*|[xX]\s+)([^A-Z]) -> " $1"
+   * Replacements never grow the buffer, so it is rewritten in place.
+   * @return the new end of the buffer
+   */
+  private static int removeHybridSignEpithet(char[] buf, int start, int end) {
+    int w = start;
+    int i = start;
+    while (i < end) {
+      int captured = -1;
+      if (i == start) {
+        captured = hybridSignEpithet(buf, i, end);
+      }
+      if (captured < 0 && isWhitespace(buf[i])) {
+        captured = hybridSignEpithet(buf, i + 1, end);
+      }
+      if (captured >= 0) {
+        buf[w++] = ' ';
+        buf[w++] = buf[captured];
+        i = captured + 1;
+      } else {
+        buf[w++] = buf[i++];
+      }
+    }
+    return w;
+  }
+
+  /**
+   * Matches (?:×\s*|[xX]\s+)([^A-Z]) at the given position, including the regex backtracking
+   * which allows the last whitespace to be captured.
+   * @return the position of the captured character or -1 if not matching
+   */
+  private static int hybridSignEpithet(char[] buf, int i, int end) {
+    if (i >= end) return -1;
+    final char c = buf[i];
+    final boolean sign = c == HYBRID_SIGN;
+    if (!sign && c != 'x' && c != 'X') return -1;
+    int j = i + 1;
+    while (j < end && isWhitespace(buf[j])) {
+      j++;
+    }
+    // minimum number of whitespace chars
+    final int minWhite = sign ? 0 : 1;
+    if (j - i - 1 < minWhite) return -1;
+    if (j < end && !isUpperAscii(buf[j])) {
+      return j;
+    }
+    return j - i - 1 > minWhite ? j - 1 : -1;
+  }
+
+  /**
+   * Normalizes the part of the buffer between from and to in place, treating from as the start of the string.
+   * @return the new end of the normalized part
+   */
+  private static int normStrongly(char[] buf, int from, int to, boolean stemming) {
+    // remove repeated letters→leters in binomials: (\p{L})\1+ -> $1
+    to = removeRepeatedLetters(buf, from, to);
+
     if (stemming) {
-      s = stemEpithet(s);
+      to = stemEpithet(buf, from, to);
     }
-    // normalize frequent variations of i
-    s = i.matcher(s).replaceAll("i");
+    // normalize frequent variations of i: (?<!\b)[jyi]+ -> i
+    to = normalizeI(buf, from, to);
     if (stemming) {
-      s = suffix_i.matcher(s).replaceAll("i");
+      // ei$ -> i
+      int end = lineEnd(buf, from, to);
+      if (end - from >= 2 && buf[end - 2] == 'e' && buf[end - 1] == 'i') {
+        to = replaceSuffix(buf, end, to, 'i');
+      }
+    }
+    // normalize frequent variations of t/r sometimes followed by an 'h': ([gtr])h -> $1, case insensitive
+    return removeTRH(buf, from, to);
+  }
+
+  private static int removeRepeatedLetters(char[] buf, int from, int to) {
+    int w = from;
+    int prev = -1;
+    int i = from;
+    while (i < to) {
+      int cp = Character.codePointAt(buf, i, to);
+      int n = Character.charCount(cp);
+      if (cp != prev || !Character.isLetter(cp)) {
+        buf[w++] = buf[i];
+        if (n == 2) {
+          buf[w++] = buf[i + 1];
+        }
+        prev = cp;
+      }
+      i += n;
+    }
+    return w;
+  }
+
+  /**
+   * Like the regex (?<!\b)[jyi]+ a run is only replaced entirely if it does not start a word.
+   * Otherwise the first character is kept and only the remainder of the run is replaced.
+   */
+  private static int normalizeI(char[] buf, int from, int to) {
+    int w = from;
+    int prev = -1;
+    int i = from;
+    while (i < to) {
+      char c = buf[i];
+      if (isI(c)) {
+        int runEnd = i + 1;
+        while (runEnd < to && isI(buf[runEnd])) {
+          runEnd++;
+        }
+        if (prev < 0 || !isWordChar(prev)) {
+          // word boundary before the run
+          buf[w++] = c;
+          if (runEnd - i > 1) {
+            buf[w++] = 'i';
+          }
+        } else {
+          buf[w++] = 'i';
+        }
+        // all run characters are j, y or i
+        prev = 'i';
+        i = runEnd;
+      } else {
+        int cp = Character.codePointAt(buf, i, to);
+        buf[w++] = c;
+        if (Character.charCount(cp) == 2) {
+          buf[w++] = buf[i + 1];
+          i++;
+        }
+        prev = cp;
+        i++;
+      }
     }
-    // normalize frequent variations of t/r sometimes followed by an 'h'
-    return trh.matcher(s).replaceAll("$1");
+    return w;
   }
-  
+
+  private static int removeTRH(char[] buf, int from, int to) {
+    int w = from;
+    for (int i = from; i < to; i++) {
+      char c = buf[i];
+      buf[w++] = c;
+      if (i + 1 < to && isGTR(c) && (buf[i + 1] == 'h' || buf[i + 1] == 'H')) {
+        i++;
+      }
+    }
+    return w;
+  }
+
   /**
    * Does a stemming of a latin epithet and return the female version ending with 'a'.
    */
   public static String stemEpithet(String epithet) {
     if (!hasContent(epithet)) return "";
-    return suffix_a.matcher(epithet).replaceFirst("a");
+    // like the regex $ we also match before a final line terminator
+    int end = epithet.length();
+    if (epithet.endsWith("\r\n")) {
+      end -= 2;
+    } else if (isLineTerminator(epithet.charAt(end - 1))) {
+      end--;
+    }
+    if (end >= 2 && isStemSuffix(epithet.charAt(end - 2), epithet.charAt(end - 1))) {
+      return epithet.substring(0, end - 2) + 'a' + epithet.substring(end);
+    }
+    return epithet;
+  }
+
+  /**
+   * (?:on|um|us|a)$ -> a
+   */
+  private static int stemEpithet(char[] buf, int from, int to) {
+    if (trimStart(buf, from, to) == to) {
+      // stemEpithet returns an empty string for blank input
+      return from;
+    }
+    int end = lineEnd(buf, from, to);
+    if (end - from >= 2 && isStemSuffix(buf[end - 2], buf[end - 1])) {
+      return replaceSuffix(buf, end, to, 'a');
+    }
+    return to;
+  }
+
+  /**
+   * Replaces the 2 chars before end with the given char, moving any remaining chars up to the buffer end.
+   * @return the new end of the buffer
+   */
+  private static int replaceSuffix(char[] buf, int end, int to, char c) {
+    buf[end - 2] = c;
+    System.arraycopy(buf, end, buf, end - 1, to - end);
+    return to - 1;
+  }
+
+  /**
+   * Like the regex $ we also match before a final line terminator.
+   * Trimming removes ASCII line breaks, but not \u0085, \u2028 or \u2029.
+   * @return the end of the buffer excluding a final line terminator
+   */
+  private static int lineEnd(char[] buf, int from, int to) {
+    if (to - from >= 2 && buf[to - 2] == '\r' && buf[to - 1] == '\n') {
+      return to - 2;
+    }
+    if (to > from && isLineTerminator(buf[to - 1])) {
+      return to - 1;
+    }
+    return to;
+  }
+
+  private static boolean isStemSuffix(char c1, char c2) {
+    return c1 == 'o' && c2 == 'n' || c1 == 'u' && (c2 == 'm' || c2 == 's');
+  }
+
+  private static int indexOf(char[] buf, int from, int to, char c) {
+    for (int i = from; i < to; i++) {
+      if (buf[i] == c) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Same as String.trim()
+   */
+  private static int trimStart(char[] buf, int from, int to) {
+    while (from < to && buf[from] <= ' ') {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimEnd(char[] buf, int from, int to) {
+    while (to > from && buf[to - 1] <= ' ') {
+      to--;
+    }
+    return to;
+  }
+
+  /**
+   * Same as the regex \s
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * Word characters as used by the regex \b in Java 11
+   */
+  private static boolean isWordChar(int cp) {
+    return cp == '_' || Character.isLetterOrDigit(cp);
+  }
+
+  private static boolean isUpperAscii(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isI(char c) {
+    return c == 'i' || c == 'j' || c == 'y';
+  }
+
+  private static boolean isGTR(char c) {
+    return c == 'g' || c == 't' || c == 'r' || c == 'G' || c == 'T' || c == 'R';
   }
-  
 }
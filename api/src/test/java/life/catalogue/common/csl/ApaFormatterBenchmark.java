@@ -0,0 +1,64 @@
+package life.catalogue.common.csl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import life.catalogue.api.TestEntityGenerator;
+import life.catalogue.api.jackson.ApiModule;
+import life.catalogue.api.model.CslData;
+import life.catalogue.common.io.Resources;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the native ApaFormatter with the uncached citeproc rendering.
+ * Not run by the test suite, run the main method from the IDE or the test classpath instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ApaFormatterBenchmark {
+
+  private CslData[] refs;
+
+  @Setup
+  public void setup() throws IOException {
+    InputStream in = Resources.stream("references/test.json");
+    List<CslData> list = new ArrayList<>(ApiModule.MAPPER.readValue(in, new TypeReference<List<CslData>>(){}));
+    list.add(TestEntityGenerator.newReference("My Sharona").getCsl());
+    list.add(TestEntityGenerator.newReference("Telecon in Death Valley?", "Jean-Paul", "Sartre").getCsl());
+    list.add(TestEntityGenerator.newReference("Single", "Anna Maria", "Müller", "B.", "Jones", "Carl", "Linnaeus").getCsl());
+    refs = list.toArray(new CslData[0]);
+  }
+
+  @Benchmark
+  public void apa(Blackhole bh) {
+    for (CslData csl : refs) {
+      bh.consume(ApaFormatter.format(csl));
+    }
+  }
+
+  @Benchmark
+  public void citeproc(Blackhole bh) {
+    for (CslData csl : refs) {
+      bh.consume(CslUtil.buildCitationCiteproc(csl));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ApaFormatterBenchmark.class.getSimpleName())
+        .build()
+    ).run();
+  }
+}
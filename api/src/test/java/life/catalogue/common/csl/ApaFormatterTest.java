@@ -0,0 +1,140 @@
+package life.catalogue.common.csl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import life.catalogue.api.TestEntityGenerator;
+import life.catalogue.api.jackson.ApiModule;
+import life.catalogue.api.model.CslData;
+import life.catalogue.api.model.CslDate;
+import life.catalogue.api.model.CslName;
+import life.catalogue.api.vocab.CSLRefType;
+import life.catalogue.common.io.Resources;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ApaFormatterTest {
+
+  private static List<CslData> references() throws IOException {
+    InputStream in = Resources.stream("references/test.json");
+    List<CslData> refs = new ArrayList<>(ApiModule.MAPPER.readValue(in, new TypeReference<List<CslData>>(){}));
+    refs.add(TestEntityGenerator.newReference("My Sharona").getCsl());
+    refs.add(TestEntityGenerator.newReference("Telecon in Death Valley?", "Jean-Paul", "Sartre").getCsl());
+    refs.add(TestEntityGenerator.newReference("Single", "Anna Maria", "Müller", "B.", "Jones", "Carl", "Linnaeus").getCsl());
+
+    CslData book = new CslData();
+    book.setType(CSLRefType.BOOK);
+    book.setTitle("Species Plantarum");
+    book.setAuthor(new CslName[]{name("Carl", "Linnaeus")});
+    book.setIssued(year(1753));
+    book.setPublisher("Impensis Laurentii Salvii");
+    book.setPublisherPlace("Holmiae");
+    refs.add(book);
+
+    CslData article = new CslData();
+    article.setType(CSLRefType.ARTICLE_JOURNAL);
+    article.setTitle("A new species");
+    article.setAuthor(new CslName[]{name("Tom", "Thumb"), name("Ron", "Weasley")});
+    article.setIssued(year(2001));
+    article.setContainerTitle("Zootaxa");
+    article.setVolume("12");
+    article.setIssue("3");
+    article.setPage("101-109");
+    refs.add(article);
+    return refs;
+  }
+
+  /**
+   * References with quotes or markup which citeproc renders as typographic quotes or formatting.
+   */
+  private static List<CslData> quoted() throws IOException {
+    List<CslData> refs = new ArrayList<>();
+    CslData csl = references().get(6);
+    csl.setTitle("The \"true\" bugs");
+    refs.add(csl);
+
+    csl = references().get(6);
+    csl.setTitle("Darwin's finches");
+    refs.add(csl);
+
+    csl = references().get(6);
+    csl.setTitle("A new species of <i>Abies</i>");
+    refs.add(csl);
+
+    csl = references().get(6);
+    csl.getAuthor()[1].setFamily("O'Brien");
+    refs.add(csl);
+
+    csl = references().get(6);
+    csl.getAuthor()[0].setGiven("Tom \"Tiny\"");
+    refs.add(csl);
+
+    csl = references().get(5);
+    csl.setPublisher("Laurentii's Press");
+    refs.add(csl);
+    return refs;
+  }
+
+  private static CslName name(String given, String family) {
+    CslName n = new CslName();
+    n.setGiven(given);
+    n.setFamily(family);
+    return n;
+  }
+
+  private static CslDate year(int year) {
+    CslDate d = new CslDate();
+    d.setDateParts(new int[][]{{year}});
+    return d;
+  }
+
+  /**
+   * The native formatter must produce exactly the same citations as citeproc.
+   */
+  @Test
+  public void sameAsCiteproc() throws Exception {
+    for (CslData csl : references()) {
+      String native_ = ApaFormatter.format(csl);
+      assertNotNull(native_);
+      assertEquals(CslUtil.buildCitationCiteproc(csl), native_);
+    }
+    // quotes and markup are left to citeproc
+    for (CslData csl : quoted()) {
+      assertNull(ApaFormatter.format(csl));
+      assertEquals(CslUtil.buildCitationCiteproc(csl), CslUtil.buildCitation(csl));
+    }
+  }
+
+  @Test
+  public void format() throws Exception {
+    List<CslData> refs = references();
+    assertEquals("Droege, G., Barker, K., Seberg, O., Coddington, J., Benson, E., Berendsohn, W. G., et al. (2016). The Global Genome Biodiversity Network (GGBN) Data Standard specification. Database, 2016, baw125. https://doi.org/10.1093/database/baw125", ApaFormatter.format(refs.get(0)));
+    assertEquals("Sartre, J.-P. (n.d.). Telecon in Death Valley? Nature, 556.", ApaFormatter.format(refs.get(3)));
+    assertEquals("Thumb, T., & Weasley, R. (2001). A new species. Zootaxa, 12(3), 101–109.", ApaFormatter.format(refs.get(6)));
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    CslData csl = references().get(5);
+    csl.setEditor(new CslName[]{name("Tim", "Tom")});
+    assertNull(ApaFormatter.format(csl));
+
+    csl = references().get(6);
+    csl.setType(CSLRefType.PATENT);
+    assertNull(ApaFormatter.format(csl));
+
+    csl = references().get(6);
+    csl.getAuthor()[0].setLiteral("Tom Thumb");
+    assertNull(ApaFormatter.format(csl));
+
+    csl = references().get(6);
+    csl.setURL("http://www.zootaxa.org");
+    assertNull(ApaFormatter.format(csl));
+    // but the fallback still works
+    assertNotNull(CslUtil.buildCitation(csl));
+  }
+}
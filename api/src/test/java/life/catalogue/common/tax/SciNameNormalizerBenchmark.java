@@ -0,0 +1,70 @@
+package life.catalogue.common.tax;
+
+import java.util.concurrent.TimeUnit;
+
+import life.catalogue.api.RandomUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the scanning SciNameNormalizer with the former regex based implementation kept in SciNameNormalizerRegex.
+ * Not run by the test suite, run the main method from the IDE or the test classpath instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(SciNameNormalizerBenchmark.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SciNameNormalizerBenchmark {
+  static final int SIZE = 10000;
+
+  private String[] names;
+
+  @Setup
+  public void setup() {
+    names = new String[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      names[i] = RandomUtils.randomSpecies() + " " + RandomUtils.randomAuthor();
+    }
+  }
+
+  @Benchmark
+  public void regex(Blackhole bh) {
+    for (String x : names) {
+      bh.consume(SciNameNormalizerRegex.normalize(x));
+    }
+  }
+
+  @Benchmark
+  public void scanner(Blackhole bh) {
+    for (String x : names) {
+      bh.consume(SciNameNormalizer.normalize(x));
+    }
+  }
+
+  @Benchmark
+  public void regexAll(Blackhole bh) {
+    for (String x : names) {
+      bh.consume(SciNameNormalizerRegex.normalizeAll(x));
+    }
+  }
+
+  @Benchmark
+  public void scannerAll(Blackhole bh) {
+    for (String x : names) {
+      bh.consume(SciNameNormalizer.normalizeAll(x));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(SciNameNormalizerBenchmark.class.getSimpleName())
+        .build()
+    ).run();
+  }
+}
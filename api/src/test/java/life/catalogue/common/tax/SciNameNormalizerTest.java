@@ -1,5 +1,14 @@
 package life.catalogue.common.tax;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import life.catalogue.api.RandomUtils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -109,4 +118,49 @@ public class SciNameNormalizerTest {
     assertEquals("alaa", SciNameNormalizer.stemEpithet("alaus"));
     assertEquals("alaa", SciNameNormalizer.stemEpithet("alaa"));
   }
+
+  /**
+   * Compares the scanners with the former regex implementation.
+   * A file with one name per line can be given with the system property names.file to verify an entire names corpus.
+   */
+  @Test
+  public void sameAsRegex() throws Exception {
+    for (String x : names(100000)) {
+      assertEquals(x, SciNameNormalizerRegex.normalize(x), SciNameNormalizer.normalize(x));
+      assertEquals(x, SciNameNormalizerRegex.normalize(x, false), SciNameNormalizer.normalize(x, false));
+      assertEquals(x, SciNameNormalizerRegex.normalizeAll(x), SciNameNormalizer.normalizeAll(x));
+      assertEquals(x, SciNameNormalizerRegex.normalizedAscii(x), SciNameNormalizer.normalizedAscii(x));
+      assertEquals(x, SciNameNormalizerRegex.stemEpithet(x), SciNameNormalizer.stemEpithet(x));
+    }
+  }
+
+  private static final String[] TOKENS = {"a", "e", "o", "u", "b", "l", "c", "n", "s", "m", "i", "j", "y", "ii", "yi", "ji", "ei",
+      "h", "th", "rh", "gh", "Th", "RH", "us", "um", "on", "ll", "bb", "×", "x", "X", " ", " ", " ", "  ", "\t", "\n", "\r\n", "\u2028",
+      ",", ".", ":", ";", "-", "'", "?", "_", "(", "&", "1", "7", "é", "å", "ø", "ß", "æ", "Ç", "Ï", "¥", "µ", "ж",
+      "A", "G", "R", "T", "Abies", "Carex", "alba", "L.", "Mill."};
+
+  /**
+   * Real looking names with authorships, random token sequences with plenty of edge cases
+   * and the lines of an optional names corpus file.
+   */
+  private static List<String> names(int size) throws IOException {
+    Random rnd = new Random(17);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < size / 10; i++) {
+      names.add(RandomUtils.randomSpecies() + " " + RandomUtils.randomAuthor());
+    }
+    while (names.size() < size) {
+      StringBuilder sb = new StringBuilder();
+      int len = rnd.nextInt(12);
+      for (int i = 0; i < len; i++) {
+        sb.append(TOKENS[rnd.nextInt(TOKENS.length)]);
+      }
+      names.add(sb.toString());
+    }
+    String file = System.getProperty("names.file");
+    if (file != null) {
+      names.addAll(Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8));
+    }
+    return names;
+  }
 }
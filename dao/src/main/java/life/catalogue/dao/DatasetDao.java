@@ -37,10 +37,12 @@ public class DatasetDao extends EntityDao<Integer, Dataset, DatasetMapper> {
   private final BiFunction<Integer, String, File> scratchFileFunc;
   private final DatasetImportDao diDao;
   private final NameUsageIndexService indexService;
+  private final int partitionIndexThreads;
   private final Consumer<User> userChangedNotifier;
   private final Consumer<Map<Integer, Boolean>> datasetChangedNotifier;
 
   /**
+   * @param partitionIndexThreads max number of partition tables to build indices for concurrently
    * @param scratchFileFunc function to generate a scrach dir for logo updates
    * @param userChangedNotifier notification hook when a user has changed, e.g. a new dataset key was added
    */
@@ -49,6 +51,7 @@ public class DatasetDao extends EntityDao<Integer, Dataset, DatasetMapper> {
                     ImageService imgService,
                     DatasetImportDao diDao,
                     NameUsageIndexService indexService,
+                    int partitionIndexThreads,
                     BiFunction<Integer, String, File> scratchFileFunc,
                     Consumer<User> userChangedNotifier,
                     Consumer<Map<Integer, Boolean>> datasetChangedNotifier) {
@@ -58,6 +61,7 @@ public class DatasetDao extends EntityDao<Integer, Dataset, DatasetMapper> {
     this.scratchFileFunc = scratchFileFunc;
     this.diDao = diDao;
     this.indexService = indexService;
+    this.partitionIndexThreads = partitionIndexThreads;
     this.userChangedNotifier = userChangedNotifier;
     this.datasetChangedNotifier = datasetChangedNotifier;
   }
@@ -93,9 +97,8 @@ public class DatasetDao extends EntityDao<Integer, Dataset, DatasetMapper> {
     for (Class<DatasetPageable<?>> mapperCLass : new Class[]{SectorMapper.class, DecisionMapper.class, EstimateMapper.class}) {
       session.getMapper(mapperCLass).deleteByDataset(key);
     }
-    // delete data partitions
+    // delete data partitions, committing the session
     Partitioner.delete(session, key);
-    session.commit();
     // now also clear filesystem
     diDao.removeMetrics(key);
   }
@@ -167,7 +170,7 @@ public class DatasetDao extends EntityDao<Integer, Dataset, DatasetMapper> {
 
   private void recreatePartition(int datasetKey) {
     Partitioner.partition(factory, datasetKey);
-    Partitioner.indexAndAttach(factory, datasetKey);
+    Partitioner.indexAndAttach(factory, datasetKey, partitionIndexThreads);
   }
   private void pullLogo(Dataset d) {
     LogoUpdateJob.updateDatasetAsync(d, factory, downloader, scratchFileFunc, imgService);
@@ -9,6 +9,7 @@ import life.catalogue.api.model.ResultPage;
 import life.catalogue.api.vocab.*;
 import life.catalogue.db.mapper.DatasetImportMapper;
 import life.catalogue.db.mapper.DatasetMapper;
+import life.catalogue.db.type2.MetricCount;
 import life.catalogue.db.type2.StringCount;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -128,41 +129,90 @@ public class DatasetImportDao {
     }
   }
   
+  /**
+   * Generates all metrics with as few table scans as possible.
+   * Grouped counts which cover all records are summed up for the total counts
+   * and several groupings of the same table are retrieved in a single query.
+   */
   private void updateMetrics(DatasetImportMapper mapper, DatasetImport di) {
     final int key = di.getDatasetKey();
   
     di.setDescriptionCount(mapper.countDescription(key));
-    di.setDistributionCount(mapper.countDistribution(key));
-    di.setMediaCount(mapper.countMedia(key));
-    di.setNameCount(mapper.countName(key));
-    di.setTypeMaterialCount(mapper.countTypeMaterial(key));
     di.setReferenceCount(mapper.countReference(key));
-    di.setSynonymCount(mapper.countSynonym(key));
-    di.setTaxonCount(mapper.countTaxon(key));
-    di.setVerbatimCount(mapper.countVerbatim(key));
-    di.setVernacularCount(mapper.countVernacular(key));
-  
-    di.setDistributionsByGazetteerCount(DatasetImportDao.countMap(Gazetteer.class, mapper.countDistributionsByGazetteer(key)));
-    di.setIssuesCount(DatasetImportDao.countMap(Issue.class, mapper.countIssues(key)));
-    di.setMediaByTypeCount(DatasetImportDao.countMap(MediaType.class, mapper.countMediaByType(key)));
-    di.setNameRelationsByTypeCount(DatasetImportDao.countMap(NomRelType.class, mapper.countNameRelationsByType(key)));
-    di.setNamesByOriginCount(DatasetImportDao.countMap(Origin.class, mapper.countNamesByOrigin(key)));
-    di.setNamesByRankCount(countMap(DatasetImportDao::parseRank, mapper.countNamesByRank(key)));
-    di.setNamesByStatusCount(DatasetImportDao.countMap(NomStatus.class, mapper.countNamesByStatus(key)));
-    di.setNamesByTypeCount(DatasetImportDao.countMap(NameType.class, mapper.countNamesByType(key)));
-    di.setTypeMaterialByStatusCount(DatasetImportDao.countMap(TypeStatus.class, mapper.countTypeMaterialByStatus(key)));
-    di.setTaxaByRankCount(countMap(DatasetImportDao::parseRank, mapper.countTaxaByRank(key)));
-    di.setUsagesByStatusCount(DatasetImportDao.countMap(TaxonomicStatus.class, mapper.countUsagesByStatus(key)));
-    di.setVerbatimByTypeCount(countMap(DatasetImportDao::parseRowType, mapper.countVerbatimByType(key)));
-    di.setVernacularsByLanguageCount(countMap(mapper.countVernacularsByLanguage(key)));
+    
+    List<StringCount> counts = mapper.countDistributionsByGazetteer(key);
+    di.setDistributionCount(total(counts));
+    di.setDistributionsByGazetteerCount(countMap(Gazetteer.class, counts));
+    
+    counts = mapper.countMediaByType(key);
+    di.setMediaCount(total(counts));
+    di.setMediaByTypeCount(countMap(MediaType.class, counts));
+    
+    counts = mapper.countTypeMaterialByStatus(key);
+    di.setTypeMaterialCount(total(counts));
+    di.setTypeMaterialByStatusCount(countMap(TypeStatus.class, counts));
+    
+    counts = mapper.countVernacularsByLanguage(key);
+    di.setVernacularCount(total(counts));
+    di.setVernacularsByLanguageCount(countMap(counts));
+    
+    di.setNameRelationsByTypeCount(countMap(NomRelType.class, mapper.countNameRelationsByType(key)));
+  
+    List<MetricCount> metrics = mapper.countNameMetrics(key);
+    counts = metric(metrics, "rank");
+    di.setNameCount(total(counts));
+    di.setNamesByRankCount(countMap(DatasetImportDao::parseRank, counts));
+    di.setNamesByTypeCount(countMap(NameType.class, metric(metrics, "type")));
+    di.setNamesByStatusCount(countMap(NomStatus.class, metric(metrics, "status")));
+    di.setNamesByOriginCount(countMap(Origin.class, metric(metrics, "origin")));
+  
+    metrics = mapper.countUsageMetrics(key);
+    counts = metric(metrics, "taxonRank");
+    di.setTaxonCount(total(counts));
+    di.setTaxaByRankCount(countMap(DatasetImportDao::parseRank, counts));
+    di.setSynonymCount(total(metric(metrics, "synonymRank")));
+    di.setUsagesByStatusCount(countMap(TaxonomicStatus.class, metric(metrics, "status")));
+  
+    counts = mapper.countVerbatimByType(key);
+    di.setVerbatimCount(total(counts));
+    di.setVerbatimByTypeCount(countMap(DatasetImportDao::parseRowType, counts));
+    di.setIssuesCount(countMap(Issue.class, mapper.countIssues(key)));
     
     // verbatim term metrics for each row type
-    for (Term rowType : di.getVerbatimByTypeCount().keySet()) {
-      Map<Term, Integer> terms = countMap(DatasetImportDao::parseTerm, mapper.countVerbatimTerms(key, rowType));
-      if (!terms.isEmpty()) {
-        di.getVerbatimByTermCount().put(rowType, terms);
+    Map<String, List<StringCount>> termsByType = new HashMap<>();
+    for (MetricCount cnt : mapper.countVerbatimTermsByType(key)) {
+      termsByType.computeIfAbsent(cnt.getMetric(), k -> new ArrayList<>()).add(cnt);
+    }
+    for (Map.Entry<String, List<StringCount>> e : termsByType.entrySet()) {
+      Map<Term, Integer> terms = countMap(DatasetImportDao::parseTerm, e.getValue());
+      if (e.getKey() != null && !terms.isEmpty()) {
+        parseRowType(e.getKey()).ifPresent(rowType -> di.getVerbatimByTermCount().put(rowType, terms));
+      }
+    }
+  }
+  
+  /**
+   * @return the sum of all counts, including the ones without a key
+   */
+  public static int total(List<StringCount> counts) {
+    int total = 0;
+    for (StringCount cnt : counts) {
+      total += cnt.getCount();
+    }
+    return total;
+  }
+  
+  /**
+   * @return all counts of the given metric
+   */
+  public static List<StringCount> metric(List<MetricCount> counts, String metric) {
+    List<StringCount> result = new ArrayList<>();
+    for (MetricCount cnt : counts) {
+      if (metric.equals(cnt.getMetric())) {
+        result.add(cnt);
       }
     }
+    return result;
   }
   
   public static Map<String, Integer> countMap(List<StringCount> counts) {
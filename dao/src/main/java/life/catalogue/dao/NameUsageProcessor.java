@@ -1,11 +1,19 @@
 package life.catalogue.dao;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import life.catalogue.api.model.Name;
 import life.catalogue.api.model.Sector;
+import life.catalogue.api.model.SimpleName;
 import life.catalogue.api.model.SimpleNameClassification;
 import life.catalogue.api.search.NameUsageWrapper;
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import life.catalogue.common.lang.InterruptedRuntimeException;
+import life.catalogue.db.mapper.NameUsageMapper;
 import life.catalogue.db.mapper.NameUsageWrapperMapper;
-import life.catalogue.db.mapper.TaxonMapper;
+import life.catalogue.db.tree.TreeIndex;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -13,43 +21,224 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class NameUsageProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(NameUsageProcessor.class);
+  private static final int BATCH_SIZE = 100;
+  // number of subtrees per thread to aim for when splitting large trees for parallel processing
+  private static final int UNITS_PER_THREAD = 8;
 
   private final SqlSessionFactory factory;
   
+  /**
+   * A subtree processed by a single thread.
+   * If descend is false only the node itself is processed, as its children are separate units.
+   */
+  static class Unit {
+    final int node;
+    final boolean descend;
+
+    Unit(int node, boolean descend) {
+      this.node = node;
+      this.descend = descend;
+    }
+  }
+  
   public NameUsageProcessor(SqlSessionFactory factory) {
     this.factory = factory;
   }
   
   /**
-   * to avoid large in memory or even external pg temp files dissect the problem into the following steps:
+   * Processes all usages of a dataset in depth first order.
+   * To avoid large recursive queries and pg temp files the problem is dissected into the following steps:
    *
-   *  1. list all root taxa, then iterate through each of them separately with
-   *  2. call the SimpleName tree processor that iterates over all usages in taxonomic order and generates the classification
-   *  3. call getWrapperDetail for each id to get the full object without classification and stream results
-   *
-   *  Alternatively one could hold the entire classification in memory (10 million only need ~500MB)
-   *  and select the wrapper objects in batch id ranges.
-   *  But that would require traversing the entire tree so we are sure we have processed all ids, not just children of the root node.
-   *  ID ranges must make sure the java sorting is exactly the same as the postgres (C-collation) sorting.
+   *  1. load the entire tree of ids into a compact in memory TreeIndex (10 million usages only need ~600MB)
+   *  2. traverse the index depth first and keep the classification of the current path in memory
+   *  3. call getWrapperDetail for batches of ids to get the full objects without classification and stream results
    *
    * @param consumer
    */
   public void processDataset(int datasetKey, Consumer<NameUsageWrapper> consumer) {
-    List<String> rootIds;
+    TreeIndex tree = TreeIndex.load(factory, datasetKey);
+    LOG.info("Process dataset {} with {} usages", datasetKey, tree.size());
+    List<Unit> units = new ArrayList<>();
+    for (int root : tree.roots()) {
+      units.add(new Unit(root, true));
+    }
+    processUnits(tree, units, new AtomicInteger(), consumer);
+  }
+
+  /**
+   * Splits the tree into at least minUnits subtrees if possible, descending breadth first into the children
+   * of large trees. A split node itself becomes a unit without its descendants.
+   */
+  static List<Unit> split(TreeIndex tree, int minUnits) {
+    List<Unit> units = new ArrayList<>();
+    Deque<Unit> open = new ArrayDeque<>();
+    for (int root : tree.roots()) {
+      open.add(new Unit(root, true));
+    }
+    while (!open.isEmpty() && units.size() + open.size() < minUnits) {
+      Unit u = open.poll();
+      int[] children = u.descend ? tree.children(u.node) : new int[0];
+      if (children.length == 0) {
+        units.add(u);
+      } else {
+        units.add(new Unit(u.node, false));
+        for (int c : children) {
+          // traversals never start with synonyms
+          open.add(new Unit(c, !tree.isSynonym(c)));
+        }
+      }
+    }
+    units.addAll(open);
+    return units;
+  }
+
+  /**
+   * Processes units taken from a shared position until all units are done.
+   * Several threads can process the same units concurrently, each unit is processed by exactly one of them.
+   */
+  private void processUnits(TreeIndex tree, List<Unit> units, AtomicInteger next, Consumer<NameUsageWrapper> consumer) {
+    final int datasetKey = tree.getDatasetKey();
     try (SqlSession s = factory.openSession(true)) {
-      rootIds = s.getMapper(TaxonMapper.class).listRootIds(datasetKey);
+      final NameUsageWrapperMapper nuwm = s.getMapper(NameUsageWrapperMapper.class);
+      final NameUsageMapper num = s.getMapper(NameUsageMapper.class);
+      final List<String> ids = new ArrayList<>(BATCH_SIZE);
+      final IntList depths = new IntArrayList(BATCH_SIZE);
+      // the ancestors of a unit, given for its first usage only
+      final List<List<SimpleName>> prefixes = new ArrayList<>(BATCH_SIZE);
+      // the classification of the last processed usage
+      final List<SimpleName> path = new ArrayList<>();
+      int idx;
+      while ((idx = next.getAndIncrement()) < units.size()) {
+        final Unit unit = units.get(idx);
+        final List<SimpleName> prefix = ancestors(num, tree, unit.node);
+        TreeIndex.Visitor visitor = (node, depth) -> {
+          ids.add(tree.id(node));
+          depths.add(prefix.size() + depth);
+          prefixes.add(depth == 0 ? prefix : null);
+          if (ids.size() == BATCH_SIZE) {
+            processBatch(nuwm, datasetKey, ids, depths, prefixes, path, consumer);
+          }
+        };
+        if (unit.descend) {
+          tree.depthFirst(unit.node, null, true, visitor);
+        } else {
+          visitor.visit(unit.node, 0);
+        }
+      }
+      processBatch(nuwm, datasetKey, ids, depths, prefixes, path, consumer);
+    }
+  }
+
+  /**
+   * @return the classification of all ancestors of a node, starting with the root
+   */
+  private static List<SimpleName> ancestors(NameUsageMapper num, TreeIndex tree, int node) {
+    List<String> ids = tree.classification(node);
+    ids.remove(ids.size() - 1);
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<String, SimpleName> names = num.listSimple(tree.getDatasetKey(), ids).stream()
+        .collect(Collectors.toMap(SimpleName::getId, Function.identity()));
+    List<SimpleName> ancestors = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      SimpleName sn = names.get(id);
+      if (sn != null) {
+        ancestors.add(new SimpleName(sn.getId(), sn.getName(), sn.getRank()));
+      }
+    }
+    return ancestors;
+  }
+
+  private static void processBatch(NameUsageWrapperMapper nuwm, int datasetKey, List<String> ids, IntList depths,
+                                   List<List<SimpleName>> prefixes, List<SimpleName> path, Consumer<NameUsageWrapper> consumer) {
+    if (ids.isEmpty()) return;
+    Map<String, NameUsageWrapper> objs = nuwm.getSomeWithoutClassification(datasetKey, ids).stream()
+        .collect(Collectors.toMap(o-> o.getUsage().getId(), Function.identity()));
+    for (int i = 0; i < ids.size(); i++) {
+      final int depth = depths.getInt(i);
+      if (prefixes.get(i) != null) {
+        // start of a new unit
+        path.clear();
+        path.addAll(prefixes.get(i));
+      }
+      // parents are always processed before their children, so the path holds all ancestors
+      while (path.size() > depth) {
+        path.remove(path.size() - 1);
+      }
+      NameUsageWrapper obj = objs.get(ids.get(i));
+      if (obj == null || path.size() < depth) {
+        // deleted since we loaded the tree, skip its entire subtree
+        continue;
+      }
+      Name n = obj.getUsage().getName();
+      path.add(new SimpleName(obj.getUsage().getId(), n.getScientificName(), n.getRank()));
+      obj.setClassification(new ArrayList<>(path));
+      consumer.accept(obj);
     }
-    LOG.info("Process dataset {} with {} root taxa", datasetKey, rootIds.size());
-    for (String id : rootIds) {
-      processTree(datasetKey, null, id, consumer);
+    ids.clear();
+    depths.clear();
+    prefixes.clear();
+  }
+  
+  /**
+   * Processes a dataset concurrently based on a single shared TreeIndex.
+   * The tree is split into several subtrees per thread, descending into large trees,
+   * so a single huge root taxon does not leave all but one thread idle.
+   * Each thread uses its own session and takes the next unprocessed subtree once it finished one,
+   * keeping the ancestors of a subtree as the start of its classifications.
+   * Usages within a single subtree are still passed on in taxonomic order, but subtrees are interleaved.
+   * The consumer must therefore be thread safe.
+   *
+   * @param threads number of subtrees to process in parallel. A single thread processes all trees sequentially in the calling thread
+   */
+  public void processDataset(int datasetKey, Consumer<NameUsageWrapper> consumer, int threads) {
+    if (threads <= 1) {
+      processDataset(datasetKey, consumer);
+      return;
+    }
+    TreeIndex tree = TreeIndex.load(factory, datasetKey);
+    final List<Unit> units = split(tree, threads * UNITS_PER_THREAD);
+    final AtomicInteger next = new AtomicInteger();
+    LOG.info("Process dataset {} with {} usages in {} subtrees using {} threads", datasetKey, tree.size(), units.size(), threads);
+    ExecutorService exec = Executors.newFixedThreadPool(threads, new NamedThreadFactory("usage-processor-" + datasetKey));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < Math.min(threads, units.size()); t++) {
+        futures.add(exec.submit(() -> processUnits(tree, units, next, consumer)));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while processing dataset " + datasetKey);
+
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException("Failed to process dataset " + datasetKey, e.getCause());
+
+    } finally {
+      // cancels remaining trees in case of errors
+      exec.shutdownNow();
     }
   }
   
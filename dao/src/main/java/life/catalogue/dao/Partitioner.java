@@ -1,10 +1,19 @@
 package life.catalogue.dao;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.google.common.base.Throwables;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import life.catalogue.api.model.DatasetScoped;
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import life.catalogue.common.lang.InterruptedRuntimeException;
 import life.catalogue.db.mapper.DatasetPartitionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +22,8 @@ import static life.catalogue.common.lang.Exceptions.interruptIfCancelled;
 
 public class Partitioner {
   private static final Logger LOG = LoggerFactory.getLogger(Partitioner.class);
+  // guards all operations requiring a lock on the main partitioned tables
+  private static final Object MAIN_TABLE_LOCK = new Object();
   
   public static String partition(int datasetKey) {
     return datasetKey > 100000 ? "plazi" : String.valueOf(datasetKey);
@@ -32,16 +43,20 @@ public class Partitioner {
 
   /**
    * Creates all dataset partitions needed, removing any previous partition and data for the given datasetKey.
-   * To avoid table deadlocks we synchronize this method!
+   * Dropping an existing partition requires an AccessExclusiveLock on the main tables if it is attached,
+   * so it is guarded by the same lock as attaching partitions to avoid deadlocks.
    * See https://github.com/Sp2000/colplus-backend/issues/127
    */
-  public static synchronized void partition(SqlSessionFactory factory, int datasetKey) {
+  public static void partition(SqlSessionFactory factory, int datasetKey) {
     interruptIfCancelled();
     LOG.info("Create empty partition for dataset {}", datasetKey);
     try (SqlSession session = factory.openSession(false)) {
       DatasetPartitionMapper mapper = session.getMapper(DatasetPartitionMapper.class);
       // first remove if existing
-      mapper.delete(datasetKey);
+      synchronized (MAIN_TABLE_LOCK) {
+        mapper.delete(datasetKey);
+        session.commit();
+      }
       
       // then create
       mapper.create(datasetKey);
@@ -49,36 +64,87 @@ public class Partitioner {
     }
   }
   
-  public static synchronized void delete(SqlSessionFactory factory, int datasetKey) {
+  public static void delete(SqlSessionFactory factory, int datasetKey) {
     try (SqlSession session = factory.openSession(false)) {
       delete(session, datasetKey);
-      session.commit();
     }
   }
   
-  public static synchronized void delete(SqlSession session, int datasetKey) {
+  /**
+   * Deletes the partition within the given session and commits it.
+   * Dropping the partition keeps an AccessExclusiveLock on the main tables until the transaction ends,
+   * so the session is committed while still holding the main table lock.
+   * Any other pending changes of the session are committed together with the drop.
+   */
+  public static void delete(SqlSession session, int datasetKey) {
     interruptIfCancelled();
     LOG.info("Delete partition for dataset {}", datasetKey);
-    DatasetPartitionMapper mapper = session.getMapper(DatasetPartitionMapper.class);
-    mapper.delete(datasetKey);
+    synchronized (MAIN_TABLE_LOCK) {
+      DatasetPartitionMapper mapper = session.getMapper(DatasetPartitionMapper.class);
+      mapper.delete(datasetKey);
+      session.commit();
+    }
   }
   
   /**
    * Builds indices and finally attaches partitions to main tables.
-   * To avoid table deadlocks on the main table we synchronize this method.
+   * Primary keys and indices of the partition tables are built concurrently, each table on its own connection.
+   * Foreign keys lock the referenced tables too and are added sequentially afterwards.
+   * Only attaching the partition requires a lock on the main tables which we synchronize to avoid deadlocks.
+   *
+   * @param threads max number of tables to build indices for concurrently
    */
-  public static synchronized void indexAndAttach(SqlSessionFactory factory, int datasetKey) {
+  public static void indexAndAttach(SqlSessionFactory factory, int datasetKey, int threads) {
     interruptIfCancelled();
-    LOG.info("Build partition indices for dataset {}", datasetKey);
+    LOG.info("Build partition indices for dataset {} using {} threads", datasetKey, threads);
+    ExecutorService exec = Executors.newFixedThreadPool(threads, new NamedThreadFactory("partition-indexer"));
+    try {
+      runPerTable(exec, factory, DatasetPartitionMapper::addPrimaryKey, datasetKey);
+      runPerTable(exec, factory, DatasetPartitionMapper::buildTableIndices, datasetKey);
+    } finally {
+      exec.shutdownNow();
+    }
     try (SqlSession session = factory.openSession(true)) {
-      // build indices and add dataset bound constraints
-      session.getMapper(DatasetPartitionMapper.class).buildIndices(datasetKey);
+      DatasetPartitionMapper mapper = session.getMapper(DatasetPartitionMapper.class);
+      DatasetPartitionMapper.TABLES.forEach(t -> mapper.addForeignKeys(t, datasetKey));
     }
     
-    try (SqlSession session = factory.openSession(true)) {
-      // attach to main table - this requires an AccessExclusiveLock on all main tables
-      // see https://github.com/Sp2000/colplus-backend/issues/387
-      session.getMapper(DatasetPartitionMapper.class).attach(datasetKey);
+    interruptIfCancelled();
+    synchronized (MAIN_TABLE_LOCK) {
+      try (SqlSession session = factory.openSession(true)) {
+        // attach to main table - this requires an AccessExclusiveLock on all main tables
+        // see https://github.com/Sp2000/colplus-backend/issues/387
+        session.getMapper(DatasetPartitionMapper.class).attach(datasetKey);
+      }
+    }
+  }
+  
+  private interface TableTask {
+    void run(DatasetPartitionMapper mapper, String table, int datasetKey);
+  }
+  
+  /**
+   * Runs the task for all partition tables concurrently and waits for all of them to finish.
+   */
+  private static void runPerTable(ExecutorService exec, SqlSessionFactory factory, TableTask task, int datasetKey) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (String table : DatasetPartitionMapper.TABLES) {
+      futures.add(exec.submit(() -> {
+        try (SqlSession session = factory.openSession(true)) {
+          task.run(session.getMapper(DatasetPartitionMapper.class), table, datasetKey);
+        }
+      }));
+    }
+    try {
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while building indices for dataset " + datasetKey);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
     }
   }
 }
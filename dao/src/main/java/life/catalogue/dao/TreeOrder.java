@@ -0,0 +1,118 @@
+package life.catalogue.dao;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import life.catalogue.db.mapper.NameUsageMapper;
+import life.catalogue.db.tree.TreeIndex;
+import life.catalogue.postgres.PgCopyWriter;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static life.catalogue.common.lang.Exceptions.interruptIfCancelled;
+
+/**
+ * Builds the materialized tree order of a dataset, a nested set numbering of all usages in depth first order.
+ * With it subtree and full tree traversals become simple range scans ordered by lft,
+ * see NameUsageMapper.processTree.
+ *
+ * The numbering is computed in memory from a TreeIndex, streamed into a temporary table via COPY
+ * and applied to all usages with a single update.
+ * As this rewrites every usage row it should be built before the table indices, which would otherwise all need updating.
+ *
+ * Any insert or move of a usage invalidates the tree order until it is rebuilt.
+ */
+public class TreeOrder {
+  private static final Logger LOG = LoggerFactory.getLogger(TreeOrder.class);
+  private static final int BATCH_SIZE = 100000;
+  // temporary table created by NameUsageMapper.createTreeOrderTable
+  private static final String TABLE = "tree_order";
+  private static final List<String> COLS = ImmutableList.of("id", "lft", "rgt");
+
+  /**
+   * Numbers nodes visited in depth first pre order.
+   * A node is closed with its rgt value once the traversal leaves its subtree.
+   */
+  private static class Numbering implements TreeIndex.Visitor {
+    final int[] lft;
+    final int[] rgt;
+    // the currently open ancestors
+    private int[] path = new int[64];
+    private int depth = 0;
+    private int counter = 0;
+
+    Numbering(int size) {
+      lft = new int[size];
+      rgt = new int[size];
+    }
+
+    @Override
+    public void visit(int node, int depth) {
+      close(depth);
+      if (this.depth == path.length) {
+        path = Arrays.copyOf(path, this.depth * 2);
+      }
+      path[this.depth++] = node;
+      lft[node] = ++counter;
+    }
+
+    /**
+     * Closes all open nodes down to the given depth.
+     */
+    void close(int depth) {
+      while (this.depth > depth) {
+        rgt[path[--this.depth]] = ++counter;
+      }
+    }
+  }
+
+  /**
+   * Rebuilds the tree order for the entire dataset within a single transaction.
+   * @return number of usages in the tree
+   */
+  public static int build(SqlSessionFactory factory, int datasetKey) {
+    TreeIndex tree = TreeIndex.load(factory, datasetKey);
+    LOG.info("Build tree order for dataset {}", datasetKey);
+
+    Numbering num = new Numbering(tree.size());
+    final int updates = tree.depthFirst(null, null, true, num);
+    num.close(0);
+
+    try (SqlSession session = factory.openSession(false)) {
+      NameUsageMapper mapper = session.getMapper(NameUsageMapper.class);
+      mapper.createTreeOrderTable();
+      PgCopyWriter writer = new PgCopyWriter(session.getConnection().unwrap(PGConnection.class),
+          TABLE, COLS);
+      try {
+        for (int node = 0; node < tree.size(); node++) {
+          if (num.lft[node] > 0) {
+            writer.write(tree.id(node), num.lft[node], num.rgt[node]);
+            if (writer.getCounter() % BATCH_SIZE == 0) {
+              interruptIfCancelled();
+            }
+          }
+        }
+        writer.close();
+      } finally {
+        writer.cancel();
+      }
+      mapper.updateTreeOrder(datasetKey);
+      mapper.updateUnreachableTreeOrder(datasetKey);
+      session.commit();
+
+    } catch (SQLException e) {
+      throw new RuntimeException("Failed to build tree order for dataset " + datasetKey, e);
+    }
+    // the update left a dead version of every usage row behind
+    try (SqlSession session = factory.openSession(true)) {
+      session.getMapper(NameUsageMapper.class).vacuumAnalyze(datasetKey);
+    }
+    LOG.info("Built tree order for {} usages in dataset {}", updates, datasetKey);
+    return updates;
+  }
+}
@@ -7,6 +7,7 @@ import life.catalogue.api.model.TreeNode;
 import life.catalogue.api.search.NameUsageWrapper;
 import life.catalogue.db.mapper.NameMapper;
 import life.catalogue.db.type.UuidTypeHandler;
+import life.catalogue.db.type2.MetricCount;
 import life.catalogue.db.type2.StringCount;
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.session.*;
@@ -109,6 +110,7 @@ public class MybatisFactory {
     registry.registerAliases(ParsedName.class.getPackage().getName());
     registry.registerAliases(NameUsageWrapper.class.getPackage().getName());
     registry.registerAlias(StringCount.class);
+    registry.registerAlias(MetricCount.class);
     registry.registerAlias("TreeNodeMybatis", TreeNode.TreeNodeMybatis.class);
     registry.registerAlias("UsageDecision", Duplicate.UsageDecision.class);
     registry.registerAlias("DuplicateMybatis", Duplicate.Mybatis.class);
@@ -3,6 +3,7 @@ package life.catalogue.db.mapper;
 import life.catalogue.api.model.DatasetImport;
 import life.catalogue.api.model.Page;
 import life.catalogue.api.vocab.ImportState;
+import life.catalogue.db.type2.MetricCount;
 import life.catalogue.db.type2.StringCount;
 import org.apache.ibatis.annotations.Param;
 import org.gbif.dwc.terms.Term;
@@ -62,4 +63,21 @@ public interface DatasetImportMapper {
   List<StringCount> countVerbatimByType(@Param("key") int datasetKey);
   List<StringCount> countVerbatimTerms(@Param("key") int datasetKey, @Param("rowType") Term rowType);
   List<StringCount> countVernacularsByLanguage(@Param("key") int datasetKey);
+  
+  /**
+   * Counts names by rank, type, status and origin in a single table scan.
+   * The metrics are named rank, type, status and origin.
+   */
+  List<MetricCount> countNameMetrics(@Param("key") int datasetKey);
+  
+  /**
+   * Counts usages by status and, separately for taxa and synonyms, by rank in a single scan.
+   * The metrics are named status, taxonRank and synonymRank.
+   */
+  List<MetricCount> countUsageMetrics(@Param("key") int datasetKey);
+  
+  /**
+   * Counts verbatim terms for all row types at once, using the row type as the metric.
+   */
+  List<MetricCount> countVerbatimTermsByType(@Param("key") int datasetKey);
 }
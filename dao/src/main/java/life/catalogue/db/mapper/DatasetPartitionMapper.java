@@ -67,11 +67,34 @@ public interface DatasetPartitionMapper {
   void deleteTable(@Param("table") String table, @Param("key") int key);
   
   /**
-   * Creates indices on a all partition tables for a given datasetKey.
+   * Creates primary keys, indices and foreign key constraints on all partition tables for a given datasetKey sequentially.
+   * See Partitioner for building them concurrently.
    *
    * @param key
    */
-  void buildIndices(@Param("key") int key);
+  default void buildIndices(int key) {
+    TABLES.forEach(t -> addPrimaryKey(t, key));
+    TABLES.forEach(t -> buildTableIndices(t, key));
+    TABLES.forEach(t -> addForeignKeys(t, key));
+  }
+
+  /**
+   * Adds the primary key to a single partition table.
+   */
+  void addPrimaryKey(@Param("table") String table, @Param("key") int key);
+
+  /**
+   * Creates all indices of a single partition table, apart from the primary key.
+   * Only locks the table itself, so indices of different tables can be built concurrently.
+   */
+  void buildTableIndices(@Param("table") String table, @Param("key") int key);
+
+  /**
+   * Adds all foreign key constraints of a single partition table.
+   * The referenced tables must have their primary keys already.
+   * This locks the referenced tables too, so better add foreign keys of different tables sequentially to avoid deadlocks.
+   */
+  void addForeignKeys(@Param("table") String table, @Param("key") int key);
   
   /**
    * Attaches all dataset specific partition tables to their main table
@@ -90,6 +113,29 @@ public interface DatasetPartitionMapper {
   
   void attachTable(@Param("table") String table, @Param("key") int key);
 
+  /**
+   * Lists all column names of a table in their defined order.
+   * @param table name of the table, e.g. name
+   */
+  List<String> columns(@Param("table") String table);
+
+  /**
+   * Copies all records of a dataset from a table into another table entirely within postgres, rewriting the dataset key.
+   * All columns not listed will get their default values.
+   *
+   * @param table the table to copy from, e.g. the partitioned name table
+   * @param into the table to insert into, e.g. the unattached name_1234 partition of the target dataset
+   * @param source datasetKey to copy
+   * @param target datasetKey to write into the copied records
+   * @param columns columns to copy, excluding dataset_key
+   * @return number of copied records
+   */
+  int copyData(@Param("table") String table,
+               @Param("into") String into,
+               @Param("source") int source,
+               @Param("target") int target,
+               @Param("columns") List<String> columns);
+
   /**
    * Checks whether the partition for the given datasetKey exists already.
    * @param key datasetKey
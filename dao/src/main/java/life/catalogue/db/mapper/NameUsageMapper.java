@@ -67,14 +67,38 @@ public interface NameUsageMapper {
    * @param exclusions set of taxon ids to exclude from traversal. This will also exclude all descendants
    * @param includeSynonyms if true includes synonyms, otherwise only taxa
    * @param depthFirst if true uses a depth first traversal which is more expensive then breadth first!
+   *
+   * If the dataset has a complete tree order and no sector filter is given the precomputed order is used
+   * which always results in a depth first traversal.
+   */
+  default Cursor<NameUsageBase> processTree(int datasetKey, Integer sectorKey, @Nullable String startID, @Nullable Set<String> exclusions,
+                                            @Nullable Rank lowestRank, boolean includeSynonyms, boolean depthFirst) {
+    if (sectorKey == null && hasTreeOrder(datasetKey)) {
+      return processTreeOrdered(datasetKey, startID, exclusions, lowestRank, includeSynonyms);
+    }
+    return processTreeRecursive(datasetKey, sectorKey, startID, exclusions, lowestRank, includeSynonyms, depthFirst);
+  }
+
+  /**
+   * Recursive implementation of processTree that walks the parent_id hierarchy.
    */
-  Cursor<NameUsageBase> processTree(@Param("datasetKey") int datasetKey,
+  Cursor<NameUsageBase> processTreeRecursive(@Param("datasetKey") int datasetKey,
                      @Param("sectorKey") Integer sectorKey,
                      @Param("startID") @Nullable String startID,
                      @Param("exclusions") @Nullable Set<String> exclusions,
                      @Param("lowestRank") @Nullable Rank lowestRank,
                      @Param("includeSynonyms") boolean includeSynonyms,
                      @Param("depthFirst") boolean depthFirst);
+
+  /**
+   * Depth first implementation of processTree that uses the precomputed tree order
+   * and requires hasTreeOrder to be true.
+   */
+  Cursor<NameUsageBase> processTreeOrdered(@Param("datasetKey") int datasetKey,
+                     @Param("startID") @Nullable String startID,
+                     @Param("exclusions") @Nullable Set<String> exclusions,
+                     @Param("lowestRank") @Nullable Rank lowestRank,
+                     @Param("includeSynonyms") boolean includeSynonyms);
   
   /**
    * Depth first only implementation using a much lighter object then above.
@@ -90,11 +114,73 @@ public interface NameUsageMapper {
    * @param exclusions set of taxon ids to exclude from traversal. This will also exclude all descendants
    * @param includeSynonyms if true includes synonyms, otherwise only taxa
    */
-  Cursor<SimpleName> processTreeSimple(@Param("datasetKey") int datasetKey,
+  default Cursor<SimpleName> processTreeSimple(int datasetKey, @Nullable Integer sectorKey, @Nullable String startID,
+                                               @Nullable Set<String> exclusions, @Nullable Rank lowestRank, boolean includeSynonyms) {
+    if (sectorKey == null && hasTreeOrder(datasetKey)) {
+      return processTreeSimpleOrdered(datasetKey, startID, exclusions, lowestRank, includeSynonyms);
+    }
+    return processTreeSimpleRecursive(datasetKey, sectorKey, startID, exclusions, lowestRank, includeSynonyms);
+  }
+
+  /**
+   * Recursive implementation of processTreeSimple that walks the parent_id hierarchy.
+   * The sort order of the result defines the tree order, see TreeOrder.
+   */
+  Cursor<SimpleName> processTreeSimpleRecursive(@Param("datasetKey") int datasetKey,
                    @Param("sectorKey") @Nullable Integer sectorKey,
                    @Param("startID") @Nullable String startID,
                    @Param("exclusions") @Nullable Set<String> exclusions,
                    @Param("lowestRank") @Nullable Rank lowestRank,
                    @Param("includeSynonyms") boolean includeSynonyms);
 
+  /**
+   * Implementation of processTreeSimple that uses the precomputed tree order and requires hasTreeOrder to be true.
+   */
+  Cursor<SimpleName> processTreeSimpleOrdered(@Param("datasetKey") int datasetKey,
+                   @Param("startID") @Nullable String startID,
+                   @Param("exclusions") @Nullable Set<String> exclusions,
+                   @Param("lowestRank") @Nullable Rank lowestRank,
+                   @Param("includeSynonyms") boolean includeSynonyms);
+
+  /**
+   * Iterates over all usages of a dataset in no particular order returning only the id, parent, rank, status and name.
+   */
+  Cursor<SimpleName> processTreeNodes(@Param("datasetKey") int datasetKey);
+
+  /**
+   * @return simple names for the given usage ids in no particular order
+   */
+  List<SimpleName> listSimple(@Param("datasetKey") int datasetKey, @Param("ids") List<String> ids);
+
+  /**
+   * The tree order is a nested set numbering (lft, rgt) of all usages in depth first order.
+   * It is valid only if all usages have been numbered, i.e. no usage was added or moved since it was last built.
+   * Usages not reachable from any root are numbered 0.
+   *
+   * @return true if the dataset has a complete tree order
+   */
+  boolean hasTreeOrder(@Param("datasetKey") int datasetKey);
+
+  /**
+   * Creates a temporary tree_order table with columns id, lft and rgt
+   * that only lives until the end of the current transaction.
+   */
+  void createTreeOrderTable();
+
+  /**
+   * Updates the tree order of all usages from the temporary tree_order table.
+   */
+  int updateTreeOrder(@Param("datasetKey") int datasetKey);
+
+  /**
+   * Sets the tree order of all usages missing in the temporary tree_order table to 0, marking them as not being part of the tree.
+   */
+  int updateUnreachableTreeOrder(@Param("datasetKey") int datasetKey);
+
+  /**
+   * Reclaims the old row versions of the usage table and updates its statistics.
+   * Must be called outside of a transaction, i.e. with an auto committing session.
+   */
+  void vacuumAnalyze(@Param("datasetKey") int datasetKey);
+
 }
@@ -7,6 +7,7 @@ import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
 import life.catalogue.api.model.Page;
 import life.catalogue.api.model.SectorImport;
+import life.catalogue.db.type2.MetricCount;
 import life.catalogue.db.type2.StringCount;
 
 /**
@@ -67,4 +68,16 @@ public interface SectorImportMapper {
   List<StringCount> countTaxaByRank(@Param("datasetKey") int datasetKey, @Param("sectorKey") int sectorKey);
   List<StringCount> countVernacularsByLanguage(@Param("datasetKey") int datasetKey, @Param("sectorKey") int sectorKey);
   
+  /**
+   * Counts sector names by rank, type, status and origin in a single scan.
+   * The metrics are named rank, type, status and origin.
+   */
+  List<MetricCount> countNameMetrics(@Param("datasetKey") int datasetKey, @Param("sectorKey") int sectorKey);
+  
+  /**
+   * Counts sector usages by status and, separately for taxa and synonyms, by rank in a single scan.
+   * The metrics are named status, taxonRank and synonymRank.
+   */
+  List<MetricCount> countUsageMetrics(@Param("datasetKey") int datasetKey, @Param("sectorKey") int sectorKey);
+  
 }
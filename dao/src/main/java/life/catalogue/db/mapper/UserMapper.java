@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Param;
 import life.catalogue.api.model.User;
 import life.catalogue.db.GlobalPageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -40,6 +41,11 @@ public interface UserMapper extends GlobalPageable<User> {
 
   int update(User obj);
   
+  /**
+   * Updates the last login date of a user only.
+   */
+  int updateLastLogin(@Param("key") int key, @Param("lastLogin") LocalDateTime lastLogin);
+  
   int delete(@Param("key") int key);
 
   /**
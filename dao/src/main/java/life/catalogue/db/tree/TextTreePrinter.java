@@ -52,7 +52,6 @@ public class TextTreePrinter implements Consumer<SimpleName> {
   private final Set<Rank> ranks;
   private final Rank lowestRank;
   private final SqlSessionFactory factory;
-  private SqlSession session;
   private final LinkedList<SimpleName> parents = new LinkedList<>();
   
   /**
@@ -100,14 +99,19 @@ public class TextTreePrinter implements Consumer<SimpleName> {
   public int print() throws IOException {
     counter = 0;
     try {
-      session = factory.openSession(true);
-      NameUsageMapper num = session.getMapper(NameUsageMapper.class);
-      num.processTreeSimple(datasetKey, sectorKey, startID, null, lowestRank, true)
-              .forEach(this);
+      if (startID == null && sectorKey == null) {
+        // entire datasets are traversed in memory
+        TreeIndex.load(factory, datasetKey).processTreeSimple(factory, null, lowestRank, true, this);
+      } else {
+        try (SqlSession session = factory.openSession(true)) {
+          NameUsageMapper num = session.getMapper(NameUsageMapper.class);
+          num.processTreeSimple(datasetKey, sectorKey, startID, null, lowestRank, true)
+                  .forEach(this);
+        }
+      }
 
     } finally {
       writer.flush();
-      session.close();
     }
     return counter;
   }
@@ -0,0 +1,45 @@
+package life.catalogue.db.type2;
+
+import java.util.Objects;
+
+/**
+ * A StringCount which also names the metric it belongs to,
+ * so several grouped counts can be retrieved with a single query.
+ */
+public class MetricCount extends StringCount {
+  private String metric;
+  
+  public MetricCount() {
+  }
+  
+  public MetricCount(String metric, String key, Integer count) {
+    super(key, count);
+    this.metric = metric;
+  }
+  
+  public String getMetric() {
+    return metric;
+  }
+  
+  public void setMetric(String metric) {
+    this.metric = metric;
+  }
+  
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!super.equals(o)) return false;
+    MetricCount that = (MetricCount) o;
+    return Objects.equals(metric, that.metric);
+  }
+  
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), metric);
+  }
+  
+  @Override
+  public String toString() {
+    return "MetricCount{" + metric + ":" + getKey() + "=" + getCount() + '}';
+  }
+}
@@ -48,6 +48,34 @@ public class EsConfig {
   @Min(1)
   public int indexingThreads = 4;
 
+  /**
+   * Number of parallel threads to use when indexing a single dataset.
+   * Root taxa are read from postgres concurrently and the same number of bulk requests are sent to Elasticsearch in parallel.
+   * A single thread indexes the dataset sequentially.
+   */
+  @Min(1)
+  public int datasetIndexingThreads = 1;
+
+  /**
+   * Max number of bulk requests a single indexer keeps in flight while preparing the next ones.
+   * Each request in flight holds its own request body buffer of several MB.
+   */
+  @Min(1)
+  public int bulkRequestsInFlight = 2;
+
+  /**
+   * Max milliseconds incremental usage updates and deletions are collected before they are applied in one batch
+   * followed by a single index refresh. Zero applies and refreshes every change immediately.
+   */
+  @Min(0)
+  public int updateDelay = 0;
+
+  /**
+   * Max number of pending usage updates before they are applied, regardless of the update delay.
+   */
+  @Min(1)
+  public int updateQueueSize = 1000;
+
   @JsonIgnore
   public boolean isEmpty() {
     return hosts == null || nameUsage == null;
@@ -170,6 +170,10 @@ public class EsModule extends SimpleModule {
     return documentWriter.writeValueAsString(document);
   }
 
+  public static void write(OutputStream out, EsNameUsage document) throws IOException {
+    documentWriter.writeValue(out, document);
+  }
+
   public static String write(NameUsageWrapper nuw) throws JsonProcessingException {
     return nameUsageWriter.writeValueAsString(nuw);
   }
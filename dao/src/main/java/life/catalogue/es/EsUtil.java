@@ -5,8 +5,10 @@ import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
@@ -42,6 +44,7 @@ public class EsUtil {
 
   /**
    * Creates an index with the provided name and index configuration, with a document type mapping based on the provided model class.
+   * The name must neither be used by an existing index nor by an alias, see {@link #indexExists(RestClient, String)}.
    * 
    * @param client
    * @param modelClass
@@ -107,21 +110,47 @@ public class EsUtil {
   }
 
   /**
-   * Deletes the index with the provided name. Will silently do nothing if the index did not exist.
+   * Deletes the index with the provided name or all indices the alias with that name points to.
+   * Will silently do nothing if the index did not exist.
    * 
    * @param client
    * @param index
    * @throws IOException
    */
   public static void deleteIndex(RestClient client, IndexConfig index) throws IOException {
-    LOG.warn("Deleting ES Index {}", index.name);
-    Response response = null;
+    deleteIndex(client, index.name);
+  }
+
+  /**
+   * Deletes the index with the provided name. If the name is an alias, all indices it points to are deleted instead, which
+   * also removes the alias. Will silently do nothing if neither an index nor an alias with that name existed.
+   * 
+   * @param client
+   * @param name
+   * @throws IOException
+   */
+  public static void deleteIndex(RestClient client, String name) throws IOException {
+    // Elasticsearch refuses to delete aliases by index name
+    Set<String> indices = getIndicesForAlias(client, name);
+    if (indices.isEmpty()) {
+      deleteConcreteIndex(client, name);
+    } else {
+      for (String index : indices) {
+        deleteConcreteIndex(client, index);
+      }
+    }
+  }
+
+  private static void deleteConcreteIndex(RestClient client, String name) throws IOException {
+    LOG.warn("Deleting ES Index {}", name);
+    Response response;
     try {
-      response = client.performRequest(new Request("DELETE", index.name));
+      response = client.performRequest(new Request("DELETE", name));
     } catch (ResponseException e) {
       if (e.getResponse().getStatusLine().getStatusCode() == 404) { // That's OK
         return;
       }
+      throw new EsException(e);
     }
     if (response.getStatusLine().getStatusCode() >= 400) {
       throw new EsException(response.getStatusLine().getReasonPhrase());
@@ -142,7 +171,93 @@ public class EsUtil {
   }
 
   /**
-   * Whether or not an index with the provided name exists.
+   * Returns the names of all indices the provided alias points to. Returns an empty set if there is no such alias.
+   *
+   * @param client
+   * @param alias
+   * @return
+   * @throws IOException
+   */
+  public static Set<String> getIndicesForAlias(RestClient client, String alias) throws IOException {
+    try {
+      Response response = client.performRequest(new Request("GET", "_alias/" + alias));
+      return readResponse(response).keySet();
+    } catch (ResponseException e) {
+      if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+        return Collections.emptySet();
+      }
+      throw new EsException(e);
+    }
+  }
+
+  /**
+   * Atomically points the provided alias to the provided index. If the alias pointed to other indices before, it is removed from them, but
+   * the indices themselves are kept. If a concrete index with the name of the alias exists, it is deleted as part of the same atomic
+   * operation, so an existing index can be replaced by an alias of the same name.
+   *
+   * @param client
+   * @param alias
+   * @param index
+   * @return the indices the alias pointed to before
+   * @throws IOException
+   */
+  public static Set<String> swapAlias(RestClient client, String alias, String index) throws IOException {
+    Set<String> previous = getIndicesForAlias(client, alias);
+    StringBuilder sb = new StringBuilder(256);
+    sb.append("{\"actions\":[{\"add\":{\"index\":")
+        .append(EsModule.escape(index))
+        .append(",\"alias\":")
+        .append(EsModule.escape(alias))
+        .append("}}");
+    if (previous.isEmpty()) {
+      if (indexExists(client, alias)) {
+        LOG.warn("Replacing ES Index {} with an alias to {}", alias, index);
+        sb.append(",{\"remove_index\":{\"index\":").append(EsModule.escape(alias)).append("}}");
+      }
+    } else {
+      for (String old : previous) {
+        sb.append(",{\"remove\":{\"index\":")
+            .append(EsModule.escape(old))
+            .append(",\"alias\":")
+            .append(EsModule.escape(alias))
+            .append("}}");
+      }
+    }
+    sb.append("]}");
+    Request request = new Request("POST", "_aliases");
+    request.setJsonEntity(sb.toString());
+    LOG.info("Point alias {} to index {}", alias, index);
+    executeRequest(client, request);
+    return previous;
+  }
+
+  /**
+   * Changes the number of replicas of an existing index.
+   *
+   * @param client
+   * @param index
+   * @param numReplicas
+   */
+  public static void updateNumberOfReplicas(RestClient client, String index, int numReplicas) {
+    Request request = new Request("PUT", index + "/_settings");
+    request.setJsonEntity("{\"index\":{\"number_of_replicas\":" + numReplicas + "}}");
+    executeRequest(client, request);
+  }
+
+  /**
+   * Merges the segments of an index into the provided maximum number of segments. This is a blocking call which can take a long time for
+   * large indices, so only use it for indices that are not written to anymore.
+   *
+   * @param client
+   * @param index
+   * @param maxNumSegments
+   */
+  public static void forceMerge(RestClient client, String index, int maxNumSegments) {
+    executeWithRetry(client, new Request("POST", index + "/_forcemerge?max_num_segments=" + maxNumSegments));
+  }
+
+  /**
+   * Whether or not an index or an alias with the provided name exists.
    * 
    * @param client
    * @param index
@@ -1,5 +1,7 @@
 package life.catalogue.es;
 
+import life.catalogue.es.nu.PayloadCodec;
+
 import javax.validation.constraints.NotNull;
 
 public class IndexConfig {
@@ -11,6 +13,13 @@ public class IndexConfig {
 
   public int numReplicas = 0;
 
+  /**
+   * Codec used to write the name usage payloads. Payloads of all codecs can always be read,
+   * so changing the codec only requires a reindex to migrate existing documents.
+   */
+  @NotNull
+  public PayloadCodec payloadCodec = PayloadCodec.JSON_DEFLATE;
+
   @Override
   public String toString() {
     return "IndexConfig{" + name + "}";
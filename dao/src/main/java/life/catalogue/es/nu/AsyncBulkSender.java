@@ -0,0 +1,365 @@
+package life.catalogue.es.nu;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import life.catalogue.common.lang.InterruptedRuntimeException;
+import life.catalogue.es.EsException;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends bulk requests to Elasticsearch asynchronously, keeping up to a configured number of requests in flight.
+ * Request bodies are written into a pool of reusable byte buffers, one per request in flight,
+ * which are sent as they are without copying them into intermediate strings.
+ * Buffers are only created when needed and grow to the size of the batches written into them.
+ * Acquiring a buffer blocks while all buffers are in flight, so callers are slowed down to the speed of Elasticsearch.
+ *
+ * Rejected requests (HTTP 429) are retried with an exponential backoff for as long as it takes,
+ * keeping their buffer which in turn makes callers wait. Elasticsearch also rejects single documents
+ * of an otherwise successful request, so the item statuses of each response are checked
+ * and only the rejected documents are sent again the same way.
+ * Other failures of entire requests are retried a limited number of times, other document failures are not retried.
+ * Once a request or document finally failed, all subsequent calls throw an EsException.
+ *
+ * Latency, size, requests in flight and rejections of all bulk requests are tracked in shared metrics,
+ * which can be exposed by registering them with a MetricRegistry.
+ */
+class AsyncBulkSender {
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncBulkSender.class);
+  private static final ScheduledExecutorService RETRY = Executors.newSingleThreadScheduledExecutor(
+      new NamedThreadFactory("ES-Bulk-Retry", Thread.NORM_PRIORITY, true)
+  );
+  private static final int MAX_ATTEMPTS = 20;
+  private static final long MAX_BACKOFF_MILLIS = 60 * 1000;
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final RestClient client;
+  private final int maxInFlight;
+  private final BlockingQueue<BulkBuffer> pool;
+  // number of buffers created so far
+  private final AtomicInteger created = new AtomicInteger();
+  private volatile Exception error;
+  // metrics shared by all senders
+  private static final Timer LATENCY = new Timer();
+  private static final Counter BYTES = new Counter();
+  private static final Counter IN_FLIGHT = new Counter();
+  private static final Counter REJECTIONS = new Counter();
+
+  /**
+   * A reusable request body exposing its internal byte array as an http entity without copying it.
+   */
+  static class BulkBuffer extends ByteArrayOutputStream {
+    private int documents;
+
+    BulkBuffer(int size) {
+      super(size);
+    }
+
+    void write(String x) {
+      writeBytes(x.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void addDocument() {
+      documents++;
+    }
+
+    int documents() {
+      return documents;
+    }
+
+    @Override
+    public synchronized void reset() {
+      super.reset();
+      documents = 0;
+    }
+
+    /**
+     * Keeps only the given documents, removing all others from the request body.
+     * Each document is expected to consist of an action and a source line, as for index or update actions.
+     *
+     * @param items indices of the documents to keep in ascending order
+     */
+    void retain(IntList items) {
+      IntList starts = new IntArrayList();
+      starts.add(0);
+      for (int i = 0; i < count; i++) {
+        if (buf[i] == '\n') {
+          starts.add(i + 1);
+        }
+      }
+      int len = 0;
+      for (int item : items) {
+        int from = starts.getInt(2 * item);
+        int to = starts.getInt(2 * item + 2);
+        System.arraycopy(buf, from, buf, len, to - from);
+        len += to - from;
+      }
+      count = len;
+      documents = items.size();
+    }
+
+    HttpEntity entity() {
+      return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+    }
+  }
+
+  /**
+   * Registers the bulk request metrics of all senders.
+   */
+  static void register(MetricRegistry registry) {
+    registry.register("life.catalogue.es.bulk.latency", LATENCY);
+    registry.register("life.catalogue.es.bulk.bytes", BYTES);
+    registry.register("life.catalogue.es.bulk.in-flight", IN_FLIGHT);
+    registry.register("life.catalogue.es.bulk.rejections", REJECTIONS);
+  }
+
+  AsyncBulkSender(RestClient client, int maxInFlight) {
+    this.client = client;
+    this.maxInFlight = maxInFlight;
+    pool = new ArrayBlockingQueue<>(maxInFlight);
+  }
+
+  /**
+   * Returns an empty buffer to write a bulk request body into, blocking until a buffer is available.
+   */
+  BulkBuffer acquire() {
+    checkError();
+    try {
+      BulkBuffer buf = pool.poll();
+      if (buf == null) {
+        if (created.getAndUpdate(x -> x < maxInFlight ? x + 1 : x) < maxInFlight) {
+          buf = new BulkBuffer(INITIAL_BUFFER_SIZE);
+        } else {
+          buf = pool.take();
+        }
+      }
+      buf.reset();
+      return buf;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while waiting for a bulk request to finish");
+    }
+  }
+
+  /**
+   * Returns an unused buffer to the pool, e.g. when writing the request body failed.
+   */
+  void release(BulkBuffer buf) {
+    pool.add(buf);
+  }
+
+  /**
+   * Sends the buffer asynchronously as a bulk request and releases it once the request has completed.
+   * @param callback called with the number of successfully indexed documents,
+   *                 possibly several times if rejected documents of the request are sent again
+   */
+  void send(BulkBuffer buf, Consumer<Integer> callback) {
+    Request request = new Request("POST", "/_bulk/?timeout=5m");
+    request.setEntity(buf.entity());
+    IN_FLIGHT.inc();
+    send(request, buf, callback, 1, 0, System.nanoTime());
+  }
+
+  private void send(Request request, BulkBuffer buf, Consumer<Integer> callback, int attempt, int rejected, long started) {
+    client.performRequestAsync(request, new ResponseListener() {
+      @Override
+      public void onSuccess(Response response) {
+        boolean done = true;
+        try {
+          long nanos = System.nanoTime() - started;
+          LATENCY.update(nanos, TimeUnit.NANOSECONDS);
+          BYTES.inc(buf.size());
+          LOG.debug("Bulk request with {} documents and {} bytes took {}ms", buf.documents(), buf.size(), TimeUnit.NANOSECONDS.toMillis(nanos));
+          BulkItems items = BulkItems.read(response.getEntity().getContent());
+          if (items == null) {
+            callback.accept(buf.documents());
+          } else {
+            done = handleItems(items);
+          }
+        } catch (IOException | RuntimeException e) {
+          LOG.error("Failed to read bulk response", e);
+          error = e;
+        } finally {
+          if (done) {
+            IN_FLIGHT.dec();
+            pool.add(buf);
+          }
+        }
+      }
+
+      /**
+       * @return true if the request is done, false if rejected documents are sent again
+       */
+      private boolean handleItems(BulkItems items) {
+        IntList retry = new IntArrayList();
+        int succeeded = 0;
+        int failed = 0;
+        for (int i = 0; i < items.statuses.size(); i++) {
+          int status = items.statuses.getInt(i);
+          if (status == 429) {
+            retry.add(i);
+          } else if (status >= 200 && status < 300) {
+            succeeded++;
+          } else {
+            failed++;
+          }
+        }
+        callback.accept(succeeded);
+        if (failed > 0) {
+          LOG.error("{} of {} documents failed in bulk request: {}", failed, items.statuses.size(), items.error);
+          error = new EsException(failed + " documents failed in bulk request: " + items.error);
+          return true;
+        }
+        if (retry.isEmpty()) {
+          return true;
+        }
+        // Elasticsearch is overloaded, keep the rejected documents and wait increasingly longer
+        REJECTIONS.inc();
+        buf.retain(retry);
+        request.setEntity(buf.entity());
+        long wait = backoff(rejected + 1);
+        LOG.debug("{} documents of a bulk request rejected by Elasticsearch. Retry in {}ms", retry.size(), wait);
+        RETRY.schedule(() -> send(request, buf, callback, attempt, rejected + 1, started), wait, TimeUnit.MILLISECONDS);
+        return false;
+      }
+
+      @Override
+      public void onFailure(Exception e) {
+        int status = e instanceof ResponseException ? ((ResponseException) e).getResponse().getStatusLine().getStatusCode() : -1;
+        if (status == 429) {
+          // Elasticsearch is overloaded, keep the buffer and wait increasingly longer
+          REJECTIONS.inc();
+          long wait = backoff(rejected + 1);
+          LOG.debug("Bulk request rejected by Elasticsearch. Retry in {}ms", wait);
+          RETRY.schedule(() -> send(request, buf, callback, attempt, rejected + 1, started), wait, TimeUnit.MILLISECONDS);
+
+        } else if (status != 400 && attempt < MAX_ATTEMPTS) {
+          long wait = backoff(attempt);
+          LOG.info("Bulk request attempt {} failed: {}. Retry in {}ms", attempt, e.getMessage(), wait);
+          RETRY.schedule(() -> send(request, buf, callback, attempt + 1, rejected, started), wait, TimeUnit.MILLISECONDS);
+
+        } else {
+          LOG.error("Bulk request failed after {} attempts", attempt, e);
+          error = e;
+          IN_FLIGHT.dec();
+          pool.add(buf);
+        }
+      }
+    });
+  }
+
+  /**
+   * The statuses of all items of a bulk response with errors.
+   */
+  static class BulkItems {
+    final IntList statuses = new IntArrayList();
+    // the first error of an item failing for other reasons than a rejection
+    String error;
+
+    /**
+     * Reads a bulk response, stopping early if it reports no errors.
+     * @return the items or null if all items succeeded
+     */
+    static BulkItems read(InputStream in) throws IOException {
+      try (JsonParser p = MAPPER.getFactory().createParser(in)) {
+        BulkItems items = null;
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+          throw new IOException("Bulk response is not a json object");
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String field = p.getCurrentName();
+          p.nextToken();
+          if (field.equals("errors")) {
+            if (!p.getBooleanValue()) {
+              return null;
+            }
+          } else if (field.equals("items")) {
+            items = new BulkItems();
+            // each item is an object with the action as its single field
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+              p.nextToken();
+              p.nextToken();
+              int status = 0;
+              while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                p.nextToken();
+                if (f.equals("status")) {
+                  status = p.getIntValue();
+                } else if (f.equals("error") && items.error == null && p.currentToken() == JsonToken.START_OBJECT) {
+                  JsonNode err = p.readValueAsTree();
+                  if (!err.path("type").asText().equals("es_rejected_execution_exception")) {
+                    items.error = err.path("type").asText() + ": " + err.path("reason").asText();
+                  }
+                } else {
+                  p.skipChildren();
+                }
+              }
+              p.nextToken();
+              items.statuses.add(status);
+            }
+          } else {
+            p.skipChildren();
+          }
+        }
+        return items;
+      }
+    }
+  }
+
+  private static long backoff(int attempt) {
+    return Math.min(MAX_BACKOFF_MILLIS, 1000L << Math.min(attempt - 1, 16));
+  }
+
+  /**
+   * Waits for all requests in flight to complete.
+   * @throws EsException if any request has failed
+   */
+  void flush() {
+    final int size = created.get();
+    List<BulkBuffer> buffers = new ArrayList<>(size);
+    try {
+      while (buffers.size() < size) {
+        buffers.add(pool.take());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while waiting for bulk requests to finish");
+    } finally {
+      pool.addAll(buffers);
+    }
+    checkError();
+  }
+
+  private void checkError() {
+    if (error != null) {
+      throw new EsException("Bulk request failed", error);
+    }
+  }
+}
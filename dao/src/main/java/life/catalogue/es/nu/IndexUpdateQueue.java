@@ -0,0 +1,203 @@
+package life.catalogue.es.nu;
+
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects incremental name usage updates and applies them in batches followed by a single index refresh.
+ * Pending usage ids are kept per dataset, so repeated updates of the same usage are only synced once.
+ *
+ * The queue is flushed once the oldest pending change is older than the configured delay
+ * or when the number of pending usages exceeds the max size, in which case the caller flushes synchronously.
+ * Deletions are executed straight away by the caller, but their index refresh is deferred to the next flush.
+ * Usages of datasets failing to sync are queued again and retried with the next flush.
+ *
+ * With a delay of zero all changes are flushed immediately in the calling thread,
+ * i.e. every update and deletion is followed by its own refresh.
+ */
+public class IndexUpdateQueue implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(IndexUpdateQueue.class);
+
+  private final BiConsumer<Integer, Set<String>> sync;
+  private final Runnable refresh;
+  private final long delay;
+  private final int maxSize;
+  private final ScheduledExecutorService scheduler;
+  // serializes flushes so batches are applied in order
+  private final Object flushLock = new Object();
+  // guarded by this
+  private Map<Integer, Set<String>> pending = new HashMap<>();
+  private int size;
+  private boolean refreshPending;
+  private long oldest;
+  // metrics
+  private volatile long flushes;
+  private volatile long lastFlush;
+
+  /**
+   * @param sync updates the given usage ids of a dataset in the index without refreshing it
+   * @param refresh refreshes the index
+   * @param delay max milliseconds a change is kept before it gets flushed. Zero flushes all changes immediately
+   * @param maxSize max number of pending usages before the queue gets flushed
+   */
+  public IndexUpdateQueue(BiConsumer<Integer, Set<String>> sync, Runnable refresh, long delay, int maxSize) {
+    this.sync = sync;
+    this.refresh = refresh;
+    this.delay = delay;
+    this.maxSize = maxSize;
+    this.scheduler = delay > 0 ? Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ES-Update-Queue", Thread.NORM_PRIORITY, true)) : null;
+  }
+
+  /**
+   * Queues the given usages for being updated in the index.
+   */
+  public void add(int datasetKey, Collection<String> usageIds) {
+    if (usageIds.isEmpty()) return;
+    boolean full;
+    synchronized (this) {
+      Set<String> ids = pending.computeIfAbsent(datasetKey, k -> new HashSet<>());
+      for (String id : usageIds) {
+        if (ids.add(id)) {
+          size++;
+        }
+      }
+      full = size >= maxSize;
+      changed();
+    }
+    if (full || scheduler == null) {
+      flush();
+    }
+  }
+
+  /**
+   * Requests an index refresh with the next flush, e.g. after documents have been deleted.
+   */
+  public void refresh() {
+    synchronized (this) {
+      refreshPending = true;
+      changed();
+    }
+    if (scheduler == null) {
+      flush();
+    }
+  }
+
+  /**
+   * Schedules a flush for the first change since the last flush.
+   */
+  private void changed() {
+    if (oldest == 0) {
+      oldest = System.currentTimeMillis();
+      if (scheduler != null && !scheduler.isShutdown()) {
+        scheduler.schedule(this::scheduledFlush, delay, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to flush index update queue", e);
+    }
+  }
+
+  /**
+   * Syncs all pending usages and refreshes the index once if anything has changed.
+   * Failing datasets are logged and queued again, the first failure is rethrown after the refresh.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      Map<Integer, Set<String>> batch;
+      boolean refreshBatch;
+      synchronized (this) {
+        if (oldest == 0) return;
+        batch = pending;
+        refreshBatch = refreshPending;
+        pending = new HashMap<>();
+        size = 0;
+        refreshPending = false;
+        oldest = 0;
+      }
+      RuntimeException error = null;
+      int cnt = 0;
+      for (Map.Entry<Integer, Set<String>> e : batch.entrySet()) {
+        try {
+          sync.accept(e.getKey(), e.getValue());
+          cnt += e.getValue().size();
+        } catch (RuntimeException ex) {
+          LOG.error("Failed to update {} usages from dataset {} in the index", e.getValue().size(), e.getKey(), ex);
+          requeue(e.getKey(), e.getValue());
+          if (error == null) {
+            error = ex;
+          }
+        }
+      }
+      if (cnt > 0 || refreshBatch) {
+        refresh.run();
+      }
+      flushes++;
+      lastFlush = System.currentTimeMillis();
+      LOG.debug("Flushed {} usage updates from {} datasets", cnt, batch.size());
+      if (error != null) {
+        throw error;
+      }
+    }
+  }
+
+  /**
+   * Adds the usages of a failed sync back to the pending ones without flushing.
+   */
+  private synchronized void requeue(int datasetKey, Set<String> usageIds) {
+    Set<String> ids = pending.computeIfAbsent(datasetKey, k -> new HashSet<>());
+    for (String id : usageIds) {
+      if (ids.add(id)) {
+        size++;
+      }
+    }
+    changed();
+  }
+
+  /**
+   * @return number of usages waiting to be updated
+   */
+  public synchronized int depth() {
+    return size;
+  }
+
+  /**
+   * @return age in milliseconds of the oldest pending change or zero if nothing is pending
+   */
+  public synchronized long lag() {
+    return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+  }
+
+  public long getFlushes() {
+    return flushes;
+  }
+
+  /**
+   * @return time in epoch milliseconds of the last flush, zero if never flushed
+   */
+  public long getLastFlush() {
+    return lastFlush;
+  }
+
+  /**
+   * Stops the scheduler and flushes all pending changes.
+   */
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+    flush();
+  }
+}
@@ -1,14 +1,19 @@
 package life.catalogue.es.nu;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.SqlSession;
@@ -16,6 +21,8 @@ import org.apache.ibatis.session.SqlSessionFactory;
 import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterables;
 import life.catalogue.api.model.DSID;
@@ -33,11 +40,12 @@ import life.catalogue.es.EsConfig;
 import life.catalogue.es.EsException;
 import life.catalogue.es.EsNameUsage;
 import life.catalogue.es.EsUtil;
+import life.catalogue.es.IndexConfig;
 import life.catalogue.es.NameUsageIndexService;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
-public class NameUsageIndexServiceEs implements NameUsageIndexService {
+public class NameUsageIndexServiceEs implements NameUsageIndexService, AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(NameUsageIndexServiceEs.class);
   private static final int BATCH_SIZE = 1000;
@@ -45,6 +53,10 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
   private final EsConfig esConfig;
   private final SqlSessionFactory factory;
   private final NameUsageProcessor processor;
+  private final IndexUpdateQueue updates;
+  // changes to the live index recorded while a new index is being built, null otherwise. Guarded by journalLock
+  private List<Consumer<String>> journal;
+  private final Object journalLock = new Object();
 
   @VisibleForTesting
   public NameUsageIndexServiceEs(RestClient client, EsConfig esConfig, SqlSessionFactory factory) {
@@ -52,6 +64,36 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
     this.esConfig = esConfig;
     this.factory = factory;
     this.processor = new NameUsageProcessor(factory);
+    this.updates = new IndexUpdateQueue(this::sync, this::refresh, esConfig.updateDelay, esConfig.updateQueueSize);
+  }
+
+  private void refresh() {
+    EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+  }
+
+  /**
+   * Registers metrics for the queue of incremental updates and the bulk requests sent to Elasticsearch.
+   */
+  public void register(MetricRegistry registry) {
+    registry.register("life.catalogue.es.update-queue.depth", (Gauge<Integer>) updates::depth);
+    registry.register("life.catalogue.es.update-queue.lag", (Gauge<Long>) updates::lag);
+    AsyncBulkSender.register(registry);
+  }
+
+  /**
+   * Applies all pending updates.
+   */
+  @Override
+  public void close() {
+    updates.close();
+  }
+
+  private NameUsageIndexer newIndexer() {
+    return newIndexer(esConfig.nameUsage.name);
+  }
+
+  private NameUsageIndexer newIndexer(String index) {
+    return new NameUsageIndexer(client, index, esConfig.bulkRequestsInFlight, esConfig.nameUsage.payloadCodec);
   }
 
   class Stats {
@@ -62,7 +104,7 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
       return usages + names;
     }
 
-    void add(Stats other) {
+    synchronized void add(Stats other) {
       usages += other.usages;
       names += other.names;
     }
@@ -70,24 +112,68 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
 
   @Override
   public void indexDataset(int datasetKey) {
-    indexDatasetInternal(datasetKey, true);
+    journal(index -> {
+      EsUtil.deleteDataset(client, index, datasetKey);
+      indexDatasetInternal(index, datasetKey, false);
+    });
+    indexDatasetInternal(esConfig.nameUsage.name, datasetKey, true);
   }
 
-  private Stats indexDatasetInternal(int datasetKey, boolean clearIndex) {
-    NameUsageIndexer indexer = new NameUsageIndexer(client, esConfig.nameUsage.name);
+  /**
+   * Records a change to the live index while a new index is being built, so it can be replayed on the new index before
+   * it goes live. Changes must be recorded before they are applied, so a change that still reaches the previous index is
+   * always replayed. Does nothing if no new index is being built.
+   *
+   * @param op applies the change to the index with the given name. It is only ever called for a new index
+   */
+  private void journal(Consumer<String> op) {
+    synchronized (journalLock) {
+      if (journal != null) {
+        journal.add(op);
+      }
+    }
+  }
+
+  /**
+   * Applies all changes recorded so far to the given index.
+   * @return number of replayed changes
+   */
+  private int replay(String index) {
+    List<Consumer<String>> ops;
+    synchronized (journalLock) {
+      ops = journal;
+      journal = new ArrayList<>();
+    }
+    ops.forEach(op -> op.accept(index));
+    return ops.size();
+  }
+
+  /**
+   * @param index name of the index to write to
+   * @param live if true the index is in use, so existing documents of the dataset are removed first and the index gets refreshed.
+   *             Otherwise a new index is being built and the caller must refresh it.
+   */
+  private Stats indexDatasetInternal(String index, int datasetKey, boolean live) {
+    NameUsageIndexer indexer = newIndexer(index);
     Stats stats = new Stats();
     try {
       LOG.info("Start indexing dataset {}", datasetKey);
-      if (clearIndex) {
+      if (live) {
         LOG.info("Remove dataset {} from index", datasetKey);
         createOrEmptyIndex(datasetKey);
       }
-      try (BatchConsumer<NameUsageWrapper> handler = new BatchConsumer<>(indexer, BATCH_SIZE)) {
-        LOG.info("Indexing usages from dataset {}", datasetKey);
-        processor.processDataset(datasetKey, handler);
+      if (esConfig.datasetIndexingThreads > 1) {
+        stats.usages = indexUsagesParallel(index, datasetKey);
+      } else {
+        try (BatchConsumer<NameUsageWrapper> handler = new BatchConsumer<>(indexer, BATCH_SIZE)) {
+          LOG.info("Indexing usages from dataset {}", datasetKey);
+          processor.processDataset(datasetKey, handler);
+        }
+        stats.usages = indexer.documentsIndexed();
+      }
+      if (live) {
+        EsUtil.refreshIndex(client, index);
       }
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
-      stats.usages = indexer.documentsIndexed();
       indexer.reset();
       try (SqlSession session = factory.openSession(true)) {
         LOG.info("Indexing bare names from dataset {}", datasetKey);
@@ -95,18 +181,36 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
         Cursor<NameUsageWrapper> cursor = mapper.processDatasetBareNames(datasetKey, null);
         Iterables.partition(cursor, BATCH_SIZE).forEach(indexer);
       }
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
       stats.names = indexer.documentsIndexed();
+      if (live) {
+        EsUtil.refreshIndex(client, index);
+      }
     } catch (IOException e) {
       throw new EsException(e);
     }
     LOG.info("Successfully indexed dataset {} into index {}. Usages: {}. Bare names: {}. Total: {}.",
-        datasetKey, esConfig.nameUsage.name, stats.usages, stats.names, stats.total());
+        datasetKey, index, stats.usages, stats.names, stats.total());
     return stats;
   }
 
+  /**
+   * Indexes all usages of a dataset reading root trees concurrently and sending bulk requests in parallel.
+   * Does not refresh the index!
+   */
+  private int indexUsagesParallel(String index, int datasetKey) {
+    final int threads = esConfig.datasetIndexingThreads;
+    LOG.info("Indexing usages from dataset {} using {} threads", datasetKey, threads);
+    ParallelNameUsageIndexer indexer = new ParallelNameUsageIndexer(client, index, threads, BATCH_SIZE, esConfig.bulkRequestsInFlight,
+        esConfig.nameUsage.payloadCodec);
+    try (indexer) {
+      processor.processDataset(datasetKey, indexer, threads);
+    }
+    return indexer.documentsIndexed();
+  }
+
   @Override
   public int deleteDataset(int datasetKey) {
+    journal(index -> EsUtil.deleteDataset(client, index, datasetKey));
     LOG.info("Removing dataset {} from index {}", datasetKey, esConfig.nameUsage.name);
     int cnt = EsUtil.deleteDataset(client, esConfig.nameUsage.name, datasetKey);
     LOG.info("Deleted all {} documents from dataset {} from index {}", cnt, datasetKey, esConfig.nameUsage.name);
@@ -116,10 +220,20 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
 
   @Override
   public void indexSector(Sector s) {
-    NameUsageIndexer indexer = new NameUsageIndexer(client, esConfig.nameUsage.name);
+    journal(index -> indexSectorInternal(index, s));
+    indexSectorInternal(esConfig.nameUsage.name, s);
+    EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+  }
+
+  /*
+   * Replaces all documents of the sector in the given index but does not refresh it!
+   */
+  private void indexSectorInternal(String index, Sector s) {
+    NameUsageIndexer indexer = newIndexer(index);
     Stats stats = new Stats();
     try (SqlSession session = factory.openSession()) {
-      deleteSector(s.getId());
+      int deleted = EsUtil.deleteSector(client, index, s.getId());
+      LOG.info("Deleted all {} documents from sector {} from index {}", deleted, s.getKey(), index);
       NameUsageWrapperMapper mapper = session.getMapper(NameUsageWrapperMapper.class);
 
       try (BatchConsumer<NameUsageWrapper> handler = new BatchConsumer<>(indexer, BATCH_SIZE)) {
@@ -133,51 +247,66 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
       Cursor<NameUsageWrapper> cursor = mapper.processDatasetBareNames(s.getDatasetKey(), s.getId());
       Iterables.partition(cursor, BATCH_SIZE).forEach(indexer);
 
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
       stats.names = indexer.documentsIndexed();
     }
     LOG.info("Successfully indexed sector {}. Index: {}. Usages: {}. Bare names: {}. Total: {}.",
-        s.getKey(), esConfig.nameUsage.name, stats.usages, stats.names, stats.total());
+        s.getKey(), index, stats.usages, stats.names, stats.total());
   }
 
   @Override
   public void deleteSector(int sectorKey) {
+    journal(index -> EsUtil.deleteSector(client, index, sectorKey));
     int cnt = EsUtil.deleteSector(client, esConfig.nameUsage.name, sectorKey);
     LOG.info("Deleted all {} documents from sector {} from index {}", cnt, sectorKey, esConfig.nameUsage.name);
-    EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+    updates.refresh();
   }
 
   @Override
   public void deleteSubtree(DSID<String> root) {
+    journal(index -> EsUtil.deleteSubtree(client, index, root));
     int cnt = EsUtil.deleteSubtree(client, esConfig.nameUsage.name, root);
     LOG.info("Deleted {} documents for entire subtree of root taxon {} from index {}", cnt, root, esConfig.nameUsage.name);
-    EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+    updates.refresh();
   }
 
   @Override
   public void delete(DSID<String> usageId) {
     if (usageId != null) {
+      journal(index -> EsUtil.deleteNameUsages(client, index, usageId.getDatasetKey(), List.of(usageId.getId())));
       LOG.debug("Delete usage {} from dataset {}", usageId.getId(), usageId.getDatasetKey());
       EsUtil.deleteNameUsages(client, esConfig.nameUsage.name, usageId.getDatasetKey(), List.of(usageId.getId()));
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+      updates.refresh();
     }
   }
 
+  /**
+   * Queues the usages for being updated. Depending on the configured update delay
+   * the changes are applied and visible immediately or with the next flush of the update queue.
+   */
   @Override
   public void update(int datasetKey, Collection<String> usageIds) {
-    if (!usageIds.isEmpty()) {
-      String first = usageIds.iterator().next();
-      LOG.info("Syncing {} taxa  from dataset {}. First id: {}", usageIds.size(), datasetKey, first);
-      int deleted = EsUtil.deleteNameUsages(client, esConfig.nameUsage.name, datasetKey, usageIds);
-      int inserted = indexNameUsages(datasetKey, usageIds);
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
-      LOG.info("Finished syncing {} taxa (first id: {}) from dataset {}. Deleted: {}. Inserted: {}.",
-          usageIds.size(),
-          first,
-          datasetKey,
-          deleted,
-          inserted);
-    }
+    updates.add(datasetKey, usageIds);
+  }
+
+  private void sync(int datasetKey, Collection<String> usageIds) {
+    journal(index -> syncInternal(index, datasetKey, usageIds));
+    syncInternal(esConfig.nameUsage.name, datasetKey, usageIds);
+  }
+
+  /*
+   * Replaces the given usages in the index but does not refresh it!
+   */
+  private void syncInternal(String index, int datasetKey, Collection<String> usageIds) {
+    String first = usageIds.iterator().next();
+    LOG.info("Syncing {} taxa  from dataset {}. First id: {}", usageIds.size(), datasetKey, first);
+    int deleted = EsUtil.deleteNameUsages(client, index, datasetKey, usageIds);
+    int inserted = indexNameUsages(index, datasetKey, usageIds);
+    LOG.info("Finished syncing {} taxa (first id: {}) from dataset {}. Deleted: {}. Inserted: {}.",
+        usageIds.size(),
+        first,
+        datasetKey,
+        deleted,
+        inserted);
   }
 
   @Override
@@ -185,7 +314,12 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
     if (!usages.isEmpty()) {
       NameUsageWrapper first = usages.iterator().next();
       LOG.info("Adding {} usages. First: {}", usages.size(), first.getUsage());
-      NameUsageIndexer indexer = new NameUsageIndexer(client, esConfig.nameUsage.name);
+      journal(index -> {
+        NameUsageIndexer journalIndexer = newIndexer(index);
+        journalIndexer.accept(usages);
+        journalIndexer.flush();
+      });
+      NameUsageIndexer indexer = newIndexer();
       indexer.accept(usages);
       return indexer.documentsIndexed();
     }
@@ -194,23 +328,51 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
 
   @Override
   public void updateClassification(int datasetKey, String rootTaxonId) {
-    NameUsageIndexer indexer = new NameUsageIndexer(client, esConfig.nameUsage.name);
+    journal(index -> updateClassificationInternal(index, datasetKey, rootTaxonId));
+    updateClassificationInternal(esConfig.nameUsage.name, datasetKey, rootTaxonId);
+    updates.refresh();
+  }
+
+  private void updateClassificationInternal(String index, int datasetKey, String rootTaxonId) {
+    NameUsageIndexer indexer = newIndexer(index);
     try (SqlSession session = factory.openSession()) {
       NameUsageWrapperMapper mapper = session.getMapper(NameUsageWrapperMapper.class);
       Cursor<SimpleNameClassification> cursor = mapper.processTree(datasetKey, null, rootTaxonId);
       ClassificationUpdater updater = new ClassificationUpdater(indexer, datasetKey);
       Iterables.partition(cursor, BATCH_SIZE).forEach(updater);
-      EsUtil.refreshIndex(client, esConfig.nameUsage.name);
+      indexer.flush();
     }
-    LOG.info("Successfully updated {} name usages", indexer.documentsIndexed());
+    LOG.info("Successfully updated {} name usages in index {}", indexer.documentsIndexed(), index);
   }
 
+  /**
+   * Builds a new, timestamped index with all datasets while the current index keeps serving searches.
+   * The new index is created without replicas and only refreshed once all datasets are indexed.
+   * It is then force merged, gets its replicas and the name usage alias is atomically swapped to point to it.
+   * The previous index is only deleted after a successful swap. If any dataset fails to be indexed
+   * the alias is left untouched and the new index is deleted instead.
+   *
+   * Incremental changes to the live index during the rebuild are recorded and replayed on the new index before the swap.
+   * The last changes are replayed while holding back new ones until the alias points to the new index, so no change is lost.
+   */
   @Override
   public void indexAll() {
+    final String alias = esConfig.nameUsage.name;
+    final String index = alias + "-" + DateTimeFormatter.ofPattern("uuuuMMddHHmmssSSS").format(LocalDateTime.now());
     final Stats total = new Stats();
+    final AtomicInteger counter = new AtomicInteger();
+    final List<Integer> failed = new CopyOnWriteArrayList<>();
+    Set<String> previous;
+    synchronized (journalLock) {
+      journal = new ArrayList<>();
+    }
     try {
-      EsUtil.deleteIndex(client, esConfig.nameUsage);
-      EsUtil.createIndex(client, EsNameUsage.class, esConfig.nameUsage);
+      IndexConfig cfg = new IndexConfig();
+      cfg.name = index;
+      cfg.numShards = esConfig.nameUsage.numShards;
+      cfg.numReplicas = 0;
+      LOG.info("Build new index {} for {}", index, alias);
+      EsUtil.createIndex(client, EsNameUsage.class, cfg);
       List<Integer> keys;
       try (SqlSession session = factory.openSession(true)) {
         keys = session.getMapper(DatasetMapper.class).keys();
@@ -221,29 +383,74 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
         LOG.info("Index {} datasets with data partitions out of all {} datasets", keys.size(), allDatasets);
       }
 
-      final AtomicInteger counter = new AtomicInteger(1);
       ExecutorService exec = Executors.newFixedThreadPool(esConfig.indexingThreads, new NamedThreadFactory("ES-Indexer"));
+      List<CompletableFuture<Void>> futures = new ArrayList<>(keys.size());
       for (Integer datasetKey : keys) {
-        CompletableFuture.supplyAsync(() -> indexDatasetInternal(datasetKey, false), exec)
-            .exceptionally(ex -> {
-              counter.incrementAndGet();
-              LOG.error("Error indexing dataset {}", datasetKey, ex.getCause());
+        futures.add(CompletableFuture.supplyAsync(() -> indexDatasetInternal(index, datasetKey, false), exec)
+            .handle((st, ex) -> {
+              int done = counter.incrementAndGet();
+              if (ex != null) {
+                failed.add(datasetKey);
+                LOG.error("Error indexing dataset {}", datasetKey, ex.getCause());
+              } else {
+                total.add(st);
+                LOG.info("Indexed {}/{} dataset {}. Usages {}", done, keys.size(), datasetKey, st.usages);
+              }
               return null;
-            }).thenAccept(st -> {
-              total.add(st);
-              LOG.info("Indexed {}/{} dataset {}. Total usages {}", counter.incrementAndGet(), keys.size(), datasetKey, total.usages);
-            });
+            }));
       }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
       ExecutorUtils.shutdown(exec);
+      if (!failed.isEmpty()) {
+        throw new EsException("Failed to index " + failed.size() + " datasets into new index " + index + ": " + failed);
+      }
 
-      LOG.info("Successfully indexed all {} datasets. Index: {}. Usages: {}. Bare names: {}. Total: {}.",
-          counter, esConfig.nameUsage.name, total.usages, total.names, total.total());
-    } catch (IOException e) {
-      throw new EsException(e);
+      LOG.info("Replayed {} changes made to the live index while building {}", replay(index), index);
+      EsUtil.refreshIndex(client, index);
+      LOG.info("Force merge new index {}", index);
+      EsUtil.forceMerge(client, index, 1);
+      if (esConfig.nameUsage.numReplicas > 0) {
+        EsUtil.updateNumberOfReplicas(client, index, esConfig.nameUsage.numReplicas);
+      }
+      synchronized (journalLock) {
+        // new changes wait until the alias points to the new index
+        int replayed = replay(index);
+        if (replayed > 0) {
+          LOG.info("Replayed {} more changes made to the live index while merging {}", replayed, index);
+          EsUtil.refreshIndex(client, index);
+        }
+        previous = EsUtil.swapAlias(client, alias, index);
+        journal = null;
+      }
+
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Failed to build new index {}. Keep serving existing index {}", index, alias, e);
+      try {
+        EsUtil.deleteIndex(client, index);
+      } catch (IOException | RuntimeException e2) {
+        LOG.warn("Failed to delete incomplete index {}", index, e2);
+      }
+      throw e instanceof IOException ? new EsException(e) : (RuntimeException) e;
+
+    } finally {
+      synchronized (journalLock) {
+        journal = null;
+      }
+    }
+
+    LOG.info("Successfully indexed all {} datasets. Index: {}. Usages: {}. Bare names: {}. Total: {}.",
+        counter.get(), index, total.usages, total.names, total.total());
+    for (String old : previous) {
+      try {
+        EsUtil.deleteIndex(client, old);
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Failed to delete previous index {}", old, e);
+      }
     }
   }
 
   private void createOrEmptyIndex(int datasetKey) throws IOException {
+    // the name usage index is usually an alias to the index built last by indexAll
     if (EsUtil.indexExists(client, esConfig.nameUsage.name)) {
       EsUtil.deleteDataset(client, esConfig.nameUsage.name, datasetKey);
       EsUtil.refreshIndex(client, esConfig.nameUsage.name);
@@ -255,8 +462,8 @@ public class NameUsageIndexServiceEs implements NameUsageIndexService {
   /*
    * Indexes documents but does not refresh the index! Must be done by caller.
    */
-  private int indexNameUsages(int datasetKey, Collection<String> usageIds) {
-    NameUsageIndexer indexer = new NameUsageIndexer(client, esConfig.nameUsage.name);
+  private int indexNameUsages(String index, int datasetKey, Collection<String> usageIds) {
+    NameUsageIndexer indexer = newIndexer(index);
     try (SqlSession session = factory.openSession()) {
       NameUsageWrapperMapper mapper = session.getMapper(NameUsageWrapperMapper.class);
       List<NameUsageWrapper> usages = usageIds.stream()
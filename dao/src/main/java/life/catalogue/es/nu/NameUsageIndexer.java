@@ -1,55 +1,57 @@
 package life.catalogue.es.nu;
 
-import com.google.common.base.Charsets;
 import life.catalogue.api.search.NameUsageWrapper;
 import life.catalogue.es.EsException;
 import life.catalogue.es.EsModule;
 import life.catalogue.es.EsNameUsage;
 import life.catalogue.es.EsServerVersion;
-import life.catalogue.es.EsUtil;
-import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 class NameUsageIndexer implements Consumer<List<NameUsageWrapper>> {
   
   private static final Logger LOG = LoggerFactory.getLogger(NameUsageIndexer.class);
 
-  // Set to true for extra statistics (make sure it's false in production)
-  private static final boolean EXTRA_STATS = false;
-
   /*
-   * The request body. With a batch size of 4096 the request body can grow to about 11 MB for synonyms with zipped
-   * payloads, and 20 MB with unzipped payloads. A batch size of 4096 seems about optimal. A batch size of 2048 also
-   * performs well, a batch size of 8192 appears to perform slightly worse.
+   * Request bodies are written straight into pooled byte buffers. With a batch size of 4096 the request body can grow to
+   * about 11 MB for synonyms with zipped payloads, and 20 MB with unzipped payloads. A batch size of 4096 seems about
+   * optimal. A batch size of 2048 also performs well, a batch size of 8192 appears to perform slightly worse.
    */
-  private final StringBuilder buf = new StringBuilder(1024 * 1024 * 4);
+  private final AsyncBulkSender sender;
 
   private final RestClient client;
   private final String index;
   private final String indexHeader;
+  private final PayloadCodec codec;
 
-  private int indexed = 0;
+  private final AtomicInteger indexed = new AtomicInteger(0);
 
   NameUsageIndexer(RestClient client, String index) {
+    this(client, index, 1, PayloadCodec.JSON_DEFLATE);
+  }
+
+  /**
+   * @param maxInFlight max number of bulk requests being sent to Elasticsearch at the same time.
+   *                    Already with a single request in flight the next batch can be prepared while the previous one is sent.
+   * @param codec codec to write the payload with
+   */
+  NameUsageIndexer(RestClient client, String index, int maxInFlight, PayloadCodec codec) {
     this.client = client;
     this.index = index;
+    this.codec = codec;
     this.indexHeader = getIndexHeader();
+    this.sender = new AsyncBulkSender(client, maxInFlight);
   }
 
   @Override
   public void accept(List<NameUsageWrapper> batch) {
-    if (EXTRA_STATS) {
-      indexWithExtraStats(batch);
-    } else {
-      index(batch);
-    }
+    index(batch);
   }
 
   /**
@@ -60,72 +62,62 @@ class NameUsageIndexer implements Consumer<List<NameUsageWrapper>> {
    * @param documents
    */
   void update(List<EsNameUsage> documents) {
-    buf.setLength(0);
+    AsyncBulkSender.BulkBuffer buf = sender.acquire();
     try {
       for (EsNameUsage doc : documents) {
-        buf.append(getUpdateHeader(doc.getDocumentId()));
+        buf.write(getUpdateHeader(doc.getDocumentId()));
         doc.setDocumentId(null);
-        buf.append("{\"doc\":");
-        buf.append(EsModule.write(doc));
-        buf.append("}\n");
+        buf.write("{\"doc\":");
+        EsModule.write(buf, doc);
+        buf.write("}\n");
+        buf.addDocument();
       }
-      sendBatch(documents.size());
-    } catch (IOException e) {
-      throw new EsException(e);
+    } catch (IOException | RuntimeException e) {
+      sender.release(buf);
+      throw e instanceof IOException ? new EsException(e) : (RuntimeException) e;
     }
+    sendBatch(buf);
   }
 
   private void index(List<NameUsageWrapper> batch) {
-    buf.setLength(0);
-    NameUsageWrapperConverter converter = new NameUsageWrapperConverter();
+    AsyncBulkSender.BulkBuffer buf = sender.acquire();
+    NameUsageWrapperConverter converter = new NameUsageWrapperConverter(codec);
     try {
       for (NameUsageWrapper nuw : batch) {
-        buf.append(indexHeader);
-        buf.append(EsModule.write(converter.toDocument(nuw)));
-        buf.append("\n");
+        buf.write(indexHeader);
+        EsModule.write(buf, converter.toDocument(nuw));
+        buf.write("\n");
+        buf.addDocument();
       }
-      sendBatch(batch.size());
-    } catch (IOException e) {
-      throw new EsException(e);
+    } catch (IOException | RuntimeException e) {
+      sender.release(buf);
+      throw e instanceof IOException ? new EsException(e) : (RuntimeException) e;
     }
+    sendBatch(buf);
   }
 
-  private void indexWithExtraStats(List<NameUsageWrapper> batch) {
-    buf.setLength(0);
-    int docSize = 0;
-    NameUsageWrapperConverter converter = new NameUsageWrapperConverter();
-    DecimalFormat df = new DecimalFormat("0.0");
-    try {
-      String json;
-      for (NameUsageWrapper nuw : batch) {
-        buf.append(indexHeader);
-        buf.append(json = EsModule.write(converter.toDocument(nuw)));
-        docSize += json.getBytes(Charsets.UTF_8).length;
-        buf.append("\n");
-      }
-      sendBatch(batch.size());
-      double totSize = ((double) docSize / (double) (1024 * 1024));
-      double avgSize = ((double) docSize / (double) (batch.size() * 1024));
-      String tot = df.format(totSize);
-      String avg = df.format(avgSize);
-      LOG.info("Average document size: {} KB. Total document size: {} MB.", avg, tot);
-    } catch (IOException e) {
-      throw new EsException(e);
+  private void sendBatch(AsyncBulkSender.BulkBuffer buf) {
+    if (buf.documents() == 0) {
+      sender.release(buf);
+    } else {
+      sender.send(buf, indexed::addAndGet);
     }
   }
 
-  private void sendBatch(int batchSize) {
-    Request request = new Request("POST", "/_bulk/?timeout=5m");
-    request.setJsonEntity(buf.toString());
-    EsUtil.executeWithRetry(client, request);
-    indexed += batchSize;
+  /**
+   * Waits until all bulk requests sent so far have completed.
+   * @throws EsException if any request has failed
+   */
+  void flush() {
+    sender.flush();
   }
 
   /**
-   * Resets the document counter.
+   * Resets the document counter after waiting for all pending requests.
    */
   void reset() {
-    indexed = 0;
+    flush();
+    indexed.set(0);
   }
 
   /**
@@ -147,12 +139,13 @@ class NameUsageIndexer implements Consumer<List<NameUsageWrapper>> {
   }
 
   /**
-   * Returns the number of documents indexed thus far.
+   * Returns the number of documents indexed thus far, waiting for all pending requests to complete first.
    * 
    * @return
    */
   int documentsIndexed() {
-    return indexed;
+    flush();
+    return indexed.get();
   }
 
   private String getIndexHeader() {
@@ -1,7 +1,6 @@
 package life.catalogue.es.nu;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -12,7 +11,6 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 import org.apache.commons.io.IOUtils;
 import life.catalogue.api.model.BareName;
@@ -27,7 +25,6 @@ import life.catalogue.api.vocab.NameField;
 import life.catalogue.common.tax.SciNameNormalizer;
 import life.catalogue.es.DownwardConverter;
 import life.catalogue.es.EsDecision;
-import life.catalogue.es.EsModule;
 import life.catalogue.es.EsMonomial;
 import life.catalogue.es.EsNameUsage;
 import life.catalogue.es.NameStrings;
@@ -56,40 +53,42 @@ import static life.catalogue.common.collection.CollectionUtils.notEmpty;
 
 /**
  * Converts {@link NameUsageWrapper} instances into a {@link EsNameUsage} instances (which model the documents entering Elasticsearch. Note
- * that the <i>entire</i> NameUsageWrapper instance is serialized (and possibly zipped) and placed into the payload field of the NameUsage
- * document.
+ * that the <i>entire</i> NameUsageWrapper instance is serialized with the configured {@link PayloadCodec} and placed into the payload
+ * field of the NameUsage document.
  */
 public class NameUsageWrapperConverter implements DownwardConverter<NameUsageWrapper, EsNameUsage> {
 
+  private final PayloadCodec codec;
+
   /**
-   * Whether or not to zip the stringified NameUsageWrapper.
+   * Creates a converter writing payloads with the default {@link PayloadCodec#JSON_DEFLATE} codec.
    */
-  public static final boolean ZIP_PAYLOAD = true;
+  public NameUsageWrapperConverter() {
+    this(PayloadCodec.JSON_DEFLATE);
+  }
+
+  public NameUsageWrapperConverter(PayloadCodec codec) {
+    this.codec = codec;
+  }
 
   /**
    * Serializes, deflates and base64-encodes a NameUsageWrapper. NB you can't store raw byte arrays in Elasticsearch. You must base64-encode
    * them.
    */
   public static String deflate(NameUsageWrapper nuw) throws IOException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-    try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
-      EsModule.write(dos, nuw);
-    }
-    byte[] bytes = Base64.getEncoder().encode(baos.toByteArray());
-    return new String(bytes, StandardCharsets.UTF_8);
+    return PayloadCodec.JSON_DEFLATE.encode(nuw);
   }
 
   /**
-   * Base64-decodes, unzips and deserializes the provided payload string back to a NameUsageWrapper instance.
+   * Base64-decodes and deserializes the provided payload string back to a NameUsageWrapper instance. Payloads of any
+   * {@link PayloadCodec} are accepted.
    * 
    * @param payload
    * @return
    * @throws IOException
    */
   public static NameUsageWrapper inflate(String payload) throws IOException {
-    byte[] bytes = Base64.getDecoder().decode(payload.getBytes());
-    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    return EsModule.readNameUsageWrapper(new InflaterInputStream(bais));
+    return PayloadCodec.decode(payload);
   }
 
   /**
@@ -295,11 +294,7 @@ public class NameUsageWrapperConverter implements DownwardConverter<NameUsageWra
       doc.setAcceptedName(s.getAccepted().getName().getScientificName());
     }
     prunePayload(nuw);
-    if (ZIP_PAYLOAD) {
-      doc.setPayload(deflate(nuw));
-    } else {
-      doc.setPayload(EsModule.write(nuw));
-    }
+    doc.setPayload(codec.encode(nuw));
     return doc;
   }
 
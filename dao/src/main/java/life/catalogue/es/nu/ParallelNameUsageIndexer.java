@@ -0,0 +1,126 @@
+package life.catalogue.es.nu;
+
+import life.catalogue.api.search.NameUsageWrapper;
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import life.catalogue.common.lang.InterruptedRuntimeException;
+import life.catalogue.es.EsException;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Thread safe consumer that collects name usages into batches which are put onto a bounded queue
+ * and sent to Elasticsearch by several NameUsageIndexer bulk senders in parallel.
+ * Producers block when all senders are busy and the queue is full.
+ * Always close the indexer to send the last batch and wait for all senders to finish.
+ */
+class ParallelNameUsageIndexer implements Consumer<NameUsageWrapper>, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelNameUsageIndexer.class);
+  // marker batch telling a sender to stop, compared by identity
+  private static final List<NameUsageWrapper> STOP = new ArrayList<>();
+
+  private final int batchSize;
+  private final BlockingQueue<List<NameUsageWrapper>> queue;
+  private final List<NameUsageIndexer> indexers = new ArrayList<>();
+  private final List<Future<?>> senders = new ArrayList<>();
+  private final ExecutorService exec;
+  private List<NameUsageWrapper> batch;
+  private volatile Throwable error;
+
+  ParallelNameUsageIndexer(RestClient client, String index, int threads, int batchSize, int maxInFlight, PayloadCodec codec) {
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+    this.queue = new ArrayBlockingQueue<>(2 * threads);
+    this.exec = Executors.newFixedThreadPool(threads, new NamedThreadFactory("ES-Bulk-Sender"));
+    for (int i = 0; i < threads; i++) {
+      NameUsageIndexer indexer = new NameUsageIndexer(client, index, maxInFlight, codec);
+      indexers.add(indexer);
+      senders.add(exec.submit(() -> send(indexer)));
+    }
+  }
+
+  private void send(NameUsageIndexer indexer) {
+    try {
+      List<NameUsageWrapper> b;
+      while ((b = queue.take()) != STOP) {
+        indexer.accept(b);
+      }
+      indexer.flush();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to send bulk request to Elasticsearch", e);
+      error = e;
+      throw e;
+    }
+  }
+
+  @Override
+  public void accept(NameUsageWrapper obj) {
+    List<NameUsageWrapper> full = null;
+    synchronized (this) {
+      batch.add(obj);
+      if (batch.size() >= batchSize) {
+        full = batch;
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) {
+      put(full);
+    }
+  }
+
+  private void put(List<NameUsageWrapper> b) {
+    try {
+      while (!queue.offer(b, 1, TimeUnit.SECONDS)) {
+        if (error != null) {
+          throw new EsException("Bulk indexing failed", error);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while queueing name usages for indexing");
+    }
+  }
+
+  /**
+   * @return the number of documents indexed by all senders. Only accurate after the indexer was closed.
+   */
+  int documentsIndexed() {
+    return indexers.stream().mapToInt(NameUsageIndexer::documentsIndexed).sum();
+  }
+
+  /**
+   * Sends the last batch and waits for all senders to finish.
+   */
+  @Override
+  public void close() {
+    try {
+      if (!batch.isEmpty()) {
+        put(batch);
+      }
+      for (int i = 0; i < senders.size(); i++) {
+        put(STOP);
+      }
+      for (Future<?> f : senders) {
+        f.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while waiting for bulk senders");
+
+    } catch (ExecutionException e) {
+      throw new EsException("Bulk indexing failed", e.getCause());
+
+    } finally {
+      exec.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package life.catalogue.es.nu;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
+import life.catalogue.api.model.BareName;
+import life.catalogue.api.model.EditorialDecision;
+import life.catalogue.api.model.SimpleName;
+import life.catalogue.api.search.NameUsageWrapper;
+import life.catalogue.api.search.SimpleDecision;
+import life.catalogue.common.kryo.ApiKryoPool;
+import life.catalogue.es.EsModule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the NameUsageWrapper stored in the payload field of a name usage document. The payload is mapped as a binary
+ * field, so all codecs produce base64-encoded strings.
+ *
+ * <p>
+ * The codec used for writing is configured per index, but payloads of any codec can be decoded. The Kryo codecs prefix the
+ * binary payload with a marker byte, while the original deflated JSON payloads are written without any marker. Deflate
+ * streams always start with a zlib header byte which never clashes with the markers. An index can therefore be switched
+ * to another codec and reindexed gradually while searches keep working on documents of both codecs.
+ * </p>
+ *
+ * <p>
+ * Kryo payloads can only be read with the same class registrations they were written with. The marker is therefore
+ * followed by the fingerprint of the registrations, see {@link ApiKryoPool#fingerprint(Kryo)}, and payloads written
+ * with other registrations are rejected with an IOException asking to reindex instead of being silently misread.
+ * </p>
+ */
+public enum PayloadCodec {
+
+  /**
+   * JSON serialized with Jackson, deflated. This is the original payload format.
+   */
+  JSON_DEFLATE {
+    @Override
+    byte[] encodeBytes(NameUsageWrapper nuw) throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+      try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
+        EsModule.write(dos, nuw);
+      }
+      return baos.toByteArray();
+    }
+  },
+
+  /**
+   * Binary Kryo serialization using the registrations of the {@link ApiKryoPool}. Fastest to encode and decode, but larger
+   * than the deflated formats.
+   */
+  KRYO {
+    @Override
+    byte[] encodeBytes(NameUsageWrapper nuw) throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+      writeHeader(baos, KRYO_MARKER);
+      writeKryo(baos, nuw);
+      return baos.toByteArray();
+    }
+  },
+
+  /**
+   * Binary Kryo serialization, deflated. The most compact format.
+   */
+  KRYO_DEFLATE {
+    @Override
+    byte[] encodeBytes(NameUsageWrapper nuw) throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
+      writeHeader(baos, KRYO_DEFLATE_MARKER);
+      try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
+        writeKryo(dos, nuw);
+      }
+      return baos.toByteArray();
+    }
+  };
+
+  private static final int KRYO_MARKER = 1;
+  private static final int KRYO_DEFLATE_MARKER = 2;
+  private static final int BUFFER_SIZE = 4096;
+  // marker byte plus the registration fingerprint
+  private static final int HEADER_SIZE = 5;
+  private static final Pool<Kryo> POOL = new PayloadKryoPool(32);
+  private static final int FINGERPRINT = fingerprint();
+
+  /**
+   * Kryo pool that adds the search classes only used in payloads to the api registrations.
+   */
+  private static class PayloadKryoPool extends ApiKryoPool {
+
+    PayloadKryoPool(int maximumCapacity) {
+      super(maximumCapacity);
+    }
+
+    @Override
+    public Kryo create() {
+      Kryo kryo = super.create();
+      kryo.register(NameUsageWrapper.class);
+      kryo.register(BareName.class);
+      kryo.register(SimpleName.class);
+      kryo.register(SimpleDecision.class);
+      kryo.register(EditorialDecision.Mode.class);
+      return kryo;
+    }
+  }
+
+  private static int fingerprint() {
+    Kryo kryo = POOL.obtain();
+    try {
+      return ApiKryoPool.fingerprint(kryo);
+    } finally {
+      POOL.free(kryo);
+    }
+  }
+
+  abstract byte[] encodeBytes(NameUsageWrapper nuw) throws IOException;
+
+  /**
+   * Serializes and base64-encodes a NameUsageWrapper.
+   */
+  public String encode(NameUsageWrapper nuw) throws IOException {
+    return Base64.getEncoder().encodeToString(encodeBytes(nuw));
+  }
+
+  /**
+   * Base64-decodes and deserializes a payload written by any of the codecs.
+   */
+  public static NameUsageWrapper decode(String payload) throws IOException {
+    byte[] bytes = Base64.getDecoder().decode(payload);
+    if (bytes.length > 0 && bytes[0] == KRYO_MARKER) {
+      checkHeader(bytes);
+      return readKryo(new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE));
+    } else if (bytes.length > 0 && bytes[0] == KRYO_DEFLATE_MARKER) {
+      checkHeader(bytes);
+      return readKryo(new InflaterInputStream(new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE)));
+    }
+    return EsModule.readNameUsageWrapper(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  private static void writeHeader(OutputStream out, int marker) throws IOException {
+    out.write(marker);
+    out.write(FINGERPRINT >>> 24);
+    out.write(FINGERPRINT >>> 16);
+    out.write(FINGERPRINT >>> 8);
+    out.write(FINGERPRINT);
+  }
+
+  private static void checkHeader(byte[] bytes) throws IOException {
+    if (bytes.length < HEADER_SIZE) {
+      throw new IOException("Truncated kryo payload of " + bytes.length + " bytes");
+    }
+    int fingerprint = (bytes[1] & 0xFF) << 24 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 8 | (bytes[4] & 0xFF);
+    if (fingerprint != FINGERPRINT) {
+      throw new IOException(String.format("Kryo payload was written with registrations %08x, but we use %08x. Please reindex",
+          fingerprint, FINGERPRINT));
+    }
+  }
+
+  private static void writeKryo(OutputStream out, NameUsageWrapper nuw) {
+    Kryo kryo = POOL.obtain();
+    try {
+      Output output = new Output(out, BUFFER_SIZE);
+      kryo.writeObject(output, nuw);
+      output.flush();
+    } finally {
+      POOL.free(kryo);
+    }
+  }
+
+  private static NameUsageWrapper readKryo(InputStream in) {
+    Kryo kryo = POOL.obtain();
+    try {
+      return kryo.readObject(new Input(in, BUFFER_SIZE), NameUsageWrapper.class);
+    } finally {
+      POOL.free(kryo);
+    }
+  }
+}
@@ -3,14 +3,19 @@ package life.catalogue.img;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
+import life.catalogue.api.exception.NotFoundException;
+
 public interface ImageService {
   
   void putDatasetLogo(int datasetKey, BufferedImage img) throws IOException;
   
-  BufferedImage datasetLogo(int datasetKey, ImgConfig.Scale scale);
-  
-  
+  /**
+   * @return the encoded logo as stored, ready to be served without decoding it
+   * @throws life.catalogue.api.exception.NotFoundException if the dataset has no logo
+   */
+  StoredImage datasetLogo(int datasetKey, ImgConfig.Scale scale);
   
+
   static ImageService passThru() {
     return new ImageService() {
       @Override
@@ -18,8 +23,8 @@ public interface ImageService {
       }
   
       @Override
-      public BufferedImage datasetLogo(int datasetKey, ImgConfig.Scale scale) {
-        return null;
+      public StoredImage datasetLogo(int datasetKey, ImgConfig.Scale scale) {
+        throw new NotFoundException("Dataset " + datasetKey + " has no logo");
       }
     };
   }
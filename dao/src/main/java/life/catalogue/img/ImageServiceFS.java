@@ -3,12 +3,24 @@ package life.catalogue.img;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import javax.imageio.ImageIO;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import life.catalogue.api.exception.NotFoundException;
+import life.catalogue.common.concurrent.NamedThreadFactory;
 import org.imgscalr.Scalr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +28,22 @@ import org.slf4j.LoggerFactory;
 public class ImageServiceFS implements ImageService {
   public static final String IMAGE_FORMAT = "png";
   private static final Logger LOG = LoggerFactory.getLogger(ImageServiceFS.class);
+  // scales the sizes of an image in parallel, kept off the common pool as scaling is slow and CPU bound
+  private static final ThreadPoolExecutor SCALE_EXEC = new ThreadPoolExecutor(ImgConfig.Scale.values().length, ImgConfig.Scale.values().length,
+      60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("img-scale", Thread.NORM_PRIORITY, true));
+  static {
+    SCALE_EXEC.allowCoreThreadTimeOut(true);
+  }
   
   private final ImgConfig cfg;
+  // hot encoded images by their path
+  private final Cache<Path, StoredImage> cache;
   
   public ImageServiceFS(ImgConfig cfg) {
     this.cfg = cfg;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(cfg.cacheSize)
+        .build();
   }
   
   public static BufferedImage read(InputStream img) throws IOException {
@@ -37,7 +60,13 @@ public class ImageServiceFS implements ImageService {
   @Override
   public void putDatasetLogo(int datasetKey, BufferedImage img) throws IOException {
     LOG.info("{} logo for dataset {}", img == null ? "Delete" : "Change", datasetKey);
-    storeAllImageSizes(img, s -> cfg.datasetLogo(datasetKey, s));
+    try {
+      storeAllImageSizes(img, s -> cfg.datasetLogo(datasetKey, s));
+    } finally {
+      for (ImgConfig.Scale scale : ImgConfig.Scale.values()) {
+        cache.invalidate(cfg.datasetLogo(datasetKey, scale));
+      }
+    }
   }
 
   private void storeAllImageSizes(BufferedImage img, Function<ImgConfig.Scale, Path> locator) throws IOException {
@@ -53,10 +82,25 @@ public class ImageServiceFS implements ImageService {
         if (!Files.isDirectory(parent)) {
           Files.createDirectories(parent);
         }
-        writeImage(locator.apply(ImgConfig.Scale.ORIGINAL), img);
-        writeImage(locator.apply(ImgConfig.Scale.LARGE), scale(img, ImgConfig.Scale.LARGE));
-        writeImage(locator.apply(ImgConfig.Scale.MEDIUM), scale(img, ImgConfig.Scale.MEDIUM));
-        writeImage(locator.apply(ImgConfig.Scale.SMALL), scale(img, ImgConfig.Scale.SMALL));
+        // scale and write all sizes in parallel
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (ImgConfig.Scale scale : ImgConfig.Scale.values()) {
+          futures.add(CompletableFuture.runAsync(() -> {
+            try {
+              writeImage(locator.apply(scale), scale == ImgConfig.Scale.ORIGINAL ? img : scale(img, scale));
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }, SCALE_EXEC));
+        }
+        try {
+          CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) e.getCause()).getCause();
+          }
+          throw e;
+        }
       }
     } catch (IOException e) {
       LOG.error("Failed to update all sizes for image {} {}", locator.apply(ImgConfig.Scale.ORIGINAL), img, e);
@@ -78,17 +122,31 @@ public class ImageServiceFS implements ImageService {
   
   
   @Override
-  public BufferedImage datasetLogo(int datasetKey, ImgConfig.Scale scale) {
+  public StoredImage datasetLogo(int datasetKey, ImgConfig.Scale scale) {
     Path p = cfg.datasetLogo(datasetKey, scale);
     return readImage(p, "Dataset " + datasetKey + " has no logo");
   }
   
-  private BufferedImage readImage(Path p, String notFoundMsg) throws NotFoundException {
+  /**
+   * Reads the encoded image from the cache or disk.
+   * Cached images are only used if the file on disk has not been modified since.
+   */
+  private StoredImage readImage(Path p, String notFoundMsg) throws NotFoundException {
     try {
-      if (!Files.exists(p)) {
+      long modified;
+      try {
+        modified = Files.getLastModifiedTime(p).toMillis();
+      } catch (NoSuchFileException e) {
+        cache.invalidate(p);
         throw new NotFoundException(notFoundMsg);
       }
-      return ImageIO.read(p.toFile());
+      StoredImage img = cache.getIfPresent(p);
+      if (img == null || img.getLastModified() != modified) {
+        img = new StoredImage(Files.readAllBytes(p), modified);
+        cache.put(p, img);
+      }
+      return img;
+      
     } catch (IOException e) {
       throw new RuntimeException("Failed to read image " + p, e);
     }
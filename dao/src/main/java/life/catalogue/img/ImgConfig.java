@@ -1,6 +1,7 @@
 package life.catalogue.img;
 
 import java.nio.file.Path;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import life.catalogue.db.PgDbConfig;
@@ -30,6 +31,12 @@ public class ImgConfig extends PgDbConfig {
   @NotNull
   public Size large = new Size(200, 600);
   
+  /**
+   * Max number of encoded images to keep in memory for serving.
+   */
+  @Min(0)
+  public int cacheSize = 1000;
+  
   public Size size(Scale scale) {
     switch (scale) {
       case LARGE:
@@ -0,0 +1,35 @@
+package life.catalogue.img;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * An already encoded image as it is stored in the image repository,
+ * together with its modification time and an entity tag based on its content.
+ */
+public class StoredImage {
+  private final byte[] data;
+  private final long lastModified;
+  private final String etag;
+  
+  /**
+   * @param data the encoded image bytes
+   * @param lastModified modification time in epoch milliseconds
+   */
+  public StoredImage(byte[] data, long lastModified) {
+    this.data = data;
+    this.lastModified = lastModified;
+    this.etag = Hashing.murmur3_128().hashBytes(data).toString();
+  }
+  
+  public byte[] getData() {
+    return data;
+  }
+  
+  public long getLastModified() {
+    return lastModified;
+  }
+  
+  public String getEtag() {
+    return etag;
+  }
+}
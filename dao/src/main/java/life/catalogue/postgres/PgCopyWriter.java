@@ -0,0 +1,154 @@
+package life.catalogue.postgres;
+
+import com.google.common.base.Joiner;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Streams rows into a postgres table via a native COPY FROM STDIN command in CSV format,
+ * avoiding the overhead of individual insert statements.
+ *
+ * Values are converted to their postgres text representation:
+ * nulls become NULL, enums their name, collections a postgres array and all other objects their toString() value.
+ * Non null values are always quoted so empty strings are kept distinct from NULL.
+ *
+ * Rows are buffered and flushed to the copy stream in chunks.
+ * The copy is only complete once the writer is closed, cancelling it otherwise.
+ */
+public class PgCopyWriter implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(PgCopyWriter.class);
+  private static final Joiner COL_JOINER = Joiner.on(",");
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private final String table;
+  private final int columns;
+  private final CopyIn copy;
+  private final StringBuilder sb = new StringBuilder(BUFFER_SIZE + 1024);
+  private long counter = 0;
+
+  public PgCopyWriter(PGConnection con, String table, List<String> columns) throws SQLException {
+    this.table = table;
+    this.columns = columns.size();
+    String sql = "COPY " + table + "(" + COL_JOINER.join(columns) + ") FROM STDIN WITH CSV";
+    LOG.debug("Start {}", sql);
+    copy = con.getCopyAPI().copyIn(sql);
+  }
+
+  /**
+   * Writes a single row with values given in the order of the columns.
+   */
+  public void write(Object... values) throws SQLException {
+    if (values.length != columns) {
+      throw new IllegalArgumentException("Expected " + columns + " values for table " + table + " but got " + values.length);
+    }
+    boolean first = true;
+    for (Object val : values) {
+      if (!first) {
+        sb.append(',');
+      }
+      first = false;
+      if (val != null) {
+        appendQuoted(toText(val));
+      }
+    }
+    sb.append('\n');
+    counter++;
+    if (sb.length() >= BUFFER_SIZE) {
+      flush();
+    }
+  }
+
+  private void appendQuoted(String x) {
+    sb.append('"');
+    for (int i = 0; i < x.length(); i++) {
+      char c = x.charAt(i);
+      if (c == '"') {
+        sb.append('"');
+      }
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+
+  private static String toText(Object val) {
+    if (val instanceof Enum) {
+      return ((Enum<?>) val).name();
+    } else if (val instanceof Collection) {
+      return toArray((Collection<?>) val);
+    }
+    return val.toString();
+  }
+
+  /**
+   * @return a postgres array literal with all elements being quoted and escaped
+   */
+  static String toArray(Collection<?> values) {
+    StringBuilder arr = new StringBuilder();
+    arr.append('{');
+    boolean first = true;
+    for (Object v : values) {
+      if (!first) {
+        arr.append(',');
+      }
+      first = false;
+      if (v == null) {
+        arr.append("NULL");
+      } else {
+        arr.append('"');
+        String x = v instanceof Enum ? ((Enum<?>) v).name() : v.toString();
+        for (int i = 0; i < x.length(); i++) {
+          char c = x.charAt(i);
+          if (c == '"' || c == '\\') {
+            arr.append('\\');
+          }
+          arr.append(c);
+        }
+        arr.append('"');
+      }
+    }
+    arr.append('}');
+    return arr.toString();
+  }
+
+  private void flush() throws SQLException {
+    if (sb.length() > 0) {
+      byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+      copy.writeToCopy(bytes, 0, bytes.length);
+      sb.setLength(0);
+    }
+  }
+
+  /**
+   * @return number of rows written so far
+   */
+  public long getCounter() {
+    return counter;
+  }
+
+  /**
+   * Cancels the copy without writing any data. Does nothing if the copy has already been completed.
+   */
+  public void cancel() throws SQLException {
+    if (copy.isActive()) {
+      copy.cancelCopy();
+    }
+  }
+
+  /**
+   * Flushes all remaining rows and completes the copy.
+   */
+  @Override
+  public void close() throws SQLException {
+    if (copy.isActive()) {
+      flush();
+      long rows = copy.endCopy();
+      LOG.debug("Copied {} rows into {}", rows, table);
+    }
+  }
+}
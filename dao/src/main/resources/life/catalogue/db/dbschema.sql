@@ -940,7 +940,9 @@ CREATE TABLE name_usage (
   lifezones LIFEZONE[] DEFAULT '{}',
   link TEXT,
   remarks TEXT,
-  dataset_sectors JSONB
+  dataset_sectors JSONB,
+  lft INTEGER,
+  rgt INTEGER
 ) PARTITION BY LIST (dataset_key);
 
 
@@ -2,6 +2,10 @@ package life.catalogue.dao;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -13,6 +17,7 @@ import life.catalogue.db.MybatisTestUtils;
 import life.catalogue.db.PgSetupRule;
 import life.catalogue.db.mapper.SectorMapper;
 import life.catalogue.db.TestDataRule;
+import life.catalogue.db.tree.TreeIndex;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -34,6 +39,27 @@ public class NameUsageProcessorTest extends DaoTestBase {
     Assert.assertEquals(24, handler.counter.get());
     Assert.assertEquals(4, handler.synCounter.get());
   }
+
+  @Test
+  public void processDatasetParallel() {
+    NameUsageProcessor proc = new NameUsageProcessor(PgSetupRule.getSqlSessionFactory());
+    Map<String, List<SimpleName>> expected = new HashMap<>();
+    proc.processDataset(NAME4.getDatasetKey(), obj -> expected.put(obj.getUsage().getId(), obj.getClassification()));
+
+    // the single root is split into subtrees
+    TreeIndex tree = TreeIndex.load(PgSetupRule.getSqlSessionFactory(), NAME4.getDatasetKey());
+    assertTrue(NameUsageProcessor.split(tree, 8).size() >= 8);
+
+    DRH handler = new DRH();
+    Map<String, List<SimpleName>> classifications = new ConcurrentHashMap<>();
+    proc.processDataset(NAME4.getDatasetKey(), obj -> {
+      handler.accept(obj);
+      classifications.put(obj.getUsage().getId(), obj.getClassification());
+    }, 4);
+    Assert.assertEquals(24, handler.counter.get());
+    Assert.assertEquals(4, handler.synCounter.get());
+    assertEquals(expected, classifications);
+  }
   
   public static class DRH implements Consumer<NameUsageWrapper> {
     public AtomicInteger counter = new AtomicInteger(0);
@@ -7,9 +7,12 @@ import life.catalogue.api.model.DatasetImport;
 import life.catalogue.api.model.Page;
 import life.catalogue.api.vocab.*;
 import life.catalogue.common.text.StringUtils;
+import life.catalogue.dao.DatasetImportDao;
+import life.catalogue.db.type2.MetricCount;
 import life.catalogue.db.type2.StringCount;
 import org.gbif.dwc.terms.AcefTerm;
 import org.gbif.dwc.terms.Term;
+import org.gbif.dwc.terms.TermFactory;
 import org.gbif.nameparser.api.NameType;
 import org.gbif.nameparser.api.Rank;
 import org.junit.Test;
@@ -233,6 +236,41 @@ public class DatasetImportMapperTest extends MapperTestBase<DatasetImportMapper>
     assertCounts(expected, mapper().countVerbatimByType(DATASET11.getKey()));
   }
   
+  /**
+   * The combined metric queries must produce the same counts as the individual ones.
+   */
+  @Test
+  public void metricCounts() throws Exception {
+    final int key = DATASET11.getKey();
+    List<MetricCount> metrics = mapper().countNameMetrics(key);
+    assertCounts(new HashSet<>(mapper().countNamesByRank(key)), metric(metrics, "rank"));
+    assertCounts(new HashSet<>(mapper().countNamesByType(key)), metric(metrics, "type"));
+    assertCounts(new HashSet<>(mapper().countNamesByStatus(key)), metric(metrics, "status"));
+    assertCounts(new HashSet<>(mapper().countNamesByOrigin(key)), metric(metrics, "origin"));
+    
+    metrics = mapper().countUsageMetrics(key);
+    assertCounts(new HashSet<>(mapper().countUsagesByStatus(key)), metric(metrics, "status"));
+    assertCounts(new HashSet<>(mapper().countTaxaByRank(key)), metric(metrics, "taxonRank"));
+    assertEquals(2, DatasetImportDao.total(metric(metrics, "synonymRank")));
+    
+    metrics = mapper().countVerbatimTermsByType(key);
+    for (StringCount rowType : mapper().countVerbatimByType(key)) {
+      Term rt = TermFactory.instance().findClassTerm(rowType.getKey());
+      assertCounts(new HashSet<>(mapper().countVerbatimTerms(key, rt)), metric(metrics, rowType.getKey()));
+    }
+  }
+  
+  /**
+   * @return plain StringCounts for the given metric so they can be compared to the individual queries
+   */
+  private static List<StringCount> metric(List<MetricCount> metrics, String metric) {
+    List<StringCount> counts = new ArrayList<>();
+    for (StringCount cnt : DatasetImportDao.metric(metrics, metric)) {
+      counts.add(new StringCount(cnt.getKey(), cnt.getCount()));
+    }
+    return counts;
+  }
+  
   private static <T> void assertCounts(Set<T> expected, List<T> actual) {
     assertEquals(expected, new HashSet<>(actual));
   }
@@ -17,6 +17,7 @@ import org.gbif.nameparser.api.Rank;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +40,20 @@ public class DatasetPartitionMapperTest extends MapperTestBase<DatasetPartitionM
     mapper().delete(Datasets.DRAFT_COL);
   }
 
+  @Test
+  public void copyData() {
+    final int source = TestDataRule.TestData.APPLE.key;
+    mapper().delete(Datasets.DRAFT_COL);
+    mapper().create(Datasets.DRAFT_COL);
+
+    List<String> cols = mapper().columns("name");
+    Assert.assertTrue(cols.contains("scientific_name"));
+    cols.remove("dataset_key");
+    int cnt = mapper().copyData("name", "name_" + Datasets.DRAFT_COL, source, Datasets.DRAFT_COL, cols);
+    Assert.assertTrue(cnt > 0);
+    Assert.assertEquals(mapper(NameMapper.class).count(source), cnt);
+  }
+
   @Test
   public void exists() {
     Assert.assertTrue(mapper().exists(Datasets.DRAFT_COL));
@@ -2,13 +2,21 @@ package life.catalogue.db.mapper;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import life.catalogue.api.model.DSID;
+import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameUsage;
+import life.catalogue.api.TestEntityGenerator;
 import life.catalogue.api.model.NameUsageBase;
+import life.catalogue.api.model.SimpleName;
+import life.catalogue.dao.TreeOrder;
+import life.catalogue.db.PgSetupRule;
 import life.catalogue.db.TestDataRule;
+import org.gbif.nameparser.api.Rank;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -17,6 +25,7 @@ import java.util.function.Consumer;
 
 import static life.catalogue.api.TestEntityGenerator.DATASET11;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 
@@ -68,6 +77,50 @@ public class NameUsageMapperTreeTest extends MapperTestBase<NameUsageMapper> {
     assertEquals(dfs, h.list);
   }
   
+  @Test
+  public void treeOrder() throws Exception {
+    final int key = DATASET11.getKey();
+    List<SimpleName> recursive = new ArrayList<>();
+    mapper().processTreeSimple(key, null, null, null, null, true).forEach(recursive::add);
+    assertFalse(mapper().hasTreeOrder(key));
+
+    assertEquals(24, TreeOrder.build(PgSetupRule.getSqlSessionFactory(), key));
+    assertTrue(mapper().hasTreeOrder(key));
+
+    List<SimpleName> ordered = new ArrayList<>();
+    mapper().processTreeSimpleOrdered(key, null, null, null, true).forEach(ordered::add);
+    assertEquals(recursive, ordered);
+
+    assertSameTraversals(key);
+
+    // a species ranked below its subspecies prunes the entire subtree incl the species synonym
+    Name n = mapper(NameMapper.class).get(DSID.key(key, "n13"));
+    n.setRank(Rank.SUBSPECIES);
+    mapper(NameMapper.class).update(n);
+    CollectIdHandler<NameUsageBase> ord = new CollectIdHandler<>();
+    mapper().processTreeOrdered(key, "t10", null, Rank.SPECIES, true).forEach(ord);
+    assertEquals(ImmutableList.of("t10", "s11", "t12"), ord.list);
+    assertSameTraversals(key);
+
+    // moving a taxon invalidates the order
+    mapper().updateParentId(key, "t30", "t2", TestEntityGenerator.USER_USER.getKey());
+    assertFalse(mapper().hasTreeOrder(key));
+  }
+
+  private void assertSameTraversals(int key) {
+    for (String start : Arrays.asList(null, "t2", "t6", "t20")) {
+      for (Set<String> exclusions : ImmutableList.<Set<String>>of(Sets.newHashSet(), Sets.newHashSet("t6"), Sets.newHashSet("t6", "t30"))) {
+        for (Rank lowestRank : Arrays.asList(null, Rank.GENUS, Rank.SPECIES)) {
+          CollectIdHandler<NameUsageBase> rec = new CollectIdHandler<>();
+          mapper().processTreeRecursive(key, null, start, exclusions, lowestRank, true, true).forEach(rec);
+          CollectIdHandler<NameUsageBase> ord = new CollectIdHandler<>();
+          mapper().processTreeOrdered(key, start, exclusions, lowestRank, true).forEach(ord);
+          assertEquals(rec.list, ord.list);
+        }
+      }
+    }
+  }
+
   public static class CountHandler<T extends NameUsageBase> implements Consumer<T> {
     public AtomicInteger counter = new AtomicInteger(0);
     Set<String> previous = new HashSet<>();
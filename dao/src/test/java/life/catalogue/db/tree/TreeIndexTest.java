@@ -0,0 +1,61 @@
+package life.catalogue.db.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import life.catalogue.api.model.SimpleName;
+import life.catalogue.db.PgSetupRule;
+import life.catalogue.db.TestDataRule;
+import life.catalogue.db.mapper.NameUsageMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.gbif.nameparser.api.Rank;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TreeIndexTest {
+
+  @ClassRule
+  public static PgSetupRule pgSetupRule = new PgSetupRule();
+
+  @Rule
+  public final TestDataRule testDataRule = TestDataRule.tree();
+
+  @Test
+  public void sameAsRecursive() throws Exception {
+    final int key = TestDataRule.TestData.TREE.key;
+    TreeIndex tree = TreeIndex.load(PgSetupRule.getSqlSessionFactory(), key);
+    assertEquals(24, tree.size());
+
+    for (String start : new String[]{null, "t2", "t6", "t20", "s11"}) {
+      for (Rank rank : new Rank[]{null, Rank.GENUS}) {
+        for (boolean synonyms : new boolean[]{true, false}) {
+          List<SimpleName> expected = new ArrayList<>();
+          try (SqlSession session = PgSetupRule.getSqlSessionFactory().openSession(true)) {
+            session.getMapper(NameUsageMapper.class)
+                .processTreeSimpleRecursive(key, null, start, null, rank, synonyms)
+                .forEach(expected::add);
+          }
+          List<SimpleName> names = new ArrayList<>();
+          int cnt = tree.processTreeSimple(PgSetupRule.getSqlSessionFactory(), start, rank, synonyms, names::add);
+          assertEquals(expected.size(), cnt);
+          assertEquals(expected, names);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void classification() throws Exception {
+    TreeIndex tree = TreeIndex.load(PgSetupRule.getSqlSessionFactory(), TestDataRule.TestData.TREE.key);
+    int idx = tree.indexOf("s22");
+    assertTrue(tree.isSynonym(idx));
+    assertEquals(ImmutableList.of("t1","t2","t3","t4","t5","t20","s22"), tree.classification(idx));
+    assertEquals("t20", tree.id(tree.parent(idx)));
+    assertEquals(TreeIndex.NO_PARENT, tree.parent(tree.indexOf("t1")));
+    assertEquals(-1, tree.indexOf("nope"));
+  }
+}
@@ -9,6 +9,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Set;
 
 import static life.catalogue.es.EsUtil.insert;
 import static life.catalogue.es.EsUtil.refreshIndex;
@@ -112,6 +113,37 @@ public class EsUtilTest extends EsReadTestBase {
     assertFalse(EsUtil.indexExists(client, indexName()));
   }
 
+  @Test
+  public void swapAlias() throws IOException {
+    String alias = indexName();
+    String idx1 = alias + "-1";
+    String idx2 = alias + "-2";
+    createIndex(idx1);
+    // replaces the concrete index with an alias of the same name
+    assertTrue(EsUtil.swapAlias(client, alias, idx1).isEmpty());
+    assertEquals(Set.of(idx1), EsUtil.getIndicesForAlias(client, alias));
+    assertTrue(EsUtil.indexExists(client, alias));
+
+    createIndex(idx2);
+    assertEquals(Set.of(idx1), EsUtil.swapAlias(client, alias, idx2));
+    assertEquals(Set.of(idx2), EsUtil.getIndicesForAlias(client, alias));
+    assertTrue(EsUtil.indexExists(client, idx1));
+
+    // deleting the alias deletes the index behind it
+    EsUtil.deleteIndex(client, alias);
+    assertFalse(EsUtil.indexExists(client, alias));
+    assertFalse(EsUtil.indexExists(client, idx2));
+    assertTrue(EsUtil.indexExists(client, idx1));
+    EsUtil.deleteIndex(client, idx1);
+    assertFalse(EsUtil.indexExists(client, idx1));
+  }
+
+  private static void createIndex(String name) throws IOException {
+    IndexConfig cfg = new IndexConfig();
+    cfg.name = name;
+    EsUtil.createIndex(client, EsNameUsage.class, cfg);
+  }
+
   @Test
   public void getSearchTerms() throws IOException {
     String[] terms = EsUtil.getSearchTerms(client, indexName(), Analyzer.AUTO_COMPLETE, "Rosy bee-eater");
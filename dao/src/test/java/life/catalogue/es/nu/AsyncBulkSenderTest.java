@@ -0,0 +1,46 @@
+package life.catalogue.es.nu;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AsyncBulkSenderTest {
+
+  private static AsyncBulkSender.BulkItems read(String json) throws Exception {
+    return AsyncBulkSender.BulkItems.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void readNoErrors() throws Exception {
+    assertNull(read("{\"took\":30,\"errors\":false,\"items\":[{\"index\":{\"_id\":\"1\",\"status\":201}}]}"));
+  }
+
+  @Test
+  public void readErrors() throws Exception {
+    AsyncBulkSender.BulkItems items = read("{\"took\":30,\"errors\":true,\"items\":[" +
+        "{\"index\":{\"_index\":\"nu\",\"_id\":\"1\",\"_shards\":{\"total\":2},\"status\":201}}," +
+        "{\"index\":{\"_index\":\"nu\",\"_id\":\"2\",\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"}}}," +
+        "{\"update\":{\"_index\":\"nu\",\"_id\":\"3\",\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\",\"caused_by\":{\"type\":\"x\"}}}}," +
+        "{\"index\":{\"_index\":\"nu\",\"_id\":\"4\",\"status\":200}}" +
+        "]}");
+    assertEquals(new IntArrayList(new int[]{201, 429, 400, 200}), items.statuses);
+    assertEquals("mapper_parsing_exception: failed to parse", items.error);
+  }
+
+  @Test
+  public void retain() throws Exception {
+    AsyncBulkSender.BulkBuffer buf = new AsyncBulkSender.BulkBuffer(8);
+    for (int i = 0; i < 5; i++) {
+      buf.write("{\"index\":{\"_id\":\"" + i + "\"}}\n{\"x\":" + i + "}\n");
+      buf.addDocument();
+    }
+    buf.retain(new IntArrayList(new int[]{1, 4}));
+    assertEquals(2, buf.documents());
+    assertEquals("{\"index\":{\"_id\":\"1\"}}\n{\"x\":1}\n{\"index\":{\"_id\":\"4\"}}\n{\"x\":4}\n", buf.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -42,6 +42,7 @@ public class ClassificationUpdaterTest extends EsReadTestBase {
     List<NameUsageWrapper> nameUsages = createTestObjects();
     nameUsages.forEach(nu -> nu.getClassification().forEach(sn -> sn.setName(sn.getName() + " (updated name)")));
     new ClassificationUpdater(indexer, DATASET_KEY).accept(nameUsages);
+    indexer.flush();
     EsUtil.refreshIndex(getEsClient(), indexName());
 
     // Always create wrapper objects afresh b/c they will be pruned upon insert
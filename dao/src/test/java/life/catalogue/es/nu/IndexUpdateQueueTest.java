@@ -0,0 +1,118 @@
+package life.catalogue.es.nu;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IndexUpdateQueueTest {
+
+  private final Map<Integer, List<Set<String>>> synced = new HashMap<>();
+  private final AtomicInteger refreshs = new AtomicInteger();
+
+  private synchronized void sync(int datasetKey, Set<String> ids) {
+    synced.computeIfAbsent(datasetKey, k -> new ArrayList<>()).add(ids);
+  }
+
+  @Test
+  public void immediate() {
+    IndexUpdateQueue q = new IndexUpdateQueue(this::sync, refreshs::incrementAndGet, 0, 100);
+    q.add(1, List.of("a", "b"));
+    q.add(1, List.of("a"));
+    q.refresh();
+    assertEquals(2, synced.get(1).size());
+    assertEquals(3, refreshs.get());
+    assertEquals(0, q.depth());
+    q.close();
+  }
+
+  @Test
+  public void coalesce() {
+    IndexUpdateQueue q = new IndexUpdateQueue(this::sync, refreshs::incrementAndGet, 60000, 100);
+    q.add(1, List.of("a", "b"));
+    q.add(1, List.of("a", "c"));
+    q.add(2, List.of("a"));
+    q.refresh();
+    assertEquals(4, q.depth());
+    assertTrue(synced.isEmpty());
+
+    q.flush();
+    assertEquals(0, q.depth());
+    assertEquals(0, q.lag());
+    assertEquals(Set.of("a", "b", "c"), synced.get(1).get(0));
+    assertEquals(Set.of("a"), synced.get(2).get(0));
+    assertEquals(1, refreshs.get());
+
+    // nothing pending, no refresh
+    q.flush();
+    assertEquals(1, refreshs.get());
+    q.close();
+  }
+
+  @Test
+  public void maxSize() {
+    IndexUpdateQueue q = new IndexUpdateQueue(this::sync, refreshs::incrementAndGet, 60000, 3);
+    q.add(1, List.of("a", "b"));
+    assertTrue(synced.isEmpty());
+    q.add(1, List.of("c"));
+    assertEquals(1, synced.get(1).size());
+    assertEquals(1, refreshs.get());
+    q.close();
+  }
+
+  @Test
+  public void delay() throws Exception {
+    IndexUpdateQueue q = new IndexUpdateQueue(this::sync, refreshs::incrementAndGet, 50, 100);
+    q.add(1, List.of("a", "b"));
+    for (int i = 0; i < 100 && q.getFlushes() == 0; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(1, q.getFlushes());
+    assertEquals(1, refreshs.get());
+    q.close();
+  }
+
+  @Test
+  public void requeueFailures() {
+    Set<Integer> failing = new HashSet<>(Set.of(2));
+    IndexUpdateQueue q = new IndexUpdateQueue((key, ids) -> {
+      if (failing.contains(key)) {
+        throw new IllegalStateException("sync failed");
+      }
+      sync(key, ids);
+    }, refreshs::incrementAndGet, 60000, 100);
+    q.add(1, List.of("a"));
+    q.add(2, List.of("a", "b"));
+    try {
+      q.flush();
+      fail("failed sync expected");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals(1, synced.get(1).size());
+    assertEquals(1, refreshs.get());
+    // the failed usages are still pending
+    assertEquals(2, q.depth());
+
+    failing.clear();
+    q.add(2, List.of("c"));
+    q.flush();
+    assertEquals(0, q.depth());
+    assertEquals(Set.of("a", "b", "c"), synced.get(2).get(0));
+    assertEquals(2, refreshs.get());
+    q.close();
+  }
+
+  @Test
+  public void closeFlushes() {
+    IndexUpdateQueue q = new IndexUpdateQueue(this::sync, refreshs::incrementAndGet, 60000, 100);
+    q.add(1, List.of("a"));
+    q.close();
+    assertEquals(1, synced.get(1).size());
+    assertEquals(1, refreshs.get());
+  }
+}
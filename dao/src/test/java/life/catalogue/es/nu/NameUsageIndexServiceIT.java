@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import org.gbif.nameparser.api.Rank;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -22,15 +23,19 @@ import life.catalogue.api.search.NameUsageWrapper;
 import life.catalogue.dao.DecisionDao;
 import life.catalogue.dao.NameDao;
 import life.catalogue.dao.TaxonDao;
+import life.catalogue.es.EsConfig;
 import life.catalogue.es.EsModule;
 import life.catalogue.es.EsNameUsage;
 import life.catalogue.es.EsReadWriteTestBase;
 import life.catalogue.es.EsSetupRule;
+import life.catalogue.es.EsUtil;
 import life.catalogue.es.NameUsageIndexService;
 import life.catalogue.es.query.TermQuery;
 import life.catalogue.es.query.TermsQuery;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static life.catalogue.db.PgSetupRule.getSqlSessionFactory;
 
@@ -58,6 +63,44 @@ public class NameUsageIndexServiceIT extends EsReadWriteTestBase {
     assertEquals(pgTaxa, esTaxa);
   }
 
+  @Test
+  public void indexDatasetTaxaOnlyParallel() throws IOException {
+    EsConfig cfg = esSetupRule.getEsConfig();
+    int threads = cfg.datasetIndexingThreads;
+    cfg.datasetIndexingThreads = 3;
+    try {
+      indexDatasetTaxaOnly();
+    } finally {
+      cfg.datasetIndexingThreads = threads;
+    }
+  }
+
+  @Test
+  public void indexAll() throws IOException {
+    List<Taxon> pgTaxa = createPgTaxa(7);
+    List<String> ids = pgTaxa.stream().map(Taxon::getId).collect(toList());
+    String alias = esSetupRule.getEsConfig().nameUsage.name;
+    NameUsageIndexServiceEs svc = createIndexService();
+
+    // the existing concrete index gets replaced by an alias
+    svc.indexAll();
+    Set<String> indices = EsUtil.getIndicesForAlias(esSetupRule.getClient(), alias);
+    assertEquals(1, indices.size());
+    assertEquals(7, query(new TermsQuery("usageId", ids)).getResult().size());
+
+    // incremental updates go to the new index through the alias
+    svc.indexDataset(EsSetupRule.DATASET_KEY);
+    assertEquals(7, query(new TermsQuery("usageId", ids)).getResult().size());
+
+    // rebuilding swaps the alias and removes the previous index
+    svc.indexAll();
+    Set<String> indices2 = EsUtil.getIndicesForAlias(esSetupRule.getClient(), alias);
+    assertEquals(1, indices2.size());
+    assertNotEquals(indices, indices2);
+    assertFalse(EsUtil.indexExists(esSetupRule.getClient(), indices.iterator().next()));
+    assertEquals(7, query(new TermsQuery("usageId", ids)).getResult().size());
+  }
+
   @Test
   public void createEditorialDecision() {
     // Insert 3 taxa into postgres
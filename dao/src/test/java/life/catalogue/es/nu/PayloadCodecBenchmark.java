@@ -0,0 +1,75 @@
+package life.catalogue.es.nu;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import life.catalogue.api.TestEntityGenerator;
+import life.catalogue.api.search.NameUsageWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares encoding and decoding throughput of all payload codecs with the former JSON_DEFLATE default.
+ * Average payload sizes of each codec are printed during setup.
+ * Not run by the test suite, run the main method from the IDE or the test classpath instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+  @Param({"JSON_DEFLATE", "KRYO", "KRYO_DEFLATE"})
+  public PayloadCodec codec;
+
+  private NameUsageWrapper[] usages;
+  private String[] payloads;
+
+  @Setup
+  public void setup() throws IOException {
+    usages = List.of(
+        TestEntityGenerator.newNameUsageTaxonWrapper(),
+        TestEntityGenerator.newNameUsageSynonymWrapper(),
+        TestEntityGenerator.newNameUsageBareNameWrapper()
+    ).toArray(new NameUsageWrapper[0]);
+    payloads = new String[usages.length];
+    long size = 0;
+    long json = 0;
+    for (int i = 0; i < usages.length; i++) {
+      NameUsageWrapperConverter.prunePayload(usages[i]);
+      payloads[i] = codec.encode(usages[i]);
+      size += payloads[i].length();
+      json += PayloadCodec.JSON_DEFLATE.encode(usages[i]).length();
+    }
+    System.out.printf("%n%s: %d bytes per payload, %d%% of JSON_DEFLATE%n", codec, size / usages.length, size * 100 / json);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(3)
+  public void encode(Blackhole bh) throws IOException {
+    for (NameUsageWrapper nuw : usages) {
+      bh.consume(codec.encode(nuw));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(3)
+  public void decode(Blackhole bh) throws IOException {
+    for (String payload : payloads) {
+      bh.consume(PayloadCodec.decode(payload));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PayloadCodecBenchmark.class.getSimpleName())
+        .build()
+    ).run();
+  }
+}
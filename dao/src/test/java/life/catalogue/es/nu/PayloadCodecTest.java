@@ -0,0 +1,68 @@
+package life.catalogue.es.nu;
+
+import life.catalogue.api.TestEntityGenerator;
+import life.catalogue.api.search.NameUsageWrapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PayloadCodecTest {
+
+  private static List<NameUsageWrapper> usages() {
+    return List.of(
+        TestEntityGenerator.newNameUsageTaxonWrapper(),
+        TestEntityGenerator.newNameUsageSynonymWrapper(),
+        TestEntityGenerator.newNameUsageBareNameWrapper()
+    );
+  }
+
+  @Test
+  public void roundtrip() throws Exception {
+    for (NameUsageWrapper nuw : usages()) {
+      NameUsageWrapperConverter.prunePayload(nuw);
+      NameUsageWrapper json = PayloadCodec.decode(PayloadCodec.JSON_DEFLATE.encode(nuw));
+      assertEquals(nuw.getUsage().getId(), json.getUsage().getId());
+      assertEquals(nuw.getUsage().getName().getScientificName(), json.getUsage().getName().getScientificName());
+      for (PayloadCodec codec : new PayloadCodec[]{PayloadCodec.KRYO, PayloadCodec.KRYO_DEFLATE}) {
+        assertEquals(nuw, PayloadCodec.decode(codec.encode(nuw)));
+      }
+    }
+  }
+
+  /**
+   * Kryo payloads written with other class registrations must be rejected.
+   */
+  @Test
+  public void otherRegistrations() throws Exception {
+    NameUsageWrapper nuw = TestEntityGenerator.newNameUsageTaxonWrapper();
+    NameUsageWrapperConverter.prunePayload(nuw);
+    for (PayloadCodec codec : new PayloadCodec[]{PayloadCodec.KRYO, PayloadCodec.KRYO_DEFLATE}) {
+      byte[] bytes = Base64.getDecoder().decode(codec.encode(nuw));
+      bytes[4]++;
+      try {
+        PayloadCodec.decode(Base64.getEncoder().encodeToString(bytes));
+        fail("Payload with other registrations decoded");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("reindex"));
+      }
+    }
+  }
+
+  /**
+   * Legacy payloads written before codecs existed must still be readable.
+   */
+  @Test
+  public void legacyPayload() throws Exception {
+    NameUsageWrapper nuw = TestEntityGenerator.newNameUsageTaxonWrapper();
+    NameUsageWrapperConverter.prunePayload(nuw);
+    String payload = NameUsageWrapperConverter.deflate(nuw);
+    assertEquals(payload, PayloadCodec.JSON_DEFLATE.encode(nuw));
+    assertEquals(nuw.getUsage().getId(), NameUsageWrapperConverter.inflate(payload).getUsage().getId());
+  }
+}
@@ -1,15 +1,12 @@
 package life.catalogue.es.nu.search;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
-import java.util.zip.DeflaterOutputStream;
 import org.gbif.nameparser.api.Rank;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -29,7 +26,7 @@ import life.catalogue.es.EsModule;
 import life.catalogue.es.EsNameUsage;
 import life.catalogue.es.EsReadTestBase;
 import life.catalogue.es.NameStrings;
-import life.catalogue.es.nu.NameUsageWrapperConverter;
+import life.catalogue.es.nu.PayloadCodec;
 import life.catalogue.es.nu.search.NameUsageSearchServiceEs;
 import static org.junit.Assert.assertEquals;
 
@@ -678,14 +675,7 @@ public class NameUsageSearchServiceFacetTest extends EsReadTestBase {
   private static String getDummyPayload() {
     try {
       NameUsageWrapper dummy = TestEntityGenerator.newNameUsageTaxonWrapper();
-      if (NameUsageWrapperConverter.ZIP_PAYLOAD) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-        try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
-          EsModule.write(dos,dummy);
-        }
-        return Base64.getEncoder().encodeToString(baos.toByteArray());
-      }
-      return EsModule.write(dummy);
+      return PayloadCodec.JSON_DEFLATE.encode(dummy);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
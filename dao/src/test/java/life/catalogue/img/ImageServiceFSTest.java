@@ -0,0 +1,62 @@
+package life.catalogue.img;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import life.catalogue.api.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ImageServiceFSTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  ImageServiceFS srv;
+
+  @Before
+  public void init() throws Exception {
+    ImgConfig cfg = new ImgConfig();
+    cfg.repo = folder.newFolder().toPath();
+    srv = new ImageServiceFS(cfg);
+  }
+
+  @Test
+  public void logo() throws Exception {
+    srv.putDatasetLogo(1, new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB));
+
+    for (ImgConfig.Scale scale : ImgConfig.Scale.values()) {
+      StoredImage img = srv.datasetLogo(1, scale);
+      assertTrue(img.getData().length > 0);
+      // stored bytes are a readable png
+      assertNotNull(ImageServiceFS.read(new ByteArrayInputStream(img.getData())));
+    }
+
+    StoredImage small = srv.datasetLogo(1, ImgConfig.Scale.SMALL);
+    assertEquals(30, ImageServiceFS.read(new ByteArrayInputStream(small.getData())).getHeight());
+    // served from memory
+    assertSame(small, srv.datasetLogo(1, ImgConfig.Scale.SMALL));
+
+    // a new logo changes the etag
+    BufferedImage other = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = other.createGraphics();
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, 200, 150);
+    g.dispose();
+    srv.putDatasetLogo(1, other);
+    StoredImage orig = srv.datasetLogo(1, ImgConfig.Scale.ORIGINAL);
+    assertNotEquals(small.getEtag(), srv.datasetLogo(1, ImgConfig.Scale.SMALL).getEtag());
+    assertEquals(orig.getEtag(), srv.datasetLogo(1, ImgConfig.Scale.ORIGINAL).getEtag());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void missing() throws Exception {
+    srv.datasetLogo(2, ImgConfig.Scale.SMALL);
+  }
+}
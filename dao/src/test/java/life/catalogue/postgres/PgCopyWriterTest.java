@@ -0,0 +1,20 @@
+package life.catalogue.postgres;
+
+import java.util.Collections;
+
+import com.google.common.collect.Lists;
+import org.gbif.nameparser.api.Rank;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PgCopyWriterTest {
+
+  @Test
+  public void toArray() throws Exception {
+    assertEquals("{}", PgCopyWriter.toArray(Collections.emptyList()));
+    assertEquals("{\"Duméril\",\"Bibron\"}", PgCopyWriter.toArray(Lists.newArrayList("Duméril", "Bibron")));
+    assertEquals("{\"O\\\"Brian\",NULL,\"a\\\\b\"}", PgCopyWriter.toArray(Lists.newArrayList("O\"Brian", null, "a\\b")));
+    assertEquals("{\"SPECIES\",\"GENUS\"}", PgCopyWriter.toArray(Lists.newArrayList(Rank.SPECIES, Rank.GENUS)));
+  }
+}
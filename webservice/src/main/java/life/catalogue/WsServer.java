@@ -172,7 +172,11 @@ public class WsServer extends Application<WsServerConfig> {
       final RestClient esClient = new EsClientFactory(cfg.es).createClient();
       env.lifecycle().manage(new ManagedEsClient(esClient));
       env.healthChecks().register("elastic", new EsHealthCheck(esClient, cfg.es));
-      indexService = new NameUsageIndexServiceEs(esClient, cfg.es, getSqlSessionFactory());
+      NameUsageIndexServiceEs indexServiceEs = new NameUsageIndexServiceEs(esClient, cfg.es, getSqlSessionFactory());
+      // stopped before the es client so pending updates still get applied
+      env.lifecycle().manage(new ManagedCloseable(indexServiceEs));
+      indexServiceEs.register(env.metrics());
+      indexService = indexServiceEs;
       searchService = new NameUsageSearchServiceEs(cfg.es.nameUsage.name, esClient);
       suggestService = new NameUsageSuggestionServiceEs(cfg.es.nameUsage.name, esClient);
     }
@@ -182,6 +186,7 @@ public class WsServer extends Application<WsServerConfig> {
 
     // name index
     ni = NameIndexFactory.persistentOrMemory(cfg.namesIndexFile, getSqlSessionFactory(), AuthorshipNormalizer.INSTANCE);
+    ni.register(env.metrics());
     env.lifecycle().manage(new ManagedCloseable(ni));
     env.healthChecks().register("names-index", new NamesIndexHealthCheck(ni));
 
@@ -191,7 +196,7 @@ public class WsServer extends Application<WsServerConfig> {
     AcExporter exporter = new AcExporter(cfg, getSqlSessionFactory());
 
     // release
-    final ReleaseManager releaseManager = new ReleaseManager(exporter, diDao, indexService, getSqlSessionFactory());
+    final ReleaseManager releaseManager = new ReleaseManager(exporter, diDao, indexService, getSqlSessionFactory(), cfg.importer.partitionIndexThreads);
 
     // async importer
     final ImportManager importManager = new ImportManager(cfg,
@@ -229,7 +234,8 @@ public class WsServer extends Application<WsServerConfig> {
     ReferenceDao rdao = new ReferenceDao(getSqlSessionFactory());
     SynonymDao sdao = new SynonymDao(getSqlSessionFactory());
     TreeDao trDao = new TreeDao(getSqlSessionFactory());
-    DatasetDao ddao = new DatasetDao(getSqlSessionFactory(), new DownloadUtil(httpClient), imgService, diDao, indexService, cfg.normalizer::scratchFile,
+    DatasetDao ddao = new DatasetDao(getSqlSessionFactory(), new DownloadUtil(httpClient), imgService, diDao, indexService,
+      cfg.importer.partitionIndexThreads, cfg.normalizer::scratchFile,
       // update user and dataset in auth bundle when datasets change
       auth::updateUser, auth::updateDatasetPrivacy);
     DecisionDao decdao = new DecisionDao(getSqlSessionFactory(), indexService);
@@ -3,6 +3,7 @@ package life.catalogue;
 import java.io.File;
 import java.util.Properties;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -54,6 +55,19 @@ public class WsServerConfig extends Configuration implements CorsBundleConfigura
    * Require a secure SSL connection when basic authentication is used.
    */
   public boolean requireSSL = false;
+  
+  /**
+   * Seconds a successful basic authentication is cached before the credentials are verified again.
+   * Zero disables the credential cache.
+   */
+  @Min(0)
+  public int authCacheTtl = 300;
+  
+  /**
+   * Max number of cached credentials.
+   */
+  @Min(1)
+  public int authCacheSize = 1000;
 
   @Valid
   @NotNull
@@ -84,6 +98,12 @@ public class WsServerConfig extends Configuration implements CorsBundleConfigura
    * Names index kvp file to persist map on disk. If empty will use a volatile memory index.
    */
   public File namesIndexFile;
+
+  /**
+   * Number of threads to use when matching all names of an entire dataset against the names index.
+   */
+  @Min(1)
+  public int matchingThreads = 1;
   
   /**
    * Directory to store text tree, name index lists and other metrics for each dataset and sector import attempt
@@ -6,6 +6,8 @@ import life.catalogue.dao.DatasetImportDao;
 import life.catalogue.dao.MatchingDao;
 import life.catalogue.dao.NamesTreeDao;
 import life.catalogue.db.mapper.*;
+import life.catalogue.db.type2.MetricCount;
+import life.catalogue.db.type2.StringCount;
 import life.catalogue.es.NameUsageIndexService;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.ibatis.session.ExecutorType;
@@ -23,6 +25,8 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static life.catalogue.dao.DatasetImportDao.countMap;
+import static life.catalogue.dao.DatasetImportDao.metric;
+import static life.catalogue.dao.DatasetImportDao.total;
 
 /**
  * Syncs/imports source data for a given sector into the assembled catalogue
@@ -57,26 +61,36 @@ public class SectorSync extends SectorRunnable {
       SectorImportMapper mapper = session.getMapper(SectorImportMapper.class);
       final int key = sector.getId();
       state.setDescriptionCount(mapper.countDescription(catalogueKey, key));
-      state.setDistributionCount(mapper.countDistribution(catalogueKey, key));
-      state.setMediaCount(mapper.countMedia(catalogueKey, key));
-      state.setNameCount(mapper.countName(catalogueKey, key));
       state.setReferenceCount(mapper.countReference(catalogueKey, key));
-      state.setTaxonCount(mapper.countTaxon(catalogueKey, key));
-      state.setSynonymCount(mapper.countSynonym(catalogueKey, key));
-      state.setVernacularCount(mapper.countVernacular(catalogueKey, key));
       state.setIssuesCount(countMap(Issue.class, mapper.countIssues(catalogueKey, key)));
-  
-      state.setDistributionsByGazetteerCount(countMap(Gazetteer.class, mapper.countDistributionsByGazetteer(catalogueKey, key)));
-      state.setIssuesCount(countMap(Issue.class, mapper.countIssues(catalogueKey, key)));
-      state.setMediaByTypeCount(countMap(MediaType.class, mapper.countMediaByType(catalogueKey, key)));
       state.setNameRelationsByTypeCount(countMap(NomRelType.class, mapper.countNameRelationsByType(catalogueKey, key)));
-      state.setNamesByOriginCount(countMap(Origin.class, mapper.countNamesByOrigin(catalogueKey, key)));
-      state.setNamesByRankCount(countMap(DatasetImportDao::parseRank, mapper.countNamesByRank(catalogueKey, key)));
-      state.setNamesByStatusCount(countMap(NomStatus.class, mapper.countNamesByStatus(catalogueKey, key)));
-      state.setNamesByTypeCount(countMap(NameType.class, mapper.countNamesByType(catalogueKey, key)));
-      state.setTaxaByRankCount(countMap(DatasetImportDao::parseRank, mapper.countTaxaByRank(catalogueKey, key)));
-      state.setUsagesByStatusCount(countMap(TaxonomicStatus.class, mapper.countUsagesByStatus(catalogueKey, key)));
-      state.setVernacularsByLanguageCount(countMap(mapper.countVernacularsByLanguage(catalogueKey, key)));
+  
+      List<StringCount> counts = mapper.countDistributionsByGazetteer(catalogueKey, key);
+      state.setDistributionCount(total(counts));
+      state.setDistributionsByGazetteerCount(countMap(Gazetteer.class, counts));
+      
+      counts = mapper.countMediaByType(catalogueKey, key);
+      state.setMediaCount(total(counts));
+      state.setMediaByTypeCount(countMap(MediaType.class, counts));
+  
+      counts = mapper.countVernacularsByLanguage(catalogueKey, key);
+      state.setVernacularCount(total(counts));
+      state.setVernacularsByLanguageCount(countMap(counts));
+  
+      List<MetricCount> metrics = mapper.countNameMetrics(catalogueKey, key);
+      counts = metric(metrics, "rank");
+      state.setNameCount(total(counts));
+      state.setNamesByRankCount(countMap(DatasetImportDao::parseRank, counts));
+      state.setNamesByTypeCount(countMap(NameType.class, metric(metrics, "type")));
+      state.setNamesByStatusCount(countMap(NomStatus.class, metric(metrics, "status")));
+      state.setNamesByOriginCount(countMap(Origin.class, metric(metrics, "origin")));
+  
+      metrics = mapper.countUsageMetrics(catalogueKey, key);
+      counts = metric(metrics, "taxonRank");
+      state.setTaxonCount(total(counts));
+      state.setTaxaByRankCount(countMap(DatasetImportDao::parseRank, counts));
+      state.setSynonymCount(total(metric(metrics, "synonymRank")));
+      state.setUsagesByStatusCount(countMap(TaxonomicStatus.class, metric(metrics, "status")));
 
       try {
         treeDao.updateSectorTree(sector.getId(), state.getAttempt());
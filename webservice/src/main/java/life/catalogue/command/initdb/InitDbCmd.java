@@ -229,7 +229,7 @@ public class InitDbCmd extends ConfiguredCommand<WsServerConfig> {
     LOG.info("Match draft CoL to names index");
     // we create a new names index de novo to write new hierarchy names into the names index dataset
     try (NameIndex ni = NameIndexFactory.persistentOrMemory(cfg.namesIndexFile, factory, AuthorshipNormalizer.INSTANCE)) {
-      DatasetMatcher matcher = new DatasetMatcher(factory, ni, false);
+      DatasetMatcher matcher = new DatasetMatcher(factory, ni, false, cfg.matchingThreads);
       matcher.match(Datasets.DRAFT_COL, true);
     }
   }
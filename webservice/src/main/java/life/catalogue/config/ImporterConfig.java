@@ -13,11 +13,67 @@ public class ImporterConfig {
   public int batchSize = 10000;
   
   /**
-   * Number of parallel imports to allow simultanously
+   * Number of imports to run simultanously in each stage of an import, used for all stage threads below
+   * and the max number of import jobs if they are not configured explicitly.
    */
   @Min(1)
   public int threads = 1;
   
+  /**
+   * Max number of import jobs running at the same time, i.e. the size of the import pool.
+   * Each running job keeps its own NeoDb and scratch dir, also while waiting for a busy stage.
+   * Zero uses the number of import threads.
+   */
+  @Min(0)
+  public int maxJobs = 0;
+  
+  /**
+   * Max number of imports downloading and extracting source archives simultanously.
+   * Zero uses the number of import threads.
+   */
+  @Min(0)
+  public int downloadThreads = 0;
+  
+  /**
+   * Max number of imports running the normalizer simultanously.
+   * Zero uses the number of import threads.
+   */
+  @Min(0)
+  public int normalizerThreads = 0;
+  
+  /**
+   * Max number of imports inserting into postgres simultanously.
+   * Zero uses the number of import threads.
+   */
+  @Min(0)
+  public int pgImportThreads = 0;
+  
+  /**
+   * Max number of imports building the search index simultanously.
+   * Zero uses the number of import threads.
+   */
+  @Min(0)
+  public int indexThreads = 0;
+  
+  /**
+   * If true uses native postgres COPY streams to insert verbatim records and names during imports
+   * instead of batched insert statements.
+   */
+  public boolean pgCopy = false;
+  
+  /**
+   * If true inserts names, name relations, type material and usages concurrently into postgres during imports,
+   * using a separate connection for each of them.
+   */
+  public boolean pgParallel = false;
+  
+  /**
+   * Max number of partition tables to build primary keys and indices for concurrently at the end of an import,
+   * each using its own database connection. Foreign keys are always added sequentially.
+   */
+  @Min(1)
+  public int partitionIndexThreads = 4;
+  
   /**
    * Max size of queued import jobs before rejecting
    */
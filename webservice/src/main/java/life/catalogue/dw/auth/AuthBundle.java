@@ -7,6 +7,7 @@ import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import life.catalogue.WsServerConfig;
 import life.catalogue.api.model.User;
+import life.catalogue.dw.ManagedCloseable;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
@@ -29,7 +30,9 @@ public class AuthBundle implements ConfiguredBundle<WsServerConfig> {
     environment.jersey().register(RolesAllowedDynamicFeature.class);
     
     jwtCodec = new JwtCodec(cfg.jwtKey);
-    idService = new IdentityService(cfg.auth.createAuthenticationProvider(), true);
+    idService = new IdentityService(cfg.auth.createAuthenticationProvider(), true, cfg.authCacheTtl, cfg.authCacheSize);
+    idService.registerMetrics(environment.metrics());
+    environment.lifecycle().manage(new ManagedCloseable(idService));
     privateFilter = new PrivateFilter();
 
     ContainerRequestFilter authFilter = new AuthFilter(idService, jwtCodec, cfg.requireSSL);
@@ -1,13 +1,29 @@
 package life.catalogue.dw.auth;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import life.catalogue.api.model.User;
+import life.catalogue.common.concurrent.NamedThreadFactory;
 import life.catalogue.db.mapper.UserMapper;
 import life.catalogue.dw.auth.gbif.GBIFAuthentication;
 import org.slf4j.Logger;
@@ -17,18 +33,65 @@ import org.slf4j.LoggerFactory;
  * Identity service that delegates authentication to a pluggable provider
  * It keeps a local copy of users and therefore needs access to Postgres.
  * <p>
+ * Successful credential verifications can optionally be cached for a limited time,
+ * keyed by a salted hash of the username and password, to avoid calling the provider and Postgres for every request.
+ * Last login dates of cached logins are written to Postgres asynchronously in batches.
+ * <p>
  * A SqlSessionFactory and an HttpClient MUST be set before the service is used.
  */
-public class IdentityService {
+public class IdentityService implements AutoCloseable {
   private static final Logger LOG = LoggerFactory.getLogger(IdentityService.class);
+  private static final int LOGIN_FLUSH_INTERVAL = 60;
   
   private SqlSessionFactory sqlSessionFactory;
   private ConcurrentHashMap<String, User> cache;
   private final AuthenticationProvider authProvider;
+  // successfully verified credential hashes pointing to the username
+  private final Cache<HashCode, String> credentials;
+  private final HashFunction credentialHash;
+  // pending last login dates by user key
+  private final Map<Integer, LocalDateTime> lastLogins = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
   
   public IdentityService(AuthenticationProvider authProvider, boolean useCache) {
+    this(authProvider, useCache, 0, 0);
+  }
+  
+  /**
+   * @param credentialTtl seconds a successful credential verification is cached. Zero disables the credential cache
+   * @param credentialCacheSize max number of cached credentials
+   */
+  public IdentityService(AuthenticationProvider authProvider, boolean useCache, int credentialTtl, int credentialCacheSize) {
     this.authProvider = authProvider;
     this.cache = useCache ? new ConcurrentHashMap<>() : null;
+    if (credentialTtl > 0) {
+      credentials = CacheBuilder.newBuilder()
+          .expireAfterWrite(credentialTtl, TimeUnit.SECONDS)
+          .maximumSize(credentialCacheSize)
+          .recordStats()
+          .build();
+      // random salt per instance, so hashes are never comparable across restarts
+      byte[] salt = new byte[32];
+      new SecureRandom().nextBytes(salt);
+      credentialHash = Hashing.hmacSha256(salt);
+      scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("login-updater", Thread.NORM_PRIORITY, true));
+      scheduler.scheduleWithFixedDelay(this::flushLastLoginsSafe, LOGIN_FLUSH_INTERVAL, LOGIN_FLUSH_INTERVAL, TimeUnit.SECONDS);
+    } else {
+      credentials = null;
+      credentialHash = null;
+      scheduler = null;
+    }
+  }
+  
+  /**
+   * Registers hit, miss and size gauges for the credential cache if it is enabled.
+   */
+  public void registerMetrics(MetricRegistry registry) {
+    if (credentials != null) {
+      registry.register("life.catalogue.auth.credential-cache.hits", (Gauge<Long>) () -> credentials.stats().hitCount());
+      registry.register("life.catalogue.auth.credential-cache.misses", (Gauge<Long>) () -> credentials.stats().missCount());
+      registry.register("life.catalogue.auth.credential-cache.size", (Gauge<Long>) credentials::size);
+    }
   }
   
   /**
@@ -68,6 +131,29 @@ public class IdentityService {
   }
   
   public Optional<User> authenticate(String username, String password) {
+    HashCode hash = null;
+    if (credentials != null) {
+      hash = credentialHash.newHasher()
+          .putString(username, StandardCharsets.UTF_8)
+          .putByte((byte) 0)
+          .putString(password, StandardCharsets.UTF_8)
+          .hash();
+      if (credentials.getIfPresent(hash) != null) {
+        try {
+          User user = get(username);
+          user.setLastLogin(LocalDateTime.now());
+          if (user.getKey() != null) {
+            lastLogins.put(user.getKey(), user.getLastLogin());
+          }
+          return Optional.of(user);
+          
+        } catch (IllegalArgumentException e) {
+          // user was removed, verify again
+          credentials.invalidate(hash);
+        }
+      }
+    }
+    
     Optional<User> optUser = authProvider.authenticate(username, password);
     if (optUser.isPresent()) {
       User user = optUser.get();
@@ -91,11 +177,52 @@ public class IdentityService {
         LOG.error("IdentityService error", e);
       }
       cache(user);
+      if (credentials != null) {
+        credentials.put(hash, username);
+      }
       
     } else {
       LOG.debug("Authentication failed for user {}", username);
     }
     return optUser;
   }
-
+  
+  private void flushLastLoginsSafe() {
+    try {
+      flushLastLogins();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to update last login dates", e);
+    }
+  }
+  
+  /**
+   * Writes all pending last login dates of cached logins in a single batch.
+   */
+  void flushLastLogins() {
+    if (lastLogins.isEmpty()) return;
+    Map<Integer, LocalDateTime> batch = new HashMap<>();
+    for (Integer key : lastLogins.keySet()) {
+      LocalDateTime date = lastLogins.remove(key);
+      if (date != null) {
+        batch.put(key, date);
+      }
+    }
+    try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+      UserMapper mapper = session.getMapper(UserMapper.class);
+      batch.forEach(mapper::updateLastLogin);
+      session.commit();
+    }
+    LOG.debug("Updated last login date of {} users", batch.size());
+  }
+  
+  /**
+   * Stops the login updater and writes pending last login dates.
+   */
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      flushLastLoginsSafe();
+    }
+  }
 }
@@ -48,6 +48,9 @@ import java.util.function.Consumer;
  * Asynchronous import job that orchestrates the entire import process including download,
  * normalization and insertion into Postgres.
  * <p>
+ * Each stage of the import requires a permit from the shared ImportStages,
+ * so concurrent jobs can run different stages at the same time while the number of jobs within a single stage is limited.
+ * <p>
  * It can be cancelled by an according method at any time. Equality of instances is just based on
  * the datasetKey which allows multiple imports for the same dataset to be easily detected.
  */
@@ -67,6 +70,7 @@ public class ImportJob implements Runnable {
   private final NameUsageIndexService indexService;
   private final ImageService imgService;
   private final DistributedArchiveService distributedArchiveService;
+  private final ImportStages stages;
   
   private final StartNotifier notifier;
   private final Consumer<ImportRequest> successCallback;
@@ -76,6 +80,7 @@ public class ImportJob implements Runnable {
             WsServerConfig cfg,
             DownloadUtil downloader, SqlSessionFactory factory, NameIndex index,
             NameUsageIndexService indexService, ImageService imgService,
+            ImportStages stages,
             StartNotifier notifier,
             Consumer<ImportRequest> successCallback,
             BiConsumer<ImportRequest, Exception> errorCallback
@@ -91,6 +96,7 @@ public class ImportJob implements Runnable {
     this.indexService = indexService;
     dao = new DatasetImportDao(factory, cfg.metricsRepo);
     this.imgService = imgService;
+    this.stages = stages;
     
     this.notifier = notifier;
     this.successCallback = successCallback;
@@ -218,32 +224,44 @@ public class ImportJob implements Runnable {
     NeoDb store = null;
 
     try {
-      final boolean doImport = prepareSourceData(sourceDir);
+      final boolean doImport;
+      try (ImportStages.Permit p = stages.acquire(ImportStages.Stage.DOWNLOAD)) {
+        doImport = prepareSourceData(sourceDir);
+      }
       checkIfCancelled();
       if (doImport) {
-        LOG.info("Normalizing {}", datasetKey);
-        updateState(ImportState.PROCESSING);
-        store = NeoDbFactory.create(datasetKey, getAttempt(), cfg.normalizer);
-        store.put(dataset);
-        new Normalizer(format, store, sourceDir, index, imgService).call();
+        try (ImportStages.Permit p = stages.acquire(ImportStages.Stage.NORMALIZE)) {
+          LOG.info("Normalizing {}", datasetKey);
+          updateState(ImportState.PROCESSING);
+          store = NeoDbFactory.create(datasetKey, getAttempt(), cfg.normalizer);
+          store.put(dataset);
+          new Normalizer(format, store, sourceDir, index, imgService).call();
+        }
   
         LOG.info("Fetching logo for {}", datasetKey);
         LogoUpdateJob.updateDatasetAsync(dataset, factory, downloader, cfg.normalizer::scratchFile, imgService);
         
-        LOG.info("Writing {} to Postgres!", datasetKey);
-        updateState(ImportState.INSERTING);
-        store = NeoDbFactory.open(datasetKey, getAttempt(), cfg.normalizer);
-        new PgImport(datasetKey, store, factory, cfg.importer).call();
-        // update dataset with latest success attempt now that all data is in postgres - even if we fail further down
-        dao.updateDatasetLastAttempt(di);
-
-        LOG.info("Build import metrics for dataset {}", datasetKey);
-        updateState(ImportState.BUILDING_METRICS);
-        dao.updateMetrics(di);
+        try (ImportStages.Permit p = stages.acquire(ImportStages.Stage.INSERT)) {
+          LOG.info("Writing {} to Postgres!", datasetKey);
+          updateState(ImportState.INSERTING);
+          store = NeoDbFactory.open(datasetKey, getAttempt(), cfg.normalizer);
+          new PgImport(datasetKey, store, factory, cfg.importer).call();
+          // update dataset with latest success attempt now that all data is in postgres - even if we fail further down
+          dao.updateDatasetLastAttempt(di);
   
-        LOG.info("Build search index for dataset {}", datasetKey);
-        updateState(ImportState.INDEXING);
-        indexService.indexDataset(datasetKey);
+          LOG.info("Build import metrics for dataset {}", datasetKey);
+          updateState(ImportState.BUILDING_METRICS);
+          dao.updateMetrics(di);
+        }
+        // release neo4j resources early, we do not need the store for indexing
+        store.close();
+        store = null;
+  
+        try (ImportStages.Permit p = stages.acquire(ImportStages.Stage.INDEX)) {
+          LOG.info("Build search index for dataset {}", datasetKey);
+          updateState(ImportState.INDEXING);
+          indexService.indexDataset(datasetKey);
+        }
 
         if (rematchDecisions()) {
           updateState(ImportState.MATCHING);
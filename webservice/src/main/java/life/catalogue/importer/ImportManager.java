@@ -59,6 +59,7 @@ public class ImportManager implements Managed {
   static final Comparator<DatasetImport> DI_STARTED_COMPARATOR = Comparator.comparing(DatasetImport::getStarted);
 
   private PBQThreadPoolExecutor<ImportJob> exec;
+  private ImportStages stages;
   private AssemblyCoordinator assemblyCoordinator;
   private final Map<Integer, PBQThreadPoolExecutor.ComparableFutureTask> futures = new ConcurrentHashMap<>();
   private final WsServerConfig cfg;
@@ -405,6 +406,7 @@ public class ImportManager implements Managed {
           index,
           indexService,
           imgService,
+          stages,
           new StartNotifier() {
             @Override
             public void started() {
@@ -419,11 +421,16 @@ public class ImportManager implements Managed {
 
   @Override
   public void start() {
-    LOG.info("Starting import manager with {} import threads and a queue of {} max.",
-        cfg.importer.threads,
-        cfg.importer.maxQueue);
-
-    exec = new PBQThreadPoolExecutor<>(cfg.importer.threads,
+    stages = new ImportStages(cfg.importer);
+    LOG.info("Starting import manager with {} concurrent imports and a queue of {} max. Stage threads: download={}, normalizer={}, pgImport={}, index={}",
+        stages.maxJobs(),
+        cfg.importer.maxQueue,
+        stages.limit(ImportStages.Stage.DOWNLOAD),
+        stages.limit(ImportStages.Stage.NORMALIZE),
+        stages.limit(ImportStages.Stage.INSERT),
+        stages.limit(ImportStages.Stage.INDEX));
+
+    exec = new PBQThreadPoolExecutor<>(stages.maxJobs(),
         60L,
         TimeUnit.SECONDS,
         new PriorityBlockingQueue<>(cfg.importer.maxQueue),
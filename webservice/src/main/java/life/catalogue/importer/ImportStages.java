@@ -0,0 +1,105 @@
+package life.catalogue.importer;
+
+import life.catalogue.config.ImporterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of import jobs that can run the same stage of an import at any time.
+ * Import jobs acquire a permit for each stage they enter and release it once the stage is done,
+ * so the import threads can work on different stages of different datasets concurrently,
+ * e.g. normalizing dataset B while dataset A is being indexed, without overloading a single resource
+ * like the CPU, postgres or elastic.
+ */
+public class ImportStages {
+  private static final Logger LOG = LoggerFactory.getLogger(ImportStages.class);
+  private final Map<Stage, Semaphore> permits = new EnumMap<>(Stage.class);
+  private final Map<Stage, Integer> limits = new EnumMap<>(Stage.class);
+  private final int maxJobs;
+
+  public enum Stage {
+    /**
+     * Downloading and extracting the source archive
+     */
+    DOWNLOAD,
+
+    /**
+     * Normalizing the source data into a neo4j store
+     */
+    NORMALIZE,
+
+    /**
+     * Inserting the normalized data into postgres and building metrics
+     */
+    INSERT,
+
+    /**
+     * Indexing the dataset in elastic search
+     */
+    INDEX
+  }
+
+  public ImportStages(ImporterConfig cfg) {
+    maxJobs = cfg.maxJobs > 0 ? cfg.maxJobs : cfg.threads;
+    add(Stage.DOWNLOAD, cfg.downloadThreads, cfg.threads);
+    add(Stage.NORMALIZE, cfg.normalizerThreads, cfg.threads);
+    add(Stage.INSERT, cfg.pgImportThreads, cfg.threads);
+    add(Stage.INDEX, cfg.indexThreads, cfg.threads);
+  }
+
+  private void add(Stage stage, int stageThreads, int threads) {
+    int limit = stageThreads > 0 ? stageThreads : threads;
+    limits.put(stage, limit);
+    permits.put(stage, new Semaphore(limit, true));
+  }
+
+  /**
+   * @return the max number of imports running the given stage simultanously
+   */
+  public int limit(Stage stage) {
+    return limits.get(stage);
+  }
+
+  /**
+   * @return the max number of import jobs running at the same time, independent of their stage
+   */
+  public int maxJobs() {
+    return maxJobs;
+  }
+
+  /**
+   * Blocks until a permit for the given stage is available.
+   * Waiting jobs are served first come, first served.
+   * @return the permit to be closed once the stage is done
+   * @throws InterruptedException if the waiting thread was interrupted, e.g. the import got cancelled
+   */
+  public Permit acquire(Stage stage) throws InterruptedException {
+    Semaphore s = permits.get(stage);
+    if (!s.tryAcquire()) {
+      LOG.info("Waiting for a free {} slot, {} other imports queued", stage, s.getQueueLength());
+      s.acquire();
+    }
+    return new Permit(s);
+  }
+
+  public static class Permit implements AutoCloseable {
+    private final Semaphore semaphore;
+    private boolean released = false;
+
+    private Permit(Semaphore semaphore) {
+      this.semaphore = semaphore;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        semaphore.release();
+      }
+    }
+  }
+}
@@ -295,6 +295,22 @@ public class InterpreterBase {
                                                  final String cultivar,final String phrase,
                                                  String nomCode, String nomStatus,
                                                  String link, String remarks, VerbatimRecord v) {
+    Optional<NameAccordingTo> nat = parseName(preferAtoms, id, vrank, sciname, authorship, genus, infraGenus, species, infraspecies,
+        cultivar, phrase, nomCode, nomStatus, link, remarks, v);
+    nat.ifPresent(n -> n.getName().setVerbatimKey(v.getId()));
+    return nat;
+  }
+
+  /**
+   * Same as interpretName, but without setting the verbatim key of the name.
+   * Parsing only flags issues on the given record and neither reads nor writes the store,
+   * so it is safe to call concurrently for different records before they got a verbatim key.
+   */
+  public Optional<NameAccordingTo> parseName(final boolean preferAtoms, final String id, final String vrank, final String sciname, final String authorship,
+                                             final String genus, final String infraGenus, final String species, final String infraspecies,
+                                             final String cultivar,final String phrase,
+                                             String nomCode, String nomStatus,
+                                             String link, String remarks, VerbatimRecord v) {
     // this can be wrong in some cases, e.g. in DwC records often scientificName and just a genus is given
     final boolean isAtomized = ObjectUtils.anyNotNull(genus, infraGenus, species, infraspecies);
     final boolean useAtoms   = isAtomized && (preferAtoms || sciname == null);
@@ -372,7 +388,6 @@ public class InterpreterBase {
 
     // common basics
     nat.getName().setId(id);
-    nat.getName().setVerbatimKey(v.getId());
     nat.getName().setOrigin(Origin.SOURCE);
     nat.getName().setLink(parse(UriParser.PARSER, link).orNull());
     // name status can be explicitly given or as part of the name remarks
@@ -1,5 +1,6 @@
 package life.catalogue.importer;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import life.catalogue.api.model.Dataset;
 import life.catalogue.api.model.TypeMaterial;
@@ -8,6 +9,8 @@ import life.catalogue.api.model.VerbatimRecord;
 import life.catalogue.api.vocab.DatasetSettings;
 import life.catalogue.api.vocab.Issue;
 import life.catalogue.common.collection.DefaultMap;
+import life.catalogue.common.concurrent.NamedThreadFactory;
+import life.catalogue.common.lang.InterruptedRuntimeException;
 import life.catalogue.csv.CsvReader;
 import life.catalogue.csv.Schema;
 import life.catalogue.img.ImageService;
@@ -22,14 +25,20 @@ import org.neo4j.graphdb.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -40,6 +49,12 @@ import static life.catalogue.common.lang.Exceptions.interruptIfCancelled;
  */
 public abstract class NeoCsvInserter implements NeoInserter {
   private static final Logger LOG = LoggerFactory.getLogger(NeoCsvInserter.class);
+  private static final int READ_AHEAD_CHUNK_SIZE = 1000;
+  private static final int READ_AHEAD_CHUNKS = 16;
+  // threads preparing records ahead of the single inserting thread
+  private static final int PREPARE_THREADS = Math.max(1, Math.min(READ_AHEAD_CHUNKS, Runtime.getRuntime().availableProcessors() - 2));
+  // marks the end of the read ahead stream, compared by identity
+  private static final Future<?> END = CompletableFuture.completedFuture(null);
   
   protected final NeoDb store;
   protected final Path folder;
@@ -100,20 +115,136 @@ public abstract class NeoCsvInserter implements NeoInserter {
     LOG.info("Insert of {} verbatim records and {} nodes completed", vcounter, store.size());
   }
   
+  /**
+   * A chunk of records in their original order together with the results of their preparation.
+   */
+  private static class Chunk<P> {
+    final List<VerbatimRecord> records;
+    final List<P> prepared;
+
+    Chunk(List<VerbatimRecord> records, List<P> prepared) {
+      this.records = records;
+      this.prepared = prepared;
+    }
+  }
+
+  /**
+   * Reads and converts all records of the given class on a separate thread, passing them on in their original order
+   * and in chunks to the consumer which runs in the calling thread.
+   */
+  static void readAhead(final CsvReader reader, final Term classTerm, Consumer<VerbatimRecord> consumer) {
+    readAhead(reader, classTerm, null, (rec, p) -> consumer.accept(rec));
+  }
+
+  /**
+   * Reads and converts all records of the given class on a separate thread and prepares them on a pool of workers,
+   * passing them on in their original order and in chunks to the consumer which runs in the calling thread.
+   *
+   * The preparation must be a pure function that only flags issues on its record,
+   * as the interpreters and the reference factory read and write to the NeoDb which is not thread safe.
+   * Everything touching the store is therefore left to the consumer.
+   *
+   * Prepared chunks are handed over as futures in reading order, so the consumer waits for the next chunk in line
+   * while later chunks are still being prepared.
+   * The reader always ends the stream with the END future, also when reading fails,
+   * so the consumer can block on the queue and rethrows reader errors once it reached the end.
+   *
+   * @param prepare optional pure function run on the worker pool, if null records are passed on with a null preparation
+   */
+  static <P> void readAhead(final CsvReader reader, final Term classTerm, @Nullable final Function<VerbatimRecord, P> prepare,
+                            BiConsumer<VerbatimRecord, P> consumer) {
+    final BlockingQueue<Future<Chunk<P>>> queue = new ArrayBlockingQueue<>(READ_AHEAD_CHUNKS);
+    ExecutorService exec = Executors.newSingleThreadExecutor(new NamedThreadFactory("csv-reader-" + classTerm.simpleName()));
+    ExecutorService workers = prepare == null ? null :
+        Executors.newFixedThreadPool(PREPARE_THREADS, new NamedThreadFactory("csv-prepare-" + classTerm.simpleName()));
+    try {
+      Future<?> reading = exec.submit(() -> {
+        try {
+          Iterator<VerbatimRecord> iter = reader.stream(classTerm).iterator();
+          List<VerbatimRecord> chunk = new ArrayList<>(READ_AHEAD_CHUNK_SIZE);
+          while (iter.hasNext()) {
+            chunk.add(iter.next());
+            if (chunk.size() == READ_AHEAD_CHUNK_SIZE) {
+              queue.put(prepare(workers, chunk, prepare));
+              chunk = new ArrayList<>(READ_AHEAD_CHUNK_SIZE);
+            }
+          }
+          if (!chunk.isEmpty()) {
+            queue.put(prepare(workers, chunk, prepare));
+          }
+        } catch (InterruptedException e) {
+          // the consumer stopped and does not wait for the end of the stream anymore
+          return null;
+        } catch (RuntimeException | Error e) {
+          queue.put(end());
+          throw e;
+        }
+        queue.put(end());
+        return null;
+      });
+      Future<Chunk<P>> next;
+      while ((next = queue.take()) != END) {
+        Chunk<P> chunk = next.get();
+        for (int i = 0; i < chunk.records.size(); i++) {
+          consumer.accept(chunk.records.get(i), chunk.prepared == null ? null : chunk.prepared.get(i));
+        }
+      }
+      // propagate reader errors
+      reading.get();
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedRuntimeException("Interrupted while reading " + classTerm.prefixedName());
+
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException("Failed to read " + classTerm.prefixedName(), e.getCause());
+
+    } finally {
+      // stops the reader and workers in case of errors
+      exec.shutdownNow();
+      if (workers != null) {
+        workers.shutdownNow();
+      }
+    }
+  }
+
+  private static <P> Future<Chunk<P>> prepare(ExecutorService workers, List<VerbatimRecord> records, Function<VerbatimRecord, P> prepare) {
+    if (prepare == null) {
+      return CompletableFuture.completedFuture(new Chunk<>(records, null));
+    }
+    return workers.submit(() -> {
+      List<P> prepared = new ArrayList<>(records.size());
+      for (VerbatimRecord rec : records) {
+        prepared.add(prepare.apply(rec));
+      }
+      return new Chunk<>(records, prepared);
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <P> Future<Chunk<P>> end() {
+    return (Future<Chunk<P>>) END;
+  }
+
   private void processVerbatim(final CsvReader reader, final Term classTerm, Function<VerbatimRecord, Boolean> proc) {
+    processVerbatim(reader, classTerm, null, (rec, p) -> proc.apply(rec));
+  }
+
+  private <P> void processVerbatim(final CsvReader reader, final Term classTerm,
+                                   @Nullable Function<VerbatimRecord, P> prepare, BiFunction<VerbatimRecord, P, Boolean> proc) {
     interruptIfCancelled("NeoInserter interrupted, exit early with incomplete import");
     final AtomicInteger counter = new AtomicInteger(0);
     final AtomicInteger success = new AtomicInteger(0);
-    reader.stream(classTerm).forEach(rec -> {
-      store.put(rec);
-      if (proc.apply(rec)) {
+    readAhead(reader, classTerm, prepare, (rec, prepared) -> {
+      // issue a key, but only persist the record once it has been processed
+      store.reserve(rec);
+      if (proc.apply(rec, prepared)) {
         success.incrementAndGet();
       } else {
         rec.addIssue(Issue.NOT_INTERPRETED);
       }
-      // processing might already have flagged issues, load and merge them
-      VerbatimRecord old = store.getVerbatim(rec.getId());
-      rec.addIssues(old.getIssues());
+      // issues flagged by the store during processing were added to the same instance
       store.put(rec);
       counter.incrementAndGet();
     });
@@ -125,9 +256,24 @@ public abstract class NeoCsvInserter implements NeoInserter {
                                                            Function<VerbatimRecord, Optional<T>> interpret,
                                                            Function<T, Boolean> add
   ) {
-    processVerbatim(reader, classTerm, rec -> {
+    insertEntities(reader, classTerm, null, (rec, p) -> interpret.apply(rec), add);
+  }
+
+  /**
+   * Inserts entities with their pure preparation, e.g. name parsing, running on a pool of workers ahead of the interpretation.
+   * See readAhead.
+   *
+   * @param prepare pure function preparing a record without a verbatim key, safe to run concurrently
+   * @param interpret interprets a record with a verbatim key together with its preparation
+   */
+  protected <P, T extends VerbatimEntity> void insertEntities(final CsvReader reader, final Term classTerm,
+                                                              @Nullable Function<VerbatimRecord, P> prepare,
+                                                              BiFunction<VerbatimRecord, P, Optional<T>> interpret,
+                                                              Function<T, Boolean> add
+  ) {
+    processVerbatim(reader, classTerm, prepare, (rec, prepared) -> {
       interruptIfCancelled("NeoInserter interrupted, exit early");
-      Optional<T> opt = interpret.apply(rec);
+      Optional<T> opt = interpret.apply(rec, prepared);
       if (opt.isPresent()) {
         T obj = opt.get();
         obj.setVerbatimKey(rec.getId());
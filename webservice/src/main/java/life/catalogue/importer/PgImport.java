@@ -1,11 +1,17 @@
 package life.catalogue.importer;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.ImmutableList;
+import life.catalogue.api.jackson.ApiModule;
 import life.catalogue.api.model.*;
+import life.catalogue.api.util.ObjectUtils;
 import life.catalogue.api.vocab.Users;
-import life.catalogue.common.lang.InterruptedRuntimeException;
+import life.catalogue.common.concurrent.NamedThreadFactory;
 import life.catalogue.common.tax.AuthorshipNormalizer;
 import life.catalogue.config.ImporterConfig;
 import life.catalogue.dao.Partitioner;
+import life.catalogue.dao.TreeOrder;
 import life.catalogue.db.mapper.*;
 import life.catalogue.importer.neo.NeoDb;
 import life.catalogue.importer.neo.NeoDbUtils;
@@ -15,16 +21,23 @@ import life.catalogue.importer.neo.model.NeoUsage;
 import life.catalogue.importer.neo.model.RelType;
 import life.catalogue.importer.neo.traverse.StartEndHandler;
 import life.catalogue.importer.neo.traverse.TreeWalker;
+import life.catalogue.postgres.PgCopyWriter;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
+import org.gbif.dwc.terms.Term;
+import org.gbif.dwc.terms.UnknownTerm;
+import org.gbif.nameparser.api.Authorship;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.postgresql.PGConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -37,13 +50,33 @@ import static life.catalogue.common.lang.Exceptions.interruptIfCancelled;
 public class PgImport implements Callable<Boolean> {
   private static final Logger LOG = LoggerFactory.getLogger(PgImport.class);
   
+  private static final List<String> VERBATIM_COLS = ImmutableList.of(
+      "id", "dataset_key", "line", "file", "type", "terms", "issues"
+  );
+  private static final List<String> NAME_COLS = ImmutableList.of(
+      "id", "dataset_key", "sector_key", "verbatim_key", "name_index_id", "name_index_match_type", "homotypic_name_id",
+      "scientific_name", "scientific_name_normalized", "authorship", "authorship_normalized", "rank",
+      "uninomial", "genus", "infrageneric_epithet", "specific_epithet", "infraspecific_epithet", "cultivar_epithet",
+      "appended_phrase", "candidatus", "notho",
+      "basionym_authors", "basionym_ex_authors", "basionym_year",
+      "combination_authors", "combination_ex_authors", "combination_year",
+      "sanctioning_author", "published_in_id", "published_in_page",
+      "code", "nom_status", "origin", "type", "link", "remarks", "created_by", "modified_by"
+  );
+  private static final Authorship EMPTY_AUTHORSHIP = new Authorship();
+  private static final ObjectWriter TERM_WRITER = ApiModule.MAPPER.writerFor(new TypeReference<Map<Term, String>>() {});
+  
   private final NeoDb store;
   private final int batchSize;
+  private final boolean copy;
+  private final boolean parallel;
+  private final int indexThreads;
   private final SqlSessionFactory sessionFactory;
   private final Dataset dataset;
   private final Map<Integer, Integer> verbatimKeys = new HashMap<>();
   private final Set<String> proParteIds = new HashSet<>();
   private final AtomicInteger nCounter = new AtomicInteger(0);
+  private final AtomicInteger nrCounter = new AtomicInteger(0);
   private final AtomicInteger tCounter = new AtomicInteger(0);
   private final AtomicInteger sCounter = new AtomicInteger(0);
   private final AtomicInteger rCounter = new AtomicInteger(0);
@@ -58,26 +91,36 @@ public class PgImport implements Callable<Boolean> {
     this.dataset.setKey(datasetKey);
     this.store = store;
     this.batchSize = cfg.batchSize;
+    this.copy = cfg.pgCopy;
+    this.parallel = cfg.pgParallel;
+    this.indexThreads = cfg.partitionIndexThreads;
     this.sessionFactory = sessionFactory;
   }
   
   @Override
-  public Boolean call() throws InterruptedException, InterruptedRuntimeException {
+  public Boolean call() throws Exception {
     Partitioner.partition(sessionFactory, dataset.getKey());
     
-    insertVerbatim();
-    
-    insertReferences();
-    
-    insertNames();
+    // verbatim keys and reference ids are needed by all other entities
+    if (copy) {
+      timed("verbatim records", verbatimKeys::size, this::copyVerbatim);
+    } else {
+      timed("verbatim records", verbatimKeys::size, this::insertVerbatim);
+    }
+    timed("references", rCounter::get, this::insertReferences);
     
-    insertNameRelations();
-
-    insertTypeMaterial();
-
-    insertUsages();
+    if (parallel) {
+      insertParallel();
+    } else {
+      timed("names", nCounter::get, this::insertOrCopyNames);
+      timed("name relations", nrCounter::get, this::insertNameRelations);
+      timed("type material", tmCounter::get, this::insertTypeMaterial);
+      timed("usages", () -> tCounter.get() + sCounter.get(), this::insertUsages);
+    }
   
-    Partitioner.indexAndAttach(sessionFactory, dataset.getKey());
+    // number the tree before indices exist, so the update does not have to maintain them
+    TreeOrder.build(sessionFactory, dataset.getKey());
+    Partitioner.indexAndAttach(sessionFactory, dataset.getKey(), indexThreads);
     
     updateMetadata();
 		LOG.info("Completed dataset {} insert with {} verbatim records, " +
@@ -86,6 +129,68 @@ public class PgImport implements Callable<Boolean> {
         nCounter, tCounter, sCounter, rCounter, vCounter, diCounter, deCounter, mCounter);
 		return true;
 	}
+  
+  @FunctionalInterface
+  private interface InsertTask {
+    void run() throws Exception;
+  }
+  
+  /**
+   * Runs an insert task and logs the number of inserted rows per second.
+   */
+  private void timed(String entity, Supplier<Integer> counter, InsertTask task) throws Exception {
+    final long start = System.currentTimeMillis();
+    task.run();
+    final long millis = Math.max(1, System.currentTimeMillis() - start);
+    final int rows = counter.get();
+    LOG.info("Inserted {} {} for dataset {} in {}s, {} rows/s", rows, entity, dataset.getKey(), millis / 1000, rows * 1000L / millis);
+  }
+  
+  /**
+   * Inserts names, name relations, type material and usages concurrently, each stream using its own connection and batch session.
+   * Usages are inserted right after the names in the same stream as they refer to them.
+   * All tasks are cancelled if one of them fails or the import gets interrupted.
+   */
+  private void insertParallel() throws Exception {
+    ExecutorService exec = Executors.newFixedThreadPool(3, new NamedThreadFactory("pg-import-" + dataset.getKey()));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(exec.submit(() -> {
+        timed("names", nCounter::get, this::insertOrCopyNames);
+        timed("usages", () -> tCounter.get() + sCounter.get(), this::insertUsages);
+        return null;
+      }));
+      futures.add(exec.submit(() -> {
+        timed("name relations", nrCounter::get, this::insertNameRelations);
+        return null;
+      }));
+      futures.add(exec.submit(() -> {
+        timed("type material", tmCounter::get, this::insertTypeMaterial);
+        return null;
+      }));
+      for (Future<?> f : futures) {
+        try {
+          f.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      // interrupts still running tasks in case of errors, all tasks are done otherwise
+      exec.shutdownNow();
+    }
+  }
+  
+  private void insertOrCopyNames() throws SQLException {
+    if (copy) {
+      copyNames();
+    } else {
+      insertNames();
+    }
+  }
 
   private void updateMetadata() {
     try (SqlSession session = sessionFactory.openSession(false)) {
@@ -148,6 +253,50 @@ public class PgImport implements Callable<Boolean> {
     }
   }
   
+  private static PGConnection pgConnection(SqlSession session) throws SQLException {
+    return session.getConnection().unwrap(PGConnection.class);
+  }
+  
+  /**
+   * Streams all verbatim records into the new partition via postgres COPY.
+   * Keys are assigned here upfront, so we do not need to wait for batch commits to learn them.
+   * The partition id sequence is updated afterwards to continue after the max key.
+   */
+  private void copyVerbatim() throws SQLException, IOException {
+    try (final SqlSession session = sessionFactory.openSession(false)) {
+      PgCopyWriter writer = new PgCopyWriter(pgConnection(session), "verbatim_" + dataset.getKey(), VERBATIM_COLS);
+      try {
+        int key = 0;
+        for (VerbatimRecord v : store.verbatimList()) {
+          verbatimKeys.put(v.getId(), ++key);
+          writer.write(key,
+              dataset.getKey(),
+              v.getLine(),
+              v.getFile(),
+              termName(v.getType()),
+              v.getTerms() == null ? null : TERM_WRITER.writeValueAsString(v.getTerms()),
+              v.getIssues() == null ? Collections.emptySet() : v.getIssues()
+          );
+          if (key % batchSize == 0) {
+            interruptIfCancelled();
+            LOG.debug("Copied {} verbatim records so far", key);
+          }
+        }
+        writer.close();
+      } finally {
+        writer.cancel();
+      }
+      session.getMapper(DatasetPartitionMapper.class).updateIdSequence("verbatim", dataset.getKey());
+      session.commit(true);
+    }
+    LOG.info("Copied {} verbatim records", verbatimKeys.size());
+  }
+  
+  private static String termName(Term t) {
+    if (t == null) return null;
+    return t instanceof UnknownTerm ? t.qualifiedName() : t.prefixedName();
+  }
+  
   private void commitVerbatimBatch(SqlSession session, Map<Integer, VerbatimRecord> batchCache) {
     interruptIfCancelled();
     session.commit();
@@ -244,6 +393,79 @@ public class PgImport implements Callable<Boolean> {
     LOG.info("Inserted {} name in total", nCounter.get());
   }
   
+  /**
+   * Streams all names into the new partition via postgres COPY.
+   */
+  private void copyNames() throws SQLException {
+    try (final SqlSession session = sessionFactory.openSession(false)) {
+      PgCopyWriter writer = new PgCopyWriter(pgConnection(session), "name_" + dataset.getKey(), NAME_COLS);
+      try {
+        LOG.debug("Copying all names");
+        Iterator<NeoName> iter = store.names().all().iterator();
+        while (iter.hasNext()) {
+          Name n = iter.next().name;
+          n.setDatasetKey(dataset.getKey());
+          updateVerbatimUserEntity(n);
+          updateReferenceKey(n.getPublishedInId(), n::setPublishedInId);
+          Authorship ba = ObjectUtils.coalesce(n.getBasionymAuthorship(), EMPTY_AUTHORSHIP);
+          Authorship ca = ObjectUtils.coalesce(n.getCombinationAuthorship(), EMPTY_AUTHORSHIP);
+          writer.write(n.getId(),
+              n.getDatasetKey(),
+              n.getSectorKey(),
+              n.getVerbatimKey(),
+              n.getNameIndexId(),
+              n.getNameIndexMatchType(),
+              n.getHomotypicNameId(),
+              n.getScientificName(),
+              n.getScientificNameNormalized(),
+              n.getAuthorship(),
+              n.getAuthorshipNormalized(),
+              n.getRank(),
+              n.getUninomial(),
+              n.getGenus(),
+              n.getInfragenericEpithet(),
+              n.getSpecificEpithet(),
+              n.getInfraspecificEpithet(),
+              n.getCultivarEpithet(),
+              n.getAppendedPhrase(),
+              n.isCandidatus(),
+              n.getNotho(),
+              nullToEmpty(ba.getAuthors()),
+              nullToEmpty(ba.getExAuthors()),
+              ba.getYear(),
+              nullToEmpty(ca.getAuthors()),
+              nullToEmpty(ca.getExAuthors()),
+              ca.getYear(),
+              n.getSanctioningAuthor(),
+              n.getPublishedInId(),
+              n.getPublishedInPage(),
+              n.getCode(),
+              n.getNomStatus(),
+              n.getOrigin(),
+              n.getType(),
+              n.getLink(),
+              n.getRemarks(),
+              n.getCreatedBy(),
+              n.getModifiedBy()
+          );
+          if (nCounter.incrementAndGet() % batchSize == 0) {
+            interruptIfCancelled();
+            LOG.debug("Copied {} names so far", nCounter.get());
+          }
+        }
+        writer.close();
+      } finally {
+        writer.cancel();
+      }
+      session.commit(true);
+    }
+    LOG.info("Copied {} names in total", nCounter.get());
+  }
+  
+  private static <T> List<T> nullToEmpty(List<T> list) {
+    return list == null ? Collections.emptyList() : list;
+  }
+  
   /**
    * Go through all neo4j relations and convert them to name acts if the rel type matches
    */
@@ -268,6 +490,7 @@ public class PgImport implements Callable<Boolean> {
         }
         session.commit();
       }
+      nrCounter.addAndGet(counter.get());
       LOG.info("Inserted {} {} relations", counter.get(), rt);
     }
   }
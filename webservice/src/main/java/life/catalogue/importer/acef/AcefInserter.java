@@ -63,8 +63,9 @@ public class AcefInserter extends NeoCsvInserter {
           store.references()::create
       );
       
-      // species
+      // species, names are parsed ahead on a worker pool
       insertEntities(reader, AcefTerm.AcceptedSpecies,
+          inter::parseAcceptedName,
           inter::interpretSpecies,
           u -> store.createNameAndUsage(u) != null
       );
@@ -74,12 +75,14 @@ public class AcefInserter extends NeoCsvInserter {
       // but a link to their parent species ID.
       // so we cannot update the scientific name yet - we do this in the relation inserter instead!
       insertEntities(reader, AcefTerm.AcceptedInfraSpecificTaxa,
+          inter::parseAcceptedName,
           inter::interpretInfraspecies,
           u -> store.createNameAndUsage(u) != null
       );
       
       // synonyms
       insertEntities(reader, AcefTerm.Synonyms,
+          inter::parseSynonymName,
           inter::interpretSynonym,
           this::createSynonymNameUsage
       );
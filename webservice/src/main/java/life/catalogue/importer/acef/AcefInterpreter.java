@@ -53,18 +53,32 @@ public class AcefInterpreter extends InterpreterBase {
     ));
   }
   
-  Optional<NeoUsage> interpretSpecies(VerbatimRecord v) {
-    return interpretUsage(AcefTerm.AcceptedTaxonID, v, false);
+  /**
+   * Parses the name of an accepted species or infraspecies record without accessing the store.
+   */
+  Optional<NameAccordingTo> parseAcceptedName(VerbatimRecord v) {
+    return parseName(AcefTerm.AcceptedTaxonID, v);
+  }
+
+  /**
+   * Parses the name of a synonym record without accessing the store.
+   */
+  Optional<NameAccordingTo> parseSynonymName(VerbatimRecord v) {
+    return parseName(AcefTerm.ID, v);
+  }
+
+  Optional<NeoUsage> interpretSpecies(VerbatimRecord v, Optional<NameAccordingTo> nat) {
+    return interpretUsage(AcefTerm.AcceptedTaxonID, v, nat, false);
   }
 
-  Optional<NeoUsage> interpretInfraspecies(VerbatimRecord v) {
+  Optional<NeoUsage> interpretInfraspecies(VerbatimRecord v, Optional<NameAccordingTo> nat) {
     requireTerm(v, AcefTerm.ParentSpeciesID, Issue.PARENT_ID_INVALID);
-    return interpretUsage(AcefTerm.AcceptedTaxonID, v, false);
+    return interpretUsage(AcefTerm.AcceptedTaxonID, v, nat, false);
   }
 
-  Optional<NeoUsage> interpretSynonym(VerbatimRecord v) {
+  Optional<NeoUsage> interpretSynonym(VerbatimRecord v, Optional<NameAccordingTo> nat) {
     requireTerm(v, AcefTerm.AcceptedTaxonID, Issue.ACCEPTED_ID_INVALID);
-    return interpretUsage(AcefTerm.ID, v, true);
+    return interpretUsage(AcefTerm.ID, v, nat, true);
   }
   
   List<VernacularName> interpretVernacular(VerbatimRecord rec) {
@@ -86,12 +100,15 @@ public class AcefInterpreter extends InterpreterBase {
         AcefTerm.DistributionStatus);
   }
   
-  private Optional<NeoUsage> interpretUsage(Term idTerm, VerbatimRecord v, boolean synonym) {
+  /**
+   * @param nat the name parsed from the same record by parseName
+   */
+  private Optional<NeoUsage> interpretUsage(Term idTerm, VerbatimRecord v, Optional<NameAccordingTo> nat, boolean synonym) {
     // name
-    Optional<NameAccordingTo> nat = interpretName(idTerm, v);
     if (!nat.isPresent()) {
       return Optional.empty();
     }
+    nat.get().getName().setVerbatimKey(v.getId());
     
     // status
     TaxonomicStatus status = parse(TaxonomicStatusParser.PARSER, v.get(AcefTerm.Sp2000NameStatus))
@@ -165,9 +182,10 @@ public class AcefInterpreter extends InterpreterBase {
   }
   
   /**
+   * Parses the name without accessing the store, see InterpreterBase.parseName.
    * @return a parsed name or in case of AcceptedInfraSpecificTaxa
    */
-  private Optional<NameAccordingTo> interpretName(Term idTerm, VerbatimRecord v) {
+  private Optional<NameAccordingTo> parseName(Term idTerm, VerbatimRecord v) {
     String authorship;
     String rank;
     if (v.hasTerm(AcefTerm.InfraSpeciesEpithet)) {
@@ -223,7 +241,7 @@ public class AcefInterpreter extends InterpreterBase {
       opt = Optional.of(nat);
       
     } else {
-      opt = interpretName(true, v.get(idTerm), rank, null, authorship,
+      opt = parseName(true, v.get(idTerm), rank, null, authorship,
           v.get(AcefTerm.Genus), v.get(AcefTerm.SubGenusName), v.get(AcefTerm.SpeciesEpithet), v.get(AcefTerm.InfraSpeciesEpithet),
           null, null,
           null, v.get(AcefTerm.GSDNameStatus), null,null, v);
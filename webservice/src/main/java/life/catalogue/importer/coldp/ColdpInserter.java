@@ -70,7 +70,9 @@ public class ColdpInserter extends NeoCsvInserter {
       insertExtendedReferences();
       
       // name & relations
+      // names are parsed ahead on a worker pool
       insertEntities(reader, ColdpTerm.Name,
+          inter::parseName,
           inter::interpretName,
           n -> store.names().create(n) != null
       );
@@ -204,16 +204,26 @@ public class ColdpInterpreter extends InterpreterBase {
         ColdpTerm.format);
   }
 
-  Optional<NeoName> interpretName(VerbatimRecord v) {
-    Optional<NameAccordingTo> opt = interpretName(true, v.get(ColdpTerm.ID),
+  /**
+   * Parses the name of a record without accessing the store, see InterpreterBase.parseName.
+   */
+  Optional<NameAccordingTo> parseName(VerbatimRecord v) {
+    return parseName(true, v.get(ColdpTerm.ID),
         v.get(ColdpTerm.rank), v.get(ColdpTerm.scientificName), v.get(ColdpTerm.authorship),
         v.get(ColdpTerm.genus), v.get(ColdpTerm.infragenericEpithet), v.get(ColdpTerm.specificEpithet), v.get(ColdpTerm.infraspecificEpithet),
         v.get(ColdpTerm.cultivarEpithet), v.get(ColdpTerm.appendedPhrase),
         v.get(ColdpTerm.code), v.get(ColdpTerm.status),
         v.get(ColdpTerm.link), v.get(ColdpTerm.remarks), v);
+  }
+
+  /**
+   * @param opt the name parsed from the same record by parseName
+   */
+  Optional<NeoName> interpretName(VerbatimRecord v, Optional<NameAccordingTo> opt) {
     if (opt.isPresent()) {
       // publishedIn
       Name n = opt.get().getName();
+      n.setVerbatimKey(v.getId());
       setReference(v, ColdpTerm.publishedInID, rid -> {
           n.setPublishedInId(rid);
           n.setPublishedInPage(v.get(ColdpTerm.publishedInPage));
@@ -39,9 +39,12 @@ public class DwcInterpreter extends InterpreterBase {
     this.mappingFlags = mappingFlags;
   }
 
-  public Optional<NeoUsage> interpret(VerbatimRecord v) {
+  /**
+   * @param parsed the name parsed from the same record by parseName
+   */
+  public Optional<NeoUsage> interpret(VerbatimRecord v, Optional<NameAccordingTo> parsed) {
     // name
-    Optional<NameAccordingTo> nat = interpretName(v);
+    Optional<NameAccordingTo> nat = interpretName(v, parsed);
     if (nat.isPresent()) {
       EnumNote<TaxonomicStatus> status = SafeParser.parse(TaxonomicStatusParser.PARSER, v.get(DwcTerm.taxonomicStatus)).orElse(NO_STATUS);
       // usage
@@ -187,18 +190,24 @@ public class DwcInterpreter extends InterpreterBase {
     tax.setRemarks(v.get(DwcTerm.taxonRemarks));
   }
   
-  private Optional<NameAccordingTo> interpretName(VerbatimRecord v) {
-    Optional<NameAccordingTo> opt = interpretName(false, v.getFirstRaw(DwcTerm.taxonID, DwcaTerm.ID),
+  /**
+   * Parses the name of a record without accessing the store, see InterpreterBase.parseName.
+   */
+  public Optional<NameAccordingTo> parseName(VerbatimRecord v) {
+    return parseName(false, v.getFirstRaw(DwcTerm.taxonID, DwcaTerm.ID),
         v.getFirst(DwcTerm.taxonRank, DwcTerm.verbatimTaxonRank), v.get(DwcTerm.scientificName),
         v.get(DwcTerm.scientificNameAuthorship),
         v.getFirst(GbifTerm.genericName, DwcTerm.genus), v.get(DwcTerm.subgenus),
         v.get(DwcTerm.specificEpithet), v.get(DwcTerm.infraspecificEpithet), null, null,
         v.get(DwcTerm.nomenclaturalCode), v.get(DwcTerm.nomenclaturalStatus),
         v.getRaw(DcTerm.references), v.get(DwcTerm.nomenclaturalStatus), v);
-    
+  }
+
+  private Optional<NameAccordingTo> interpretName(VerbatimRecord v, Optional<NameAccordingTo> opt) {
     // publishedIn
     if (opt.isPresent()) {
       Name n = opt.get().getName();
+      n.setVerbatimKey(v.getId());
       if (v.hasTerm(DwcTerm.namePublishedInID) || v.hasTerm(DwcTerm.namePublishedIn)) {
         Reference ref = refFactory.fromDWC(v.getRaw(DwcTerm.namePublishedInID), v.get(DwcTerm.namePublishedIn), v.get(DwcTerm.namePublishedInYear), v);
         if (ref != null) {
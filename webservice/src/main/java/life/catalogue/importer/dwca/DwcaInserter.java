@@ -40,7 +40,9 @@ public class DwcaInserter extends NeoCsvInserter {
       inter = new DwcInterpreter(store.getDataset(), reader.getMappingFlags(), refFactory, store);
 
       // taxon core only, extensions are interpreted later
+      // names are parsed ahead on a worker pool
       insertEntities(reader, DwcTerm.Taxon,
+          inter::parseName,
           inter::interpret,
           u -> store.createNameAndUsage(u) != null
       );
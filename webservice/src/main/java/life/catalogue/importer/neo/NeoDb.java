@@ -4,6 +4,8 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.util.Pool;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.UnmodifiableIterator;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import life.catalogue.api.model.*;
 import life.catalogue.api.vocab.Issue;
 import life.catalogue.api.vocab.Origin;
@@ -80,6 +82,8 @@ public class NeoDb {
   // verbatimKey sequence and lookup
   private final AtomicInteger verbatimSequence = new AtomicInteger(0);
   private final Map<Integer, VerbatimRecord> verbatim;
+  // verbatim records with a reserved key which are not yet persisted
+  private final Int2ObjectMap<VerbatimRecord> unsaved = new Int2ObjectOpenHashMap<>();
   private final ReferenceStore references;
   private final MapStore<TypeMaterial> typeMaterial;
   private final NeoNameStore names;
@@ -479,12 +483,27 @@ public class NeoDb {
     return isBatchMode() ? new NodeMock(nodeId) : neo.getNodeById(nodeId);
   }
   
+  /**
+   * Issues a new key for a verbatim record without persisting it yet.
+   * Until the record is stored with put the very same instance is returned by getVerbatim
+   * and issues added to its key are only kept in memory, so the record is serialized just once.
+   */
+  public void reserve(VerbatimRecord v) {
+    Preconditions.checkArgument(v.getId() == null, "Verbatim record already has a key");
+    v.setId(verbatimSequence.incrementAndGet());
+    unsaved.put((int) v.getId(), v);
+  }
+
   /**
    * Creates or updates a verbatim record.
    * If created a new key is issued.
    */
   public void put(VerbatimRecord v) {
-    if (v.hasChanged()) {
+    if (v.getId() != null && unsaved.remove((int) v.getId()) != null) {
+      verbatim.put(v.getId(), v);
+      v.setHashCode();
+
+    } else if (v.hasChanged()) {
       if (v.getId() == null) {
         v.setId(verbatimSequence.incrementAndGet());
       }
@@ -511,7 +530,11 @@ public class NeoDb {
    * @return the verbatim record belonging to the requested key as assigned from verbatimSequence
    */
   public VerbatimRecord getVerbatim(int key) {
-    VerbatimRecord rec = verbatim.get(key);
+    VerbatimRecord rec = unsaved.get(key);
+    if (rec != null) {
+      return rec;
+    }
+    rec = verbatim.get(key);
     if (rec != null) {
       rec.setHashCode();
     }
@@ -545,7 +568,9 @@ public class NeoDb {
             v.addIssue(is);
           }
         }
-        put(v);
+        if (!unsaved.containsKey((int) verbatimKey)) {
+          put(v);
+        }
       }
     }
   }
@@ -0,0 +1,131 @@
+package life.catalogue.matching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import life.catalogue.matching.authorship.AuthorComparator;
+import org.gbif.nameparser.api.NomCode;
+import org.gbif.nameparser.api.Rank;
+
+/**
+ * Layout of the fixed width candidate records kept in a NameIndexStore.
+ * A record holds only the values needed to score a candidate against a query, as SIZE consecutive ints.
+ * Strings are given as ids of the stores dictionary. The normalized names and authorship are interned case folded,
+ * so comparing their ids is the same as comparing the strings ignoring case.
+ */
+final class CandidateRecord {
+  static final int SIZE = 9;
+  // dictionary id of the names index id, also used to load the full name
+  static final int REF = 0;
+  // rank, code and empty authorship flags
+  static final int FLAGS = 1;
+  static final int NAME = 2;
+  static final int FULL_NAME = 3;
+  static final int AUTHORSHIP = 4;
+  static final int COMBINATION_TEAM = 5;
+  static final int BASIONYM_TEAM = 6;
+  static final int COMBINATION_YEAR = 7;
+  static final int BASIONYM_YEAR = 8;
+
+  private static final Rank[] RANKS = Rank.values();
+  private static final NomCode[] CODES = NomCode.values();
+  private static final int RANK_BITS = 10;
+  private static final int CODE_BITS = 5;
+  private static final int COMBINATION_EMPTY = 1 << (RANK_BITS + CODE_BITS);
+  private static final int BASIONYM_EMPTY = COMBINATION_EMPTY << 1;
+  // separates authors of a team, normalized authors never contain control characters
+  private static final char AUTHOR_SEPARATOR = '\u001F';
+
+  private CandidateRecord() {
+  }
+
+  /**
+   * Creates a new record for a normalized name, interning all its strings.
+   */
+  static int[] create(IndexName n, NameIndexStore store) {
+    AuthorComparator.AuthorTeams teams = n.authorTeams();
+    int[] r = new int[SIZE];
+    r[REF] = store.intern(n.getId());
+    r[FLAGS] = ordinal(n.getRank()) | ordinal(n.getCode()) << RANK_BITS
+        | (teams.combinationEmpty ? COMBINATION_EMPTY : 0)
+        | (teams.basionymEmpty ? BASIONYM_EMPTY : 0);
+    r[NAME] = store.intern(foldCase(n.normalizedName()));
+    r[FULL_NAME] = store.intern(foldCase(n.normalizedFullName()));
+    r[AUTHORSHIP] = store.intern(foldCase(n.normalizedAuthorship()));
+    r[COMBINATION_TEAM] = store.intern(join(teams.combination));
+    r[BASIONYM_TEAM] = store.intern(join(teams.basionym));
+    r[COMBINATION_YEAR] = store.intern(teams.combinationYear);
+    r[BASIONYM_YEAR] = store.intern(teams.basionymYear);
+    return r;
+  }
+
+  static int count(int[] records) {
+    return records.length / SIZE;
+  }
+
+  static Rank rank(int[] records, int idx) {
+    int ord = records[idx * SIZE + FLAGS] & ((1 << RANK_BITS) - 1);
+    return ord == 0 ? null : RANKS[ord - 1];
+  }
+
+  static NomCode code(int[] records, int idx) {
+    int ord = (records[idx * SIZE + FLAGS] >>> RANK_BITS) & ((1 << CODE_BITS) - 1);
+    return ord == 0 ? null : CODES[ord - 1];
+  }
+
+  static int get(int[] records, int idx, int field) {
+    return records[idx * SIZE + field];
+  }
+
+  /**
+   * Resolves the author teams of a candidate from the dictionary.
+   */
+  static AuthorComparator.AuthorTeams authorTeams(int[] records, int idx, NameIndexStore store) {
+    final int offset = idx * SIZE;
+    return new AuthorComparator.AuthorTeams(
+        split(store.value(records[offset + COMBINATION_TEAM])),
+        store.value(records[offset + COMBINATION_YEAR]),
+        (records[offset + FLAGS] & COMBINATION_EMPTY) != 0,
+        split(store.value(records[offset + BASIONYM_TEAM])),
+        store.value(records[offset + BASIONYM_YEAR]),
+        (records[offset + FLAGS] & BASIONYM_EMPTY) != 0
+    );
+  }
+
+  /**
+   * Folds each char to a canonical case, so two strings are equal ignoring case exactly when their folded forms are equal.
+   */
+  static String foldCase(@Nullable String x) {
+    if (x == null) return null;
+    char[] chars = x.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
+  static String join(List<String> authors) {
+    return String.join(String.valueOf(AUTHOR_SEPARATOR), authors);
+  }
+
+  static List<String> split(@Nullable String team) {
+    if (team == null || team.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> authors = new ArrayList<>();
+    int start = 0;
+    int end;
+    while ((end = team.indexOf(AUTHOR_SEPARATOR, start)) >= 0) {
+      authors.add(team.substring(start, end));
+      start = end + 1;
+    }
+    authors.add(team.substring(start));
+    return authors;
+  }
+
+  private static int ordinal(Enum<?> e) {
+    return e == null ? 0 : e.ordinal() + 1;
+  }
+}
@@ -2,7 +2,8 @@ package life.catalogue.matching;
 
 import life.catalogue.api.model.*;
 import life.catalogue.api.vocab.Issue;
-import life.catalogue.api.vocab.MatchType;
+import life.catalogue.common.concurrent.ExecutorUtils;
+import life.catalogue.common.concurrent.NamedThreadFactory;
 import life.catalogue.db.mapper.NameMapper;
 import life.catalogue.db.mapper.VerbatimRecordMapper;
 import org.apache.ibatis.session.ExecutorType;
@@ -11,37 +12,164 @@ import org.apache.ibatis.session.SqlSessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 public class DatasetMatcher {
   private static final Logger LOG = LoggerFactory.getLogger(DatasetMatcher.class);
+  // number of names handed to a single worker thread at once
+  private static final int CHUNK_SIZE = 1000;
+  // log progress every n names
+  private static final int LOG_INTERVAL = 100000;
   private final SqlSessionFactory factory;
   private final NameIndex ni;
   private final boolean updateIssues;
-  
+  private final int threads;
+  private final int chunkSize;
+
   public DatasetMatcher(SqlSessionFactory factory, NameIndex ni, boolean updateIssues) {
+    this(factory, ni, updateIssues, 1);
+  }
+
+  /**
+   * @param threads number of worker threads to match names with. A single thread matches all names sequentially in the calling thread
+   */
+  public DatasetMatcher(SqlSessionFactory factory, NameIndex ni, boolean updateIssues, int threads) {
+    this(factory, ni, updateIssues, threads, CHUNK_SIZE);
+  }
+
+  DatasetMatcher(SqlSessionFactory factory, NameIndex ni, boolean updateIssues, int threads, int chunkSize) {
     this.factory = factory;
     this.ni = ni;
     this.updateIssues = updateIssues;
+    this.threads = Math.max(1, threads);
+    this.chunkSize = chunkSize;
   }
-  
+
   /**
    * Matches all names of an entire dataset and updates its name index id and issues in postgres
    * @param allowInserts if true allows inserts into the names index
    * @return number of names which have a changed match to before
    */
   public int match(int datasetKey, boolean allowInserts) {
-    try (SqlSession session = factory.openSession(false)){
+    if (threads > 1) {
+      return matchParallel(datasetKey, allowInserts);
+    }
+    try (SqlSession session = factory.openSession(false);
+         BulkMatchHandler h = new BulkMatchHandler(updateIssues, ni, factory, datasetKey, allowInserts)
+    ){
       NameMapper nm = session.getMapper(NameMapper.class);
-      BulkMatchHandler h = new BulkMatchHandler(updateIssues, ni, factory, datasetKey, allowInserts);
       nm.processDataset(datasetKey).forEach(h);
-      LOG.info("Updated {} out of {} name matches for dataset {}", h.updates, h.counter, datasetKey);
+      h.logDone();
+      return h.updates;
+    }
+  }
+
+  /**
+   * Streams all names of the dataset from postgres in the calling thread and hands them over in chunks to a pool of worker threads
+   * which match them against the names index. Concurrent inserts of the same name are prevented by the names index itself.
+   * Results are written back to postgres by the calling thread only, reusing a single batch session.
+   */
+  private int matchParallel(int datasetKey, boolean allowInserts) {
+    LOG.info("Match names of dataset {} using {} threads", datasetKey, threads);
+    ExecutorService exec = Executors.newFixedThreadPool(threads, new NamedThreadFactory("dataset-matcher-" + datasetKey));
+    try (SqlSession session = factory.openSession(false);
+         BulkMatchHandler h = new BulkMatchHandler(updateIssues, ni, factory, datasetKey, allowInserts)
+    ){
+      ParallelMatchHandler ph = new ParallelMatchHandler(exec, h, allowInserts);
+      NameMapper nm = session.getMapper(NameMapper.class);
+      nm.processDataset(datasetKey).forEach(ph);
+      ph.finish();
+      h.logDone();
       return h.updates;
+
+    } finally {
+      ExecutorUtils.shutdown(exec);
     }
   }
-  
-  
+
+  /**
+   * Collects names into chunks which are matched by the executor.
+   * The number of pending chunks is bounded to keep memory usage low,
+   * results of completed chunks are passed on to the BulkMatchHandler in the thread the handler was called from.
+   */
+  class ParallelMatchHandler implements Consumer<Name> {
+    private final ExecutorService exec;
+    private final BulkMatchHandler handler;
+    private final boolean allowInserts;
+    private final int maxPending;
+    private final LinkedList<Future<List<NameMatch>>> pending = new LinkedList<>();
+    private final LinkedList<List<Name>> pendingNames = new LinkedList<>();
+    private List<Name> chunk = new ArrayList<>(chunkSize);
+
+    ParallelMatchHandler(ExecutorService exec, BulkMatchHandler handler, boolean allowInserts) {
+      this.exec = exec;
+      this.handler = handler;
+      this.allowInserts = allowInserts;
+      this.maxPending = 2 * threads;
+    }
+
+    @Override
+    public void accept(Name n) {
+      chunk.add(n);
+      if (chunk.size() >= chunkSize) {
+        submit();
+        while (pending.size() > maxPending) {
+          writeNext();
+        }
+      }
+    }
+
+    private void submit() {
+      final List<Name> names = chunk;
+      pendingNames.add(names);
+      pending.add(exec.submit(() -> {
+        List<NameMatch> matches = new ArrayList<>(names.size());
+        for (Name n : names) {
+          matches.add(ni.match(n, allowInserts, false));
+        }
+        return matches;
+      }));
+      chunk = new ArrayList<>(chunkSize);
+    }
+
+    private void writeNext() {
+      List<Name> names = pendingNames.removeFirst();
+      try {
+        List<NameMatch> matches = pending.removeFirst().get();
+        for (int i = 0; i < names.size(); i++) {
+          handler.update(names.get(i), matches.get(i));
+        }
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while matching dataset " + handler.datasetKey, e);
+
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Failed to match names of dataset " + handler.datasetKey, e.getCause());
+      }
+    }
+
+    /**
+     * Submits the last incomplete chunk and waits for all pending matches to be written.
+     */
+    void finish() {
+      if (!chunk.isEmpty()) {
+        submit();
+      }
+      while (!pending.isEmpty()) {
+        writeNext();
+      }
+    }
+  }
+
   static class BulkMatchHandler implements Consumer<Name>, AutoCloseable {
     int counter = 0;
     int updates = 0;
@@ -53,7 +181,8 @@ public class DatasetMatcher {
     private final NameMapper nm;
     private final VerbatimRecordMapper vm;
     private final DSIDValue<Integer> key;
-  
+    private final long started = System.currentTimeMillis();
+
     BulkMatchHandler(boolean updateIssues, NameIndex ni, SqlSessionFactory factory, int datasetKey, boolean allowInserts) {
       this.updateIssues = updateIssues;
       this.datasetKey = datasetKey;
@@ -64,13 +193,19 @@ public class DatasetMatcher {
       this.vm = session.getMapper(VerbatimRecordMapper.class);
       key = DSID.key(datasetKey, -1);
     }
-  
+
     @Override
     public void accept(Name n) {
+      update(n, ni.match(n, allowInserts, false));
+    }
+
+    /**
+     * Updates the name index id and issues of a name in postgres in case the given match differs from the existing one.
+     */
+    void update(Name n, NameMatch m) {
       counter++;
       String oldId = n.getNameIndexId();
-      NameMatch m = ni.match(n, allowInserts, false);
-      
+
       if (!Objects.equals(oldId, m.hasMatch() ? m.getName().getId() : null)) {
         if (m.hasMatch()) {
           nm.updateMatch(datasetKey, n.getId(), m.getName().getId(), m.getType());
@@ -96,23 +231,37 @@ public class DatasetMatcher {
             }
           }
         }
-        
+
         if (updates++ % 10000 == 0) {
           session.commit();
           LOG.debug("Updated {} out of {} name matches for dataset {}", updates, counter, datasetKey);
         }
       }
+
+      if (counter % LOG_INTERVAL == 0) {
+        LOG.info("Matched {} names for dataset {} with {} updates, {} names/s", counter, datasetKey, updates, throughput());
+      }
+    }
+
+    private long throughput() {
+      long millis = Math.max(1, System.currentTimeMillis() - started);
+      return counter * 1000L / millis;
     }
-    
+
+    void logDone() {
+      LOG.info("Updated {} out of {} name matches for dataset {} in {}s, {} names/s",
+          updates, counter, datasetKey, (System.currentTimeMillis() - started) / 1000, throughput());
+    }
+
     static void clearMatchIssues(IssueContainer issues){
       issues.removeIssue(Issue.NAME_MATCH_NONE);
       issues.removeIssue(Issue.NAME_MATCH_AMBIGUOUS);
       issues.removeIssue(Issue.NAME_MATCH_VARIANT);
       issues.removeIssue(Issue.NAME_MATCH_INSERTED);
     }
-  
+
     @Override
-    public void close() throws Exception {
+    public void close() {
       session.commit();
       session.close();
     }
@@ -0,0 +1,60 @@
+package life.catalogue.matching;
+
+import com.google.common.base.Strings;
+import life.catalogue.api.model.Name;
+import life.catalogue.common.tax.SciNameNormalizer;
+import life.catalogue.matching.authorship.AuthorComparator;
+
+/**
+ * A name which carries the normalized forms needed for matching candidates.
+ * They are computed once when a name is added to the index, where they are kept in the candidate records,
+ * and once per query.
+ * The normalized forms are not exposed via public getters to keep them out of the API.
+ */
+public class IndexName extends Name {
+  private String normalizedName;
+  private String normalizedFullName;
+  private String normalizedAuthorship;
+  private AuthorComparator.AuthorTeams authorTeams;
+
+  /**
+   * Creates a shallow copy of the given name and computes all normalized forms.
+   */
+  IndexName(Name n, AuthorComparator authComp) {
+    super(n);
+    normalizedName = SciNameNormalizer.normalizedAscii(n.canonicalNameWithoutAuthorship());
+    normalizedFullName = SciNameNormalizer.normalizedAscii(n.canonicalNameWithAuthorship());
+    normalizedAuthorship = Strings.nullToEmpty(SciNameNormalizer.normalizedAscii(n.authorshipComplete()));
+    authorTeams = authComp.normalize(n);
+  }
+
+  /**
+   * @return the given name if it already is a normalized IndexName or a new normalized copy of it
+   */
+  static IndexName normalized(Name n, AuthorComparator authComp) {
+    if (n instanceof IndexName && ((IndexName) n).isNormalized()) {
+      return (IndexName) n;
+    }
+    return new IndexName(n, authComp);
+  }
+
+  boolean isNormalized() {
+    return normalizedFullName != null && authorTeams != null;
+  }
+
+  String normalizedName() {
+    return normalizedName;
+  }
+
+  String normalizedFullName() {
+    return normalizedFullName;
+  }
+
+  String normalizedAuthorship() {
+    return normalizedAuthorship;
+  }
+
+  AuthorComparator.AuthorTeams authorTeams() {
+    return authorTeams;
+  }
+}
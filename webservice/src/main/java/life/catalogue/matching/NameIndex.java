@@ -1,7 +1,10 @@
 package life.catalogue.matching;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import com.codahale.metrics.MetricRegistry;
 import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameMatch;
 import org.slf4j.Logger;
@@ -17,10 +20,28 @@ public interface NameIndex extends AutoCloseable {
    * @param name         the parsed name to match against, ignoring any ids if present
    * @param allowInserts if true inserts the name to be matched into the index if not yet existing, avoiding NoMatch responses
    * @param verbose      if true adds verbose matching information, i.e. queue of alternative matches
-   * @return a match which is never null, but might have a usageKey=null if nothing could be matched
+   * @return a match which is never null, but might have a usageKey=null if nothing could be matched.
+   *         Matched names and alternatives are the complete names of the names index dataset, with all their properties.
    */
   NameMatch match(Name name, boolean allowInserts, boolean verbose);
   
+  /**
+   * Matches a batch of parsed names against the names index.
+   * Implementations can make use of the batch to avoid repeated lookups of names sharing the same index key.
+   *
+   * @param names        the parsed names to match against, ignoring any ids if present
+   * @param allowInserts if true inserts the names to be matched into the index if not yet existing, avoiding NoMatch responses
+   * @param verbose      if true adds verbose matching information, i.e. queue of alternative matches
+   * @return list of matches in the same order as the names given, never null
+   */
+  default List<NameMatch> matchAll(List<Name> names, boolean allowInserts, boolean verbose) {
+    List<NameMatch> matches = new ArrayList<>(names.size());
+    for (Name n : names) {
+      matches.add(match(n, allowInserts, verbose));
+    }
+    return matches;
+  }
+  
   /**
    * @return the number of names in the index
    */
@@ -43,6 +64,13 @@ public interface NameIndex extends AutoCloseable {
     }
   }
   
+  /**
+   * Optionally register metrics for the index
+   */
+  default void register(MetricRegistry registry) {
+    // nothing
+  }
+  
   default void close() throws Exception {
     // nothing
   }
@@ -0,0 +1,206 @@
+package life.catalogue.matching;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import life.catalogue.api.model.Name;
+import life.catalogue.common.kryo.ApiKryoPool;
+import life.catalogue.common.kryo.map.MapDbObjectSerializer;
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import org.mapdb.DBException;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NameIndexStore implementation that is backed by a mapdb using compact, fixed width candidate records.
+ *
+ * All strings used in candidate records, including the key itself, are interned into a dictionary of int ids.
+ * A key group is then a single int array of concatenated candidate records, see CandidateRecord,
+ * so fetching candidates only deserializes one primitive array and scoring them compares ints.
+ *
+ * The full names are kept separately, serialized with kryo, and are only loaded for the best matches,
+ * so matches return names with all their properties exactly as stored in postgres.
+ *
+ * The store keeps the total number of names and the latest modification date of names loaded from postgres
+ * as metadata in the same db, so the index can be warm started without iterating over all names.
+ * The records contain normalized author teams, so the fingerprint of the authorship normalizer
+ * that created them is kept as well and the store is cleared when opened with a different one.
+ *
+ * Use it with a memory mapped file db or a direct memory db to keep the names outside of the java heap.
+ */
+public class NameIndexCompactStore implements NameIndexStore {
+  private static final Logger LOG = LoggerFactory.getLogger(NameIndexCompactStore.class);
+  // version of the record format. Stores with a different version are cleared and need to be reloaded
+  private static final int VERSION = 2;
+
+  private final DB db;
+  // string dictionary
+  private final HTreeMap<String, Integer> ids;
+  private final HTreeMap<Integer, String> values;
+  // candidate records by key id
+  private final HTreeMap<Integer, int[]> groups;
+  // full names by their ref
+  private final HTreeMap<Integer, Name> names;
+  // metadata kept in the db next to the names
+  private final Atomic.Integer nextId;
+  private final Atomic.Integer count;
+  private final Atomic.Long modified;
+  private final Object internLock = new Object();
+
+  /**
+   * @param normalizer fingerprint of the authorship normalizer used to create the candidate records
+   */
+  public NameIndexCompactStore(DBMaker.Maker dbMaker, int normalizer) throws DBException.DataCorruption {
+    this.db = dbMaker.make();
+    ids = db.hashMap("ids", Serializer.STRING, Serializer.INTEGER).createOrOpen();
+    values = db.hashMap("values", Serializer.INTEGER, Serializer.STRING).createOrOpen();
+    groups = db.hashMap("groups", Serializer.INTEGER, Serializer.INT_ARRAY).createOrOpen();
+    names = db.hashMap("names", Serializer.INTEGER, new MapDbObjectSerializer<>(Name.class, new ApiKryoPool(8), 256))
+        .createOrOpen();
+    nextId = db.atomicInteger("nextId").createOrOpen();
+    count = db.atomicInteger("count").createOrOpen();
+    modified = db.atomicLong("modified").createOrOpen();
+    Atomic.Integer version = db.atomicInteger("version").createOrOpen();
+    Atomic.Integer normalizerFp = db.atomicInteger("normalizer").createOrOpen();
+    if (version.get() != VERSION) {
+      LOG.info("Names index store has version {}, but we need version {}. Clear store", version.get(), VERSION);
+      clear();
+    } else if (normalizerFp.get() != normalizer) {
+      LOG.info("Names index store was created with authorship normalizer {}, but we use {}. Clear store", normalizerFp.get(), normalizer);
+      clear();
+    }
+    version.set(VERSION);
+    normalizerFp.set(normalizer);
+  }
+
+  /**
+   * Checks whether an existing db was created by this store. Files written by the former NameIndexMapDBStore
+   * have no version and keep a names map with different serializers, which mapdb would reopen as it is.
+   * Such files need to be deleted before the store is opened.
+   *
+   * @return true if the db is empty or was created by this store
+   */
+  static boolean isCompatible(DBMaker.Maker dbMaker) throws DBException.DataCorruption {
+    DB db = dbMaker.make();
+    try {
+      return db.exists("version") || !db.exists("names");
+    } finally {
+      db.close();
+    }
+  }
+
+  /**
+   * Returns the number of names kept in the stores metadata, not iterating over all names.
+   */
+  @Override
+  public int count() {
+    return count.get();
+  }
+
+  @Override
+  public int[] candidates(String key) {
+    int keyId = lookup(key);
+    return keyId < 0 ? null : groups.get(keyId);
+  }
+
+  @Override
+  public Name name(int ref) {
+    return names.get(ref);
+  }
+
+  @Override
+  public int intern(@Nullable String value) {
+    if (value == null) return NULL_ID;
+    Integer id = ids.get(value);
+    if (id == null) {
+      synchronized (internLock) {
+        id = ids.get(value);
+        if (id == null) {
+          id = nextId.getAndIncrement();
+          // add the value first, so concurrent readers can resolve the id as soon as it is visible
+          values.put(id, value);
+          ids.put(value, id);
+        }
+      }
+    }
+    return id;
+  }
+
+  @Override
+  public int lookup(@Nullable String value) {
+    if (value == null) return NULL_ID;
+    Integer id = ids.get(value);
+    return id == null ? UNKNOWN_ID : id;
+  }
+
+  @Override
+  public String value(int id) {
+    return id < 0 ? null : values.get(id);
+  }
+
+  @Override
+  public void add(String key, int[] record, Name name) {
+    final int keyId = intern(key);
+    final int ref = record[CandidateRecord.REF];
+    // kryo only knows plain names
+    names.put(ref, name.getClass() == Name.class ? name : new Name(name));
+    int[] group = groups.get(keyId);
+    if (group == null) {
+      group = record.clone();
+      count.incrementAndGet();
+    } else {
+      int existing = -1;
+      for (int idx = 0; idx < CandidateRecord.count(group); idx++) {
+        if (CandidateRecord.get(group, idx, CandidateRecord.REF) == ref) {
+          existing = idx;
+          break;
+        }
+      }
+      if (existing >= 0) {
+        // replace previous version
+        group = group.clone();
+        System.arraycopy(record, 0, group, existing * CandidateRecord.SIZE, CandidateRecord.SIZE);
+      } else {
+        group = Arrays.copyOf(group, group.length + CandidateRecord.SIZE);
+        System.arraycopy(record, 0, group, group.length - CandidateRecord.SIZE, CandidateRecord.SIZE);
+        count.incrementAndGet();
+      }
+    }
+    groups.put(keyId, group);
+  }
+
+  @Override
+  public void clear() {
+    groups.clear();
+    names.clear();
+    ids.clear();
+    values.clear();
+    nextId.set(0);
+    count.set(0);
+    modified.set(0);
+  }
+
+  @Override
+  public LocalDateTime lastModified() {
+    long millis = modified.get();
+    return millis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+
+  @Override
+  public void setLastModified(LocalDateTime lastModified) {
+    // truncated to milliseconds, so we rather reload a few names too many
+    modified.set(lastModified.toInstant(ZoneOffset.UTC).toEpochMilli());
+  }
+
+  @Override
+  public void close() throws Exception {
+    db.close();
+  }
+}
@@ -57,12 +57,13 @@ public class NameIndexFactory {
   
   public static NameIndex memory(SqlSessionFactory sqlFactory, AuthorshipNormalizer authorshipNormalizer) {
     LOG.info("Use volatile in memory names index");
-    NameIndexStore store = new NameIndexMapDBStore(DBMaker.memoryDB());
+    NameIndexStore store = new NameIndexCompactStore(DBMaker.memoryDirectDB(), authorshipNormalizer.fingerprint());
     return new NameIndexImpl(store, authorshipNormalizer, Datasets.NAME_INDEX, sqlFactory);
   }
 
   /**
-   * Creates or opens a persistent mapdb names index.
+   * Creates or opens a persistent mapdb names index using the compact store format.
+   * Existing indices in an older format or created with a different authorship normalizer are rebuilt from postgres.
    */
   public static NameIndex persistent(File location, SqlSessionFactory sqlFactory, AuthorshipNormalizer authorshipNormalizer) throws IOException {
     if (!location.exists()) {
@@ -76,11 +77,15 @@ public class NameIndexFactory {
         .fileMmapEnableIfSupported();
     NameIndexStore store;
     try {
-      store = new NameIndexMapDBStore(maker);
+      if (location.exists() && !NameIndexCompactStore.isCompatible(maker)) {
+        LOG.info("NamesIndex mapdb has an old format. Remove and rebuild index from scratch");
+        FileUtils.forceDelete(location);
+      }
+      store = new NameIndexCompactStore(maker, authorshipNormalizer.fingerprint());
     } catch (DBException.DataCorruption e) {
       LOG.warn("NamesIndex mapdb was corrupt. Remove and rebuild index from scratch", e);
       location.delete();
-      store = new NameIndexMapDBStore(maker);
+      store = new NameIndexCompactStore(maker, authorshipNormalizer.fingerprint());
     }
     LOG.info("Opened names index");
     return new NameIndexImpl(store, authorshipNormalizer, Datasets.NAME_INDEX, sqlFactory);
@@ -1,9 +1,12 @@
 package life.catalogue.matching;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameMatch;
 import life.catalogue.api.vocab.MatchType;
@@ -24,14 +27,15 @@ import org.gbif.nameparser.api.Rank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 /**
- * NameMatching implementation that is backed by a generic store with a list of names keyed to their normalised
+ * NameMatching implementation that is backed by a generic store with compact candidate records keyed to their normalised
  * canonical name using the SciNameNormalizer.normalize() method.
  */
 public class NameIndexImpl implements NameIndex {
@@ -40,7 +44,12 @@ public class NameIndexImpl implements NameIndex {
       NameType.SCIENTIFIC, NameType.HYBRID_FORMULA, NameType.VIRUS, NameType.OTU
   );
   
+  // number of lock stripes guarding concurrent writes to the same key
+  private static final int LOCK_STRIPES = 1024;
+  
   private final AtomicInteger counter = new AtomicInteger(0);
+  private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+  private Counter contention;
   private final IdGenerator idGen;
   private final NameIndexStore store;
   private final AuthorComparator authComp;
@@ -62,10 +71,15 @@ public class NameIndexImpl implements NameIndex {
       this.sqlFactory = Preconditions.checkNotNull(sqlFactory);
       dao = new NameDao(sqlFactory);
       int storeSize = store.count();
-      if (storeSize == 0) {
+      LocalDateTime lastModified = store.lastModified();
+      if (storeSize == 0 || lastModified == null) {
         loadFromPg();
       } else {
+        // warm start: only load names modified since the store was last synced
+        startedLoading = LocalDateTime.now();
+        loadFromPgSince(lastModified);
         // verify postgres and store match up - otherwise trust postgres
+        storeSize = store.count();
         long pgCount = countPg();
         if (pgCount != storeSize) {
           LOG.warn("Existing name index contains {} names, but postgres has {}. Trust postgres", storeSize, pgCount);
@@ -87,55 +101,110 @@ public class NameIndexImpl implements NameIndex {
   private void loadFromPg() {
     LOG.info("Loading names from postgres into names index");
     startedLoading = LocalDateTime.now();
-    counter.set(0);
+    store.clear();
     try (SqlSession s = sqlFactory.openSession()) {
       NameMapper mapper = s.getMapper(NameMapper.class);
-      mapper.processDataset(datasetKey).forEach(n -> {
-        addWithID(n);
-        counter.incrementAndGet();
-      });
-      LOG.info("Loaded {} names from postgres into names index", counter);
+      PgLoader loader = new PgLoader();
+      mapper.processDataset(datasetKey).forEach(loader);
+      loader.finish();
+      counter.set(store.count());
+      LOG.info("Loaded {} names from postgres into names index", loader.counter);
     }
   }
   
   public void loadFromPgSinceStart() {
-    LOG.info("Loading names from postgres into names index");
-    final AtomicInteger newCnt = new AtomicInteger();
+    loadFromPgSince(startedLoading);
+  }
+  
+  /**
+   * Loads all names modified after the given date into the index, replacing existing names with the same id.
+   */
+  private void loadFromPgSince(LocalDateTime since) {
+    LOG.info("Loading names modified since {} from postgres into names index", since);
     try (SqlSession s = sqlFactory.openSession()) {
       NameMapper mapper = s.getMapper(NameMapper.class);
-      mapper.processSince(datasetKey, startedLoading).forEach(n -> {
-        addWithID(n);
-        counter.incrementAndGet();
-        newCnt.incrementAndGet();
-      });
-      LOG.info("Loaded {} additional names since start {} from postgres into names index", newCnt, startedLoading);
+      PgLoader loader = new PgLoader();
+      mapper.processSince(datasetKey, since).forEach(loader);
+      loader.finish();
+      counter.set(store.count());
+      LOG.info("Loaded {} additional names since {} from postgres into names index", loader.counter, since);
+    }
+  }
+  
+  /**
+   * Adds names from postgres to the store and keeps track of the latest modification date seen,
+   * which is persisted in the store when finished so a restart only needs to load newer names.
+   */
+  private class PgLoader implements Consumer<Name> {
+    int counter;
+    LocalDateTime maxModified;
+    
+    @Override
+    public void accept(Name n) {
+      addWithID(n);
+      counter++;
+      if (n.getModified() != null && (maxModified == null || n.getModified().isAfter(maxModified))) {
+        maxModified = n.getModified();
+      }
+    }
+    
+    void finish() {
+      if (maxModified != null) {
+        store.setLastModified(maxModified);
+      }
     }
   }
   
   @Override
   public NameMatch match(Name name, boolean allowInserts, boolean verbose) {
-    NameMatch m;
-    List<Name> candidates = store.get(key(name));
-    if (candidates != null) {
-      m = matchCandidates(name, candidates);
-      if (verbose) {
-        if (m.hasMatch()) {
-          candidates.remove(m.getName());
+    final String key = key(name);
+    return match(key, store.candidates(key), name, allowInserts, verbose);
+  }
+  
+  /**
+   * Groups all names by their key so the candidates for each key are only loaded once from the store.
+   */
+  @Override
+  public List<NameMatch> matchAll(List<Name> names, boolean allowInserts, boolean verbose) {
+    Map<String, List<Integer>> byKey = new HashMap<>();
+    for (int idx = 0; idx < names.size(); idx++) {
+      byKey.computeIfAbsent(key(names.get(idx)), k -> new ArrayList<>()).add(idx);
+    }
+    NameMatch[] matches = new NameMatch[names.size()];
+    for (Map.Entry<String, List<Integer>> e : byKey.entrySet()) {
+      final String key = e.getKey();
+      int[] candidates = store.candidates(key);
+      for (int idx : e.getValue()) {
+        NameMatch m = match(key, candidates, names.get(idx), allowInserts, verbose);
+        if (m.getType() == MatchType.INSERTED) {
+          // the group has changed, reload
+          candidates = store.candidates(key);
         }
-        m.setAlternatives(candidates);
+        matches[idx] = m;
       }
-      
-    } else {
-      m = NameMatch.noMatch();
     }
+    return Arrays.asList(matches);
+  }
+  
+  private NameMatch match(String key, @Nullable int[] candidates, Name name, boolean allowInserts, boolean verbose) {
+    NameMatch m = matchGroup(candidates, name, verbose);
     
     if (!m.hasMatch() && allowInserts) {
       if (MatchType.AMBIGUOUS == m.getType()) {
         LOG.debug("Do not insert ambiguous name match: {}", name.canonicalNameWithAuthorship());
       } else if (INDEX_NAME_TYPES.contains(name.getType())) {
-        m.setName(insert(name));
-        m.setType(MatchType.INSERTED);
-        LOG.debug("Inserted: {}", m.getName().canonicalNameWithAuthorship());
+        Lock lock = lock(key);
+        try {
+          // another thread might have inserted the same name while we were waiting for the lock
+          m = matchGroup(store.candidates(key), name, verbose);
+          if (!m.hasMatch() && MatchType.AMBIGUOUS != m.getType()) {
+            m.setName(insert(name));
+            m.setType(MatchType.INSERTED);
+            LOG.debug("Inserted: {}", m.getName().canonicalNameWithAuthorship());
+          }
+        } finally {
+          lock.unlock();
+        }
       } else {
         LOG.debug("Do not insert {} name: {}", name.getType(), name.canonicalNameWithAuthorship());
       }
@@ -144,36 +213,62 @@ public class NameIndexImpl implements NameIndex {
     return m;
   }
   
+  private NameMatch matchGroup(@Nullable int[] candidates, Name name, boolean verbose) {
+    NameMatch m;
+    if (candidates != null) {
+      m = matchCandidates(name, candidates);
+      if (verbose) {
+        List<Name> alternatives = new ArrayList<>();
+        for (int idx = 0; idx < CandidateRecord.count(candidates); idx++) {
+          Name alt = name(candidates, idx);
+          if (!m.hasMatch() || !alt.getId().equals(m.getName().getId())) {
+            alternatives.add(alt);
+          }
+        }
+        m.setAlternatives(alternatives);
+      }
+      
+    } else {
+      m = NameMatch.noMatch();
+    }
+    return m;
+  }
+  
   /**
-   * Does comparison by rank, author and nom code to pick real match from candidates
+   * Does comparison by rank, author and nom code to pick real match from candidates.
+   * Candidates are scored on their fixed width records only and just the full names of the best matches are loaded.
    */
-  private NameMatch matchCandidates(Name query, final List<Name> candidates) {
+  private NameMatch matchCandidates(Name query, final int[] candidates) {
     final boolean compareRank = query.getRank() != null && query.getRank() != Rank.UNRANKED;
     final boolean compareAuthorship = query.hasAuthorship();
     final boolean compareCode = query.getCode() != null;
-    final String queryname = SciNameNormalizer.normalizedAscii(query.canonicalNameWithoutAuthorship());
-    final String queryfullname = SciNameNormalizer.normalizedAscii(query.canonicalNameWithAuthorship());
-    final String queryauthorship = Strings.nullToEmpty(SciNameNormalizer.normalizedAscii(query.authorshipComplete()));
+    // normalize the query only once and resolve the dictionary ids of its normalized forms
+    final IndexName q = IndexName.normalized(query, authComp);
+    final int qName = store.lookup(CandidateRecord.foldCase(q.normalizedName()));
+    final int qFullName = store.lookup(CandidateRecord.foldCase(q.normalizedFullName()));
+    final int qAuthorship = store.lookup(CandidateRecord.foldCase(q.normalizedAuthorship()));
+    final int qCombinationTeam = q.authorTeams().combination.isEmpty() ? NameIndexStore.UNKNOWN_ID
+        : store.lookup(CandidateRecord.join(q.authorTeams().combination));
     // calculate score by rank, nomCode & authorship
     // immediately filtering no matches with a negative score
     int bestScore = 0;
-    final List<Name> matches = Lists.newArrayList();
-    for (Name n : candidates) {
+    final IntList matches = new IntArrayList();
+    for (int idx = 0; idx < CandidateRecord.count(candidates); idx++) {
       // 0 to 5
       int score = 0;
       
       // make sure rank match up exactly if part of query
-      if (compareRank && !match(query.getRank(), n.getRank())) {
+      if (compareRank && !match(query.getRank(), CandidateRecord.rank(candidates, idx))) {
         continue;
       }
       
       // make sure nom code match up exactly if part of query
-      if (compareCode && !match(query.getCode(), n.getCode())) {
+      if (compareCode && !match(query.getCode(), CandidateRecord.code(candidates, idx))) {
         continue;
       }
       
       // exact full name match: =5
-      if (queryfullname.equalsIgnoreCase(SciNameNormalizer.normalizedAscii(n.canonicalNameWithAuthorship()))) {
+      if (qFullName == CandidateRecord.get(candidates, idx, CandidateRecord.FULL_NAME)) {
         score = 5;
         
       } else {
@@ -181,57 +276,72 @@ public class NameIndexImpl implements NameIndex {
         // 0 for unknown match
         // +1 for equal authorships
         // +2 for exact equal authorship strings
-        Equality aeq = compareAuthorship ? authComp.compare(query, n) : Equality.UNKNOWN;
+        Equality aeq = Equality.UNKNOWN;
+        if (compareAuthorship) {
+          if (qCombinationTeam == CandidateRecord.get(candidates, idx, CandidateRecord.COMBINATION_TEAM)) {
+            // identical, non empty recombination authors are always equal
+            aeq = Equality.EQUAL;
+          } else {
+            aeq = authComp.compare(q.authorTeams(), CandidateRecord.authorTeams(candidates, idx, store));
+          }
+        }
         if (aeq == Equality.DIFFERENT) {
           continue;
         }
         
-        if (queryauthorship.equalsIgnoreCase(SciNameNormalizer.normalizedAscii(n.authorshipComplete()))) {
+        if (qAuthorship == CandidateRecord.get(candidates, idx, CandidateRecord.AUTHORSHIP)) {
           score += 2;
         } else if (aeq == Equality.EQUAL) {
           score += 1;
         }
         
         // exact canonical name match: +1
-        if (queryname.equalsIgnoreCase(SciNameNormalizer.normalizedAscii(n.canonicalNameWithoutAuthorship()))) {
+        if (qName == CandidateRecord.get(candidates, idx, CandidateRecord.NAME)) {
           score += 1;
         }
       }
-      bestScore = addOrRemove(score, n, bestScore, matches);
+      bestScore = addOrRemove(score, idx, bestScore, matches);
     }
     
     if (matches.isEmpty()) {
       return NameMatch.noMatch();
       
     } else if (matches.size() == 1) {
-      return buildMatch(query, matches.get(0));
+      return buildMatch(query, name(candidates, matches.getInt(0)));
       
     } else {
       // multiple, ambiguous matches
       LOG.debug("Ambiguous match ({} hits) for {}", matches.size(), query.canonicalNameWithAuthorship());
       NameMatch m = new NameMatch();
       m.setType(MatchType.AMBIGUOUS);
-      m.setAlternatives(matches);
+      List<Name> alternatives = new ArrayList<>(matches.size());
+      for (int idx : matches) {
+        alternatives.add(name(candidates, idx));
+      }
+      m.setAlternatives(alternatives);
       return m;
     }
   }
   
+  /**
+   * @return the full name of a candidate
+   */
+  private Name name(int[] candidates, int idx) {
+    return store.name(CandidateRecord.get(candidates, idx, CandidateRecord.REF));
+  }
+  
   /**
    * @return new best score
    */
-  private int addOrRemove(int score, Name n, int bestScore, List<Name> matches) {
+  private static int addOrRemove(int score, int candidate, int bestScore, IntList matches) {
     if (score < bestScore) {
-      //LOG.debug("Worse match {}<{}: {}", score, bestScore, n.canonicalNameComplete());
       return bestScore;
     }
     
     if (score > bestScore) {
-      //LOG.debug("Better match {}>{}: {}", score, bestScore, n.canonicalNameComplete());
       matches.clear();
-    } else {
-      //LOG.debug("Same match {}={}: {}", score, bestScore, n.canonicalNameComplete());
     }
-    matches.add(n);
+    matches.add(candidate);
     return score;
   }
   
@@ -279,19 +389,44 @@ public class NameIndexImpl implements NameIndex {
     addWithID(name);
   }
   
-  private synchronized void addWithID(Name name) {
+  /**
+   * Adds or replaces a name in its key group.
+   * The read-modify-write of the group is guarded by a lock striped by the key,
+   * so names with different keys can be added concurrently.
+   * Note that if the scientificName changed the key is likely different and the previous version stays in its old group !!!
+   */
+  private void addWithID(Name name) {
     String key = key(name);
-    ArrayList<Name> group;
-    if (store.containsKey(key)) {
-      group = store.get(key);
-      // remove previous version if itt already existed.
-      // Note that if the scientificName changed the key is likely different !!!
-      group.removeIf(ex -> ex.getId().equals(name.getId()));
-    } else {
-      group = new ArrayList<>(1);
+    // keep normalized forms so we do not need to compute them for every match
+    int[] record = CandidateRecord.create(IndexName.normalized(name, authComp), store);
+    Lock lock = lock(key);
+    try {
+      store.add(key, record, name);
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  /**
+   * Acquires the lock for a given key, counting contended acquisitions.
+   */
+  private Lock lock(String key) {
+    Lock lock = locks.get(key);
+    if (!lock.tryLock()) {
+      if (contention != null) {
+        contention.inc();
+      }
+      lock.lock();
     }
-    group.add(name);
-    store.put(key, group);
+    return lock;
+  }
+  
+  /**
+   * Optionally register metrics for contended write locks
+   */
+  @Override
+  public void register(MetricRegistry registry) {
+    contention = registry.counter("life.catalogue.names-index.lock.contention");
   }
   
   private static String key(Name n) {
@@ -1,19 +1,86 @@
 package life.catalogue.matching;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import javax.annotation.Nullable;
 
 import life.catalogue.api.model.Name;
 
+/**
+ * Store for the names index keeping fixed width candidate records grouped by the normalized name key
+ * and the full names they were created from.
+ * Strings referred to from candidate records are interned in a dictionary and given as int ids,
+ * see CandidateRecord for the record layout.
+ */
 public interface NameIndexStore extends AutoCloseable {
-  
+
   /**
-   * Counts all name usages. Potentially an expensive operation.
+   * Id used for null values in candidate records and dictionary lookups.
+   */
+  int NULL_ID = -1;
+
+  /**
+   * Id returned by dictionary lookups for strings that are not interned.
+   * It is never used in candidate records, so it never equals any of their values.
+   */
+  int UNKNOWN_ID = -2;
+
+  /**
+   * Counts all names.
    */
   int count();
-  
-  ArrayList<Name> get(String key);
-  
-  boolean containsKey(String key);
-  
-  void put(String key, ArrayList<Name> group);
+
+  /**
+   * @return the concatenated candidate records of all names sharing the key or null if none exist
+   */
+  @Nullable
+  int[] candidates(String key);
+
+  /**
+   * @return the full name for the reference of a candidate record
+   */
+  Name name(int ref);
+
+  /**
+   * Interns a string into the dictionary.
+   * @return the id of the string or NULL_ID for null
+   */
+  int intern(@Nullable String value);
+
+  /**
+   * Looks up the id of a string without interning it.
+   * @return the id of the string, NULL_ID for null or UNKNOWN_ID if not existing
+   */
+  int lookup(@Nullable String value);
+
+  /**
+   * @return the string for a dictionary id, null for NULL_ID
+   */
+  @Nullable
+  String value(int id);
+
+  /**
+   * Adds a candidate record to the key group, replacing an existing record with the same reference.
+   * Callers need to guard concurrent adds to the same key.
+   *
+   * @param record the candidate record with all strings interned
+   * @param name the full name to be returned for the records reference
+   */
+  void add(String key, int[] record, Name name);
+
+  /**
+   * Removes all names from the store.
+   */
+  void clear();
+
+  /**
+   * @return the latest modification date of all names loaded into the store from postgres or null if unknown
+   */
+  @Nullable
+  LocalDateTime lastModified();
+
+  /**
+   * Persists the latest modification date of all names loaded into the store from postgres
+   * so a restarted index only needs to load names modified afterwards.
+   */
+  void setLastModified(LocalDateTime modified);
 }
@@ -34,16 +34,60 @@ public class AuthorComparator {
     minCommonSubstring = 4;
   }
   
+  /**
+   * Normalized author teams of the recombination and basionym authorship of a name
+   * together with their year and emptiness, i.e. everything the default compare methods use.
+   * Keep them for names that are compared often to avoid repeated author normalization.
+   */
+  public static class AuthorTeams {
+    public final List<String> combination;
+    public final String combinationYear;
+    public final boolean combinationEmpty;
+    public final List<String> basionym;
+    public final String basionymYear;
+    public final boolean basionymEmpty;
+  
+    public AuthorTeams(List<String> combination, @Nullable String combinationYear, boolean combinationEmpty,
+                       List<String> basionym, @Nullable String basionymYear, boolean basionymEmpty) {
+      this.combination = combination;
+      this.combinationYear = combinationYear;
+      this.combinationEmpty = combinationEmpty;
+      this.basionym = basionym;
+      this.basionymYear = basionymYear;
+      this.basionymEmpty = basionymEmpty;
+    }
+  }
+  
+  /**
+   * @return the normalized author teams of a name as used by the default compare methods
+   */
+  public AuthorTeams normalize(Name n) {
+    Authorship comb = n.getCombinationAuthorship();
+    Authorship bas = n.getBasionymAuthorship();
+    return new AuthorTeams(
+        normalize(comb), comb == null ? null : comb.getYear(), comb == null || comb.isEmpty(),
+        normalize(bas), bas == null ? null : bas.getYear(), bas == null || bas.isEmpty()
+    );
+  }
+  
+  private List<String> normalize(@Nullable Authorship a) {
+    return normalizer.lookup(AuthorshipNormalizer.normalize(a), MIN_AUTHOR_LENGTH_WITHOUT_LOOKUP);
+  }
+  
   /**
    * Compares the authorteams and year of two names by first evaluating equivalence of the authors.
    * Only if they appear to differ also a year comparison is done which can still yield an overall EQUAL in case years match.
    */
   public Equality compare(@Nullable Authorship a1, @Nullable Authorship a2) {
+    return compare(a1.getYear(), normalize(a1), a2.getYear(), normalize(a2));
+  }
+  
+  private Equality compare(@Nullable String year1, List<String> authorTeam1, @Nullable String year2, List<String> authorTeam2) {
     // compare authors first
-    Equality result = compareAuthorteam(a1, a2, minCommonSubstring, MIN_AUTHOR_LENGTH_WITHOUT_LOOKUP);
+    Equality result = compareAuthorteam(authorTeam1, authorTeam2, minCommonSubstring);
     if (result != Equality.EQUAL) {
       // if authors are not the same we allow a positive year comparison to override it as author comparison is very difficult
-      Equality yresult = new YearComparator(a1.getYear(), a2.getYear()).compare();
+      Equality yresult = new YearComparator(year1, year2).compare();
       if (yresult != Equality.UNKNOWN) {
         result = yresult;
       }
@@ -55,19 +99,26 @@ public class AuthorComparator {
    * Does a comparison of recombination and basionym authorship using the author compare method once for the recombination authorship and once for the basionym.
    */
   public Equality compare(Name n1, Name n2) {
-    Equality recomb = compare(n1.getCombinationAuthorship(), n2.getCombinationAuthorship());
+    return compare(normalize(n1), normalize(n2));
+  }
+  
+  /**
+   * Same as compare(Name, Name) but using already normalized author teams of both names.
+   */
+  public Equality compare(AuthorTeams t1, AuthorTeams t2) {
+    Equality recomb = compare(t1.combinationYear, t1.combination, t2.combinationYear, t2.combination);
     if (recomb != Equality.UNKNOWN) {
       // in case the recomb author differs or is the same we are done, no need for basionym authorship comparison
       return recomb;
     }
-    Equality original = compare(n1.getBasionymAuthorship(), n2.getBasionymAuthorship());
+    Equality original = compare(t1.basionymYear, t1.basionym, t2.basionymYear, t2.basionym);
     if (original == Equality.UNKNOWN) {
       // a common error is missing brackets, so if all is unknown we compare authorship across brackets and return a possible match
       Equality across = Equality.UNKNOWN;
-      if (n1.getCombinationAuthorship().isEmpty()) {
-        across = compare(n1.getBasionymAuthorship(), n2.getCombinationAuthorship());
-      } else if (n1.getBasionymAuthorship().isEmpty()) {
-        across = compare(n1.getCombinationAuthorship(), n2.getBasionymAuthorship());
+      if (t1.combinationEmpty) {
+        across = compare(t1.basionymYear, t1.basionym, t2.combinationYear, t2.combination);
+      } else if (t1.basionymEmpty) {
+        across = compare(t1.combinationYear, t1.combination, t2.basionymYear, t2.basionym);
       }
       return across == Equality.EQUAL ? Equality.EQUAL : Equality.UNKNOWN;
     }
@@ -104,6 +155,13 @@ public class AuthorComparator {
     // convert to all lower case, no punctuation but commas seperating authors and normed whitespace
     List<String> authorTeam1 = normalizer.lookup(AuthorshipNormalizer.normalize(a1), maxAuthorLengthWithoutLookup);
     List<String> authorTeam2 = normalizer.lookup(AuthorshipNormalizer.normalize(a2), maxAuthorLengthWithoutLookup);
+    return compareAuthorteam(authorTeam1, authorTeam2, minCommonSubstring);
+  }
+  
+  /**
+   * Same as above, but with already normalized author teams
+   */
+  private Equality compareAuthorteam(List<String> authorTeam1, List<String> authorTeam2, int minCommonSubstring) {
     if (!authorTeam1.isEmpty() && !authorTeam2.isEmpty()) {
       Equality equality = compareNormalizedAuthorteam(authorTeam1, authorTeam2, minCommonSubstring);
       if (equality != Equality.EQUAL) {
@@ -5,11 +5,12 @@ import life.catalogue.api.model.*;
 import life.catalogue.api.vocab.DatasetOrigin;
 import life.catalogue.api.vocab.Frequency;
 import life.catalogue.api.vocab.ImportState;
+import life.catalogue.common.concurrent.NamedThreadFactory;
 import life.catalogue.common.lang.Exceptions;
 import life.catalogue.common.util.LoggingUtils;
 import life.catalogue.dao.DatasetImportDao;
 import life.catalogue.dao.Partitioner;
-import life.catalogue.db.CRUD;
+import life.catalogue.dao.TreeOrder;
 import life.catalogue.db.mapper.*;
 import life.catalogue.es.NameUsageIndexService;
 import org.apache.ibatis.session.SqlSession;
@@ -19,7 +20,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static life.catalogue.common.lang.Exceptions.interruptIfCancelled;
 
@@ -33,13 +40,26 @@ public class CatalogueRelease implements Runnable {
   private final int user;
   private final int sourceDatasetKey;
   private final int releaseKey;
+  private final int partitionIndexThreads;
   private final DatasetImport metrics;
   @Deprecated
   private final life.catalogue.release.Logger logger = new life.catalogue.release.Logger(LOG);
   // we only allow a single release to run at a time
   private static boolean LOCK = false;
+  private static final int COPY_THREADS = 4;
+  // partitioned data tables to copy
+  private static final List<String> PARTITION_TABLES = List.of(
+      "reference",
+      "name",
+      "name_rel",
+      "name_usage",
+      "vernacular_name",
+      "distribution"
+  );
+  private static final List<String> EXCLUDED_COLUMNS = List.of("dataset_key", "verbatim_key");
   
-  private CatalogueRelease(SqlSessionFactory factory, NameUsageIndexService indexService, AcExporter exporter, DatasetImportDao diDao, int sourceDatasetKey, Dataset release, int userKey) {
+  private CatalogueRelease(SqlSessionFactory factory, NameUsageIndexService indexService, AcExporter exporter, DatasetImportDao diDao,
+                           int sourceDatasetKey, Dataset release, int userKey, int partitionIndexThreads) {
     this.factory = factory;
     this.indexService = indexService;
     this.diDao = diDao;
@@ -48,13 +68,16 @@ public class CatalogueRelease implements Runnable {
     metrics = diDao.createWaiting(release, userKey);
     releaseKey = release.getKey();
     this.user = userKey;
+    this.partitionIndexThreads = partitionIndexThreads;
   }
   
   /**
    * Release the catalogue into a new dataset
    * @param catalogueKey the draft catalogue to be released, e.g. 3 for the CoL draft
+   * @param partitionIndexThreads max number of partition tables to build indices for concurrently
    */
-  public static CatalogueRelease release(SqlSessionFactory factory, NameUsageIndexService indexService, AcExporter exporter, DatasetImportDao diDao, int catalogueKey, int userKey) {
+  public static CatalogueRelease release(SqlSessionFactory factory, NameUsageIndexService indexService, AcExporter exporter, DatasetImportDao diDao,
+                                         int catalogueKey, int userKey, int partitionIndexThreads) {
     if (!aquireLock()) {
       throw new IllegalStateException("There is a running release already");
     }
@@ -80,7 +103,7 @@ public class CatalogueRelease implements Runnable {
       release.setVersion(today.toString());
       release.setCitation(buildCitation(release));
       dm.create(release);
-      return new CatalogueRelease(factory, indexService, exporter, diDao, catalogueKey, release, userKey);
+      return new CatalogueRelease(factory, indexService, exporter, diDao, catalogueKey, release, userKey, partitionIndexThreads);
   
     } catch (Exception e) {
       LOG.error("Error creating release for catalogue {}", catalogueKey, e);
@@ -152,8 +175,11 @@ public class CatalogueRelease implements Runnable {
       // copy data
       updateState(ImportState.INSERTING);
       copyData();
+      // releases are never modified, so the tree order stays valid.
+      // Number the tree before indices exist, so the update does not have to maintain them
+      TreeOrder.build(factory, releaseKey);
       // build indices and attach partition
-      Partitioner.indexAndAttach(factory, releaseKey);
+      Partitioner.indexAndAttach(factory, releaseKey, partitionIndexThreads);
       // create metrics
       updateState(ImportState.BUILDING_METRICS);
       metrics();
@@ -209,17 +235,36 @@ public class CatalogueRelease implements Runnable {
     //TODO: match & generate ids
   }
   
-  private void copyData() {
-    copyTable(SectorMapper.class, Sector.class, this::updateEntity);
-    copyTable(ReferenceMapper.class, Reference.class, this::updateDatasetID);
-    copyTable(NameMapper.class, Name.class, this::updateDatasetID);
-    copyTable(NameRelationMapper.class, NameRelation.class, this::updateEntity);
-    copyTable(TaxonMapper.class, Taxon.class, this::updateDatasetID);
-    copyTable(SynonymMapper.class, Synonym.class, this::updateDatasetID);
-    
-    copyExtTable(VernacularNameMapper.class, VernacularName.class, this::updateEntity);
-    copyExtTable(DistributionMapper.class, Distribution.class, this::updateEntity);
-    copyTable(EstimateMapper.class, SpeciesEstimate.class, this::updateEntity);
+  /**
+   * Clones all data of the source dataset entirely inside postgres, rewriting the dataset key.
+   * Partitioned tables are copied concurrently into the new, not yet attached and unindexed partition tables.
+   * Integer ids are kept and the partition sequences updated afterwards, verbatim keys are removed.
+   */
+  private void copyData() throws InterruptedException, ExecutionException {
+    // global tables with their own serial keys
+    copyTable("sector", "sector", "id");
+    copyTable("estimate", "estimate", "id");
+
+    ExecutorService exec = Executors.newFixedThreadPool(COPY_THREADS, new NamedThreadFactory("release-copy"));
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (String table : PARTITION_TABLES) {
+        futures.add(exec.submit(() -> copyTable(table, table + "_" + releaseKey)));
+      }
+      for (Future<Integer> f : futures) {
+        interruptIfCancelled();
+        f.get();
+      }
+    } finally {
+      exec.shutdownNow();
+    }
+    try (SqlSession session = factory.openSession(true)) {
+      DatasetPartitionMapper dpm = session.getMapper(DatasetPartitionMapper.class);
+      PARTITION_TABLES.stream()
+          .filter(DatasetPartitionMapper.SERIAL_TABLES::contains)
+          .forEach(t -> dpm.updateIdSequence(t, releaseKey));
+    }
+
     // archive dataset metadata
     try (SqlSession session = factory.openSession(false)) {
       DatasetMapper dm = session.getMapper(DatasetMapper.class);
@@ -229,50 +274,24 @@ public class CatalogueRelease implements Runnable {
       });
     }
   }
-  
-  private <K, V extends DataEntity<K>, M extends CRUD<K, V> & ProcessableDataset<V>> void copyTable(Class<M> mapperClass, Class<V> entity, Consumer<V> updater) {
-    interruptIfCancelled();
-    try (SqlSession session = factory.openSession(false);
-         TableCopyHandler<K, V,M> handler = new TableCopyHandler<>(factory, entity.getSimpleName(), mapperClass, updater)
-    ) {
-      logger.log("Copy all " + entity.getSimpleName());
-      ProcessableDataset<V> mapper = session.getMapper(mapperClass);
-      mapper.processDataset(sourceDatasetKey).forEach(handler);
-      logger.log("Copied " + handler.getCounter() +" "+ entity.getSimpleName());
-    }
-  }
-  
-  private <V extends DatasetScopedEntity<Integer>> void copyExtTable(Class<? extends TaxonExtensionMapper<V>> mapperClass, Class<V> entity, Consumer<TaxonExtension<V>> updater) {
-    interruptIfCancelled();
-    try (SqlSession session = factory.openSession(false);
-         ExtTableCopyHandler<V> handler = new ExtTableCopyHandler<V>(factory, entity.getSimpleName(), mapperClass, updater)
-    ) {
-      logger.log("Copy all " + entity.getSimpleName());
-      TaxonExtensionMapper<V> mapper = session.getMapper(mapperClass);
-      mapper.processDataset(sourceDatasetKey).forEach(handler);
-      logger.log("Copied " + handler.getCounter() +" "+ entity.getSimpleName());
+
+  /**
+   * Copies all records of the source dataset with all columns but the dataset & verbatim key and the given excluded ones.
+   * @return number of copied records
+   */
+  private int copyTable(String table, String into, String... exclude) {
+    try (SqlSession session = factory.openSession(true)) {
+      DatasetPartitionMapper dpm = session.getMapper(DatasetPartitionMapper.class);
+      List<String> cols = dpm.columns(table);
+      cols.removeAll(EXCLUDED_COLUMNS);
+      cols.removeAll(Arrays.asList(exclude));
+      logger.log("Copy all " + table);
+      int cnt = dpm.copyData(table, into, sourceDatasetKey, releaseKey, cols);
+      logger.log("Copied " + cnt + " " + table);
+      return cnt;
     }
   }
-  
-  private <C extends DSID & VerbatimEntity> void updateDatasetID(C obj) {
-    obj.setDatasetKey(releaseKey);
-    obj.setVerbatimKey(null);
-  }
-  private <E extends DatasetScopedEntity<Integer> & VerbatimEntity> void updateEntity(TaxonExtension<E> obj) {
-    obj.getObj().setId(null);
-    obj.getObj().setDatasetKey(releaseKey);
-    obj.getObj().setVerbatimKey(null);
-  }
-  private void updateEntity(NameRelation obj) {
-    obj.setId(null);
-    obj.setDatasetKey(releaseKey);
-    obj.setVerbatimKey(null);
-  }
-  private <T extends DatasetScopedEntity<Integer>> void updateEntity(T obj) {
-    obj.setKey(null);
-    obj.setDatasetKey(releaseKey);
-  }
-  
+
   public void export() throws IOException {
     try {
       exporter.export(releaseKey, logger);
@@ -24,14 +24,17 @@ public class ReleaseManager {
   private final DatasetImportDao diDao;
   private final NameUsageIndexService indexService;
   private final SqlSessionFactory factory;
+  private final int partitionIndexThreads;
 
   private CatalogueRelease release;
 
-  public ReleaseManager(AcExporter exporter, DatasetImportDao diDao, NameUsageIndexService indexService, SqlSessionFactory factory) {
+  public ReleaseManager(AcExporter exporter, DatasetImportDao diDao, NameUsageIndexService indexService, SqlSessionFactory factory,
+                        int partitionIndexThreads) {
     this.exporter = exporter;
     this.diDao = diDao;
     this.indexService = indexService;
     this.factory = factory;
+    this.partitionIndexThreads = partitionIndexThreads;
   }
 
   public Integer release(int catKey, User user) {
@@ -39,7 +42,7 @@ public class ReleaseManager {
       throw new IllegalStateException("Release "+release.getSourceDatasetKey() + " to " + release.getReleaseKey() + " is already running");
     }
 
-    release = CatalogueRelease.release(factory, indexService, exporter, diDao, catKey, user.getKey());
+    release = CatalogueRelease.release(factory, indexService, exporter, diDao, catKey, user.getKey(), partitionIndexThreads);
     final int key = release.getReleaseKey();
 
     CompletableFuture.runAsync(release, RELEASE_EXEC)
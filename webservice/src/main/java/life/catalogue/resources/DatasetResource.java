@@ -16,6 +16,7 @@ import life.catalogue.dw.jersey.MoreMediaTypes;
 import life.catalogue.img.ImageService;
 import life.catalogue.img.ImageServiceFS;
 import life.catalogue.img.ImgConfig;
+import life.catalogue.img.StoredImage;
 import life.catalogue.release.AcExporter;
 import org.apache.commons.io.IOUtils;
 import org.apache.ibatis.session.SqlSession;
@@ -28,11 +29,13 @@ import javax.annotation.security.RolesAllowed;
 import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
-import java.awt.image.BufferedImage;
 import java.io.*;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -165,8 +168,18 @@ public class DatasetResource extends AbstractGlobalResource<Dataset> {
   @GET
   @Path("{key}/logo")
   @Produces("image/png")
-  public BufferedImage logo(@PathParam("key") int key, @QueryParam("size") @DefaultValue("small") ImgConfig.Scale scale) {
-    return imgService.datasetLogo(key, scale);
+  public Response logo(@PathParam("key") int key,
+                       @QueryParam("size") @DefaultValue("small") ImgConfig.Scale scale,
+                       @Context Request request) {
+    // serve the stored png as it is and let clients revalidate cached copies
+    StoredImage img = imgService.datasetLogo(key, scale);
+    EntityTag etag = new EntityTag(img.getEtag());
+    Date modified = new Date(img.getLastModified());
+    Response.ResponseBuilder rb = request.evaluatePreconditions(modified, etag);
+    if (rb == null) {
+      rb = Response.ok(img.getData());
+    }
+    return rb.tag(etag).lastModified(modified).build();
   }
   
   @POST
@@ -1,18 +1,30 @@
 package life.catalogue.resources;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import javax.ws.rs.GET;
-import javax.ws.rs.Path;
-import javax.ws.rs.Produces;
-import javax.ws.rs.QueryParam;
+import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.google.common.base.Splitter;
+import life.catalogue.api.jackson.ApiModule;
+import life.catalogue.common.io.UTF8IoUtils;
+import life.catalogue.dw.jersey.MoreMediaTypes;
 import life.catalogue.matching.NameIndex;
 import life.catalogue.api.model.IssueContainer;
 import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameAccordingTo;
 import life.catalogue.api.model.NameMatch;
 import life.catalogue.parser.NameParser;
+import life.catalogue.parser.NomCodeParser;
+import life.catalogue.parser.RankParser;
+import life.catalogue.parser.SafeParser;
+import org.apache.commons.lang3.StringUtils;
 import org.gbif.nameparser.api.NomCode;
 import org.gbif.nameparser.api.Rank;
 import org.slf4j.Logger;
@@ -24,6 +36,9 @@ public class MatchingResource {
   
   @SuppressWarnings("unused")
   private static final Logger LOG = LoggerFactory.getLogger(MatchingResource.class);
+  // number of names matched at once in bulk requests
+  private static final int BATCH_SIZE = 1000;
+  private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults();
   private final NameIndex ni;
   
   public MatchingResource(NameIndex ni) {
@@ -47,7 +62,156 @@ public class MatchingResource {
     return m;
   }
   
+  /**
+   * Matches an entire list of names posted as tab separated values with one name per line
+   * and optional rank and code columns:  scientificName [rank [code]]
+   * Results are streamed back as tab separated rows in the same order:
+   * scientificName, matchType, nameIndexID, matchedName
+   * <pre>
+   * curl -X POST -H "Content-Type:text/tsv" --data-binary @names.tsv http://api.catalogue.life/name/matching
+   * </pre>
+   */
+  @POST
+  @Consumes({MoreMediaTypes.TEXT_TSV, MoreMediaTypes.TEXT_TAB_SEP, MediaType.TEXT_PLAIN})
+  @Produces({MoreMediaTypes.TEXT_TSV})
+  public StreamingOutput matchTsv(InputStream data) {
+    return bulk(data, false, MatchingResource::parseTsv, (w, q, m) -> {
+      w.write(StringUtils.defaultString(q.name));
+      w.write('\t');
+      w.write(m.getType().name());
+      w.write('\t');
+      if (m.hasMatch()) {
+        w.write(m.getName().getId());
+        w.write('\t');
+        w.write(m.getName().canonicalNameWithAuthorship());
+      } else {
+        w.write('\t');
+      }
+      w.write('\n');
+    });
+  }
+  
+  /**
+   * Matches an entire list of names posted as newline delimited json objects with a name and optional rank and code property.
+   * Results are streamed back as newline delimited json matches in the same order.
+   * Malformed lines and lines without a name result in a no match.
+   */
+  @POST
+  @Consumes({MoreMediaTypes.APP_NDJSON})
+  @Produces({MoreMediaTypes.APP_NDJSON})
+  public StreamingOutput matchNdjson(InputStream data, @QueryParam("verbose") boolean verbose) {
+    return bulk(data, verbose, line -> ApiModule.MAPPER.readValue(line, MatchQuery.class), (w, q, m) -> {
+      w.write(ApiModule.MAPPER.writeValueAsString(m));
+      w.write('\n');
+    });
+  }
+  
+  /**
+   * A single name to be matched in bulk requests.
+   */
+  public static class MatchQuery {
+    public String name;
+    public Rank rank;
+    public NomCode code;
+  }
+  
+  @FunctionalInterface
+  interface LineParser {
+    MatchQuery parse(String line) throws IOException;
+  }
+  
+  @FunctionalInterface
+  interface MatchWriter {
+    void write(Writer w, MatchQuery query, NameMatch match) throws IOException;
+  }
+  
+  private static MatchQuery parseTsv(String line) {
+    List<String> cols = TAB_SPLITTER.splitToList(line);
+    MatchQuery q = new MatchQuery();
+    q.name = cols.get(0);
+    if (cols.size() > 1) {
+      q.rank = SafeParser.parse(RankParser.PARSER, cols.get(1)).orElse(null);
+    }
+    if (cols.size() > 2) {
+      q.code = SafeParser.parse(NomCodeParser.PARSER, cols.get(2)).orElse(null);
+    }
+    return q;
+  }
+  
+  /**
+   * Reads the posted names line by line, matches them in batches and streams back the results
+   * without keeping the entire request or response in memory.
+   */
+  private StreamingOutput bulk(InputStream data, boolean verbose, LineParser parser, MatchWriter writer) {
+    return os -> {
+      BufferedReader reader = UTF8IoUtils.readerFromStream(data);
+      Writer w = UTF8IoUtils.writerFromStream(os);
+      List<MatchQuery> batch = new ArrayList<>(BATCH_SIZE);
+      int counter = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (StringUtils.isBlank(line)) continue;
+        batch.add(parseLine(parser, line));
+        if (batch.size() >= BATCH_SIZE) {
+          counter += matchBatch(batch, verbose, writer, w);
+        }
+      }
+      counter += matchBatch(batch, verbose, writer, w);
+      w.flush();
+      LOG.info("Matched {} names in bulk", counter);
+    };
+  }
+  
+  /**
+   * Parses a single line of a bulk request.
+   * As the response is already streaming, bad lines cannot fail the request
+   * and are returned as an empty query which results in no match.
+   */
+  private static MatchQuery parseLine(LineParser parser, String line) {
+    try {
+      MatchQuery q = parser.parse(line);
+      if (q != null) {
+        return q;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to read bulk matching line {}", line, e);
+    }
+    return new MatchQuery();
+  }
+  
+  /**
+   * Matches and writes a batch of queries, then clears the batch.
+   * Missing or unparsable names are written as no matches.
+   * @return number of queries written
+   */
+  private int matchBatch(List<MatchQuery> batch, boolean verbose, MatchWriter writer, Writer w) throws IOException {
+    List<Name> parsed = new ArrayList<>(batch.size());
+    List<Name> names = new ArrayList<>(batch.size());
+    for (MatchQuery q : batch) {
+      Name n = StringUtils.isBlank(q.name) ? null : parse(q.name, q.rank, q.code).orElse(null);
+      parsed.add(n);
+      if (n != null) {
+        names.add(n);
+      }
+    }
+    List<NameMatch> matches = ni.matchAll(names, false, verbose);
+    int idx = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      // unparsable names were not matched at all
+      NameMatch m = parsed.get(i) != null ? matches.get(idx++) : NameMatch.noMatch();
+      writer.write(w, batch.get(i), m);
+    }
+    int size = batch.size();
+    batch.clear();
+    return size;
+  }
+  
   static Name name(String name, Rank rank, NomCode code) {
+    return parse(name, rank, code)
+        .orElseThrow(() -> new IllegalArgumentException("Unable to parse name: " + name));
+  }
+  
+  private static Optional<Name> parse(String name, Rank rank, NomCode code) {
     Optional<NameAccordingTo> opt = NameParser.PARSER.parse(name, rank, code, IssueContainer.VOID);
     if (opt.isPresent()) {
       Name n = opt.get().getName();
@@ -58,11 +222,9 @@ public class MatchingResource {
       if (code != null) {
         n.setCode(code);
       }
-      return n;
-      
-    } else {
-      throw new IllegalArgumentException("Unable to parse name: " + name);
+      return Optional.of(n);
     }
+    return Optional.empty();
   }
   
 }
@@ -0,0 +1,76 @@
+package life.catalogue.dw.auth;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import life.catalogue.api.model.User;
+import life.catalogue.db.PgSetupRule;
+import life.catalogue.db.TestDataRule;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IdentityServiceTest {
+
+  @ClassRule
+  public static PgSetupRule pgSetupRule = new PgSetupRule();
+
+  @Rule
+  public TestDataRule testDataRule = TestDataRule.empty();
+
+  static class CountingProvider implements AuthenticationProvider {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public Optional<User> authenticate(String username, String password) {
+      calls.incrementAndGet();
+      if (password.equals("secret")) {
+        User u = new User();
+        u.setUsername(username);
+        return Optional.of(u);
+      }
+      return Optional.empty();
+    }
+
+    @Override
+    public void setClient(CloseableHttpClient http) {
+    }
+  }
+
+  @Test
+  public void credentialCache() throws Exception {
+    CountingProvider provider = new CountingProvider();
+    try (IdentityService ids = new IdentityService(provider, true, 60, 10)) {
+      ids.setSqlSessionFactory(PgSetupRule.getSqlSessionFactory());
+
+      assertTrue(ids.authenticate("paul", "secret").isPresent());
+      assertEquals(1, provider.calls.get());
+
+      User u = ids.authenticate("paul", "secret").get();
+      assertEquals("paul", u.getUsername());
+      assertNotNull(u.getKey());
+      assertEquals(1, provider.calls.get());
+
+      // wrong passwords are never cached
+      assertFalse(ids.authenticate("paul", "wrong").isPresent());
+      assertFalse(ids.authenticate("paul", "wrong").isPresent());
+      assertEquals(3, provider.calls.get());
+
+      ids.flushLastLogins();
+    }
+  }
+
+  @Test
+  public void noCache() throws Exception {
+    CountingProvider provider = new CountingProvider();
+    try (IdentityService ids = new IdentityService(provider, true)) {
+      ids.setSqlSessionFactory(PgSetupRule.getSqlSessionFactory());
+      ids.authenticate("paul", "secret");
+      ids.authenticate("paul", "secret");
+      assertEquals(2, provider.calls.get());
+    }
+  }
+}
@@ -123,7 +123,7 @@ public class ImportJobIT {
 
     ImportRequest req = new ImportRequest(d.getKey(), Users.TESTER, false, false, false);
     job = new ImportJob(req, d, cfg, new DownloadUtil(hc), PgSetupRule.getSqlSessionFactory(), NameIndexFactory.passThru(),
-      NameUsageIndexService.passThru(), new ImageServiceFS(cfg.img), this::start, this::success, this::error);
+      NameUsageIndexService.passThru(), new ImageServiceFS(cfg.img), new ImportStages(cfg.importer), this::start, this::success, this::error);
 
   }
 
@@ -0,0 +1,60 @@
+package life.catalogue.importer;
+
+import life.catalogue.config.ImporterConfig;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportStagesTest {
+
+  @Test
+  public void limits() throws Exception {
+    ImporterConfig cfg = new ImporterConfig();
+    cfg.normalizerThreads = 1;
+    ImportStages stages = new ImportStages(cfg);
+
+    AtomicBoolean normalized = new AtomicBoolean(false);
+    CountDownLatch done = new CountDownLatch(1);
+    try (ImportStages.Permit p = stages.acquire(ImportStages.Stage.NORMALIZE)) {
+      Thread t = new Thread(() -> {
+        try (ImportStages.Permit p2 = stages.acquire(ImportStages.Stage.NORMALIZE)) {
+          normalized.set(true);
+          done.countDown();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      t.start();
+
+      // other stages are not blocked
+      try (ImportStages.Permit p3 = stages.acquire(ImportStages.Stage.INDEX)) {
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(normalized.get());
+      }
+    }
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertTrue(normalized.get());
+  }
+
+  @Test
+  public void defaults() throws Exception {
+    ImporterConfig cfg = new ImporterConfig();
+    cfg.threads = 3;
+    cfg.indexThreads = 1;
+    ImportStages stages = new ImportStages(cfg);
+    assertEquals(3, stages.limit(ImportStages.Stage.DOWNLOAD));
+    assertEquals(3, stages.limit(ImportStages.Stage.NORMALIZE));
+    assertEquals(3, stages.limit(ImportStages.Stage.INSERT));
+    assertEquals(1, stages.limit(ImportStages.Stage.INDEX));
+    assertEquals(3, stages.maxJobs());
+
+    cfg.maxJobs = 5;
+    assertEquals(5, new ImportStages(cfg).maxJobs());
+  }
+}
@@ -0,0 +1,126 @@
+package life.catalogue.importer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import life.catalogue.api.model.VerbatimRecord;
+import life.catalogue.api.vocab.Issue;
+import life.catalogue.csv.CsvReader;
+import org.gbif.dwc.terms.DwcTerm;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NeoCsvInserterTest {
+
+  @Test
+  public void readAhead() throws Exception {
+    CsvReader reader = mock(CsvReader.class);
+    // spans several chunks with a partial last one
+    when(reader.stream(DwcTerm.Taxon)).thenReturn(LongStream.rangeClosed(1, 4321)
+        .mapToObj(line -> new VerbatimRecord(line, "taxon.txt", DwcTerm.Taxon)));
+
+    List<VerbatimRecord> records = new ArrayList<>();
+    NeoCsvInserter.readAhead(reader, DwcTerm.Taxon, records::add);
+    assertEquals(4321, records.size());
+    long line = 1;
+    for (VerbatimRecord v : records) {
+      assertEquals(line++, v.getLine());
+    }
+  }
+
+  @Test
+  public void readAheadPrepared() throws Exception {
+    CsvReader reader = mock(CsvReader.class);
+    when(reader.stream(DwcTerm.Taxon)).thenReturn(LongStream.rangeClosed(1, 54321)
+        .mapToObj(line -> new VerbatimRecord(line, "taxon.txt", DwcTerm.Taxon)));
+
+    List<VerbatimRecord> records = new ArrayList<>();
+    NeoCsvInserter.readAhead(reader, DwcTerm.Taxon, v -> {
+      // flag issues on the worker threads
+      v.addIssue(Issue.NOT_INTERPRETED);
+      return "line" + v.getLine();
+    }, (v, prepared) -> {
+      assertEquals("line" + v.getLine(), prepared);
+      records.add(v);
+    });
+    assertEquals(54321, records.size());
+    long line = 1;
+    for (VerbatimRecord v : records) {
+      assertEquals(line++, v.getLine());
+      assertTrue(v.hasIssue(Issue.NOT_INTERPRETED));
+    }
+  }
+
+  @Test
+  public void readAheadPrepareError() throws Exception {
+    CsvReader reader = mock(CsvReader.class);
+    when(reader.stream(DwcTerm.Taxon)).thenReturn(LongStream.rangeClosed(1, 54321)
+        .mapToObj(line -> new VerbatimRecord(line, "taxon.txt", DwcTerm.Taxon)));
+
+    List<VerbatimRecord> records = new ArrayList<>();
+    try {
+      NeoCsvInserter.readAhead(reader, DwcTerm.Taxon, v -> {
+        if (v.getLine() == 3500) {
+          throw new IllegalStateException("Bad line " + v.getLine());
+        }
+        return v.getLine();
+      }, (v, prepared) -> records.add(v));
+      fail("Preparation errors must be propagated");
+    } catch (IllegalStateException e) {
+      assertEquals("Bad line 3500", e.getMessage());
+    }
+    // all chunks before the failed one were passed on
+    assertEquals(3000, records.size());
+  }
+
+  @Test
+  public void readAheadEmpty() throws Exception {
+    CsvReader reader = mock(CsvReader.class);
+    when(reader.stream(DwcTerm.Taxon)).thenReturn(LongStream.empty()
+        .mapToObj(line -> new VerbatimRecord(line, "taxon.txt", DwcTerm.Taxon)));
+
+    List<VerbatimRecord> records = new ArrayList<>();
+    NeoCsvInserter.readAhead(reader, DwcTerm.Taxon, records::add);
+    assertTrue(records.isEmpty());
+  }
+
+  @Test
+  public void readAheadError() throws Exception {
+    CsvReader reader = mock(CsvReader.class);
+    Iterator<VerbatimRecord> iter = new Iterator<VerbatimRecord>() {
+      long line = 0;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public VerbatimRecord next() {
+        if (line == 2500) {
+          throw new IllegalStateException("Bad line " + line);
+        }
+        return new VerbatimRecord(++line, "taxon.txt", DwcTerm.Taxon);
+      }
+    };
+    when(reader.stream(DwcTerm.Taxon)).thenReturn(StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, 0), false));
+
+    List<VerbatimRecord> records = new ArrayList<>();
+    try {
+      NeoCsvInserter.readAhead(reader, DwcTerm.Taxon, records::add);
+      fail("Reader errors must be propagated");
+    } catch (IllegalStateException e) {
+      assertEquals("Bad line 2500", e.getMessage());
+    }
+    // all complete chunks read before the error were passed on
+    assertEquals(2000, records.size());
+    assertEquals(2000, records.get(1999).getLine());
+  }
+}
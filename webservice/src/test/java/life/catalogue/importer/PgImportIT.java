@@ -195,6 +195,18 @@ public class PgImportIT {
     assertParents(tdao, "1006", "102", "30", "20", "10", "1");
   }
   
+  @Test
+  public void testDwca1Copy() throws Exception {
+    icfg.pgCopy = true;
+    testDwca1();
+  }
+  
+  @Test
+  public void testDwca1Parallel() throws Exception {
+    icfg.pgParallel = true;
+    testDwca1();
+  }
+  
   @Test
   public void testIpniDwca() throws Exception {
     normalizeAndImport(DWCA, 27);
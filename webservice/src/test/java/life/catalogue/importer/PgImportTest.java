@@ -2,6 +2,7 @@ package life.catalogue.importer;
 
 import com.google.common.collect.Lists;
 import life.catalogue.common.concurrent.ExecutorUtils;
+import life.catalogue.config.ImporterConfig;
 import life.catalogue.dao.Partitioner;
 import life.catalogue.db.PgSetupRule;
 import life.catalogue.db.TestDataRule;
@@ -41,7 +42,7 @@ public class PgImportTest {
       Partitioner.partition(PgSetupRule.getSqlSessionFactory(), datasetKey);
 
       System.out.println("INDEX & ATTACH " + datasetKey);
-      Partitioner.indexAndAttach(PgSetupRule.getSqlSessionFactory(), datasetKey);
+      Partitioner.indexAndAttach(PgSetupRule.getSqlSessionFactory(), datasetKey, new ImporterConfig().partitionIndexThreads);
       System.out.println("FINISHED " + datasetKey);
       return true;
     }
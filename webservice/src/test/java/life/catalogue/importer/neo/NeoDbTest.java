@@ -6,6 +6,7 @@ import life.catalogue.api.TestEntityGenerator;
 import life.catalogue.api.model.Name;
 import life.catalogue.api.model.Reference;
 import life.catalogue.api.model.VerbatimRecord;
+import life.catalogue.api.vocab.Issue;
 import life.catalogue.api.vocab.Origin;
 import life.catalogue.api.vocab.TaxonomicStatus;
 import life.catalogue.config.NormalizerConfig;
@@ -246,6 +247,37 @@ public class NeoDbTest {
     }
   }
 
+  @Test
+  public void reserveVerbatim() throws Exception {
+    VerbatimRecord v = verbatim(1);
+    db.reserve(v);
+    assertNotNull(v.getId());
+    // issues flagged while processing go into the same instance
+    assertSame(v, db.getVerbatim(v.getId()));
+    db.addIssues(v.getId(), Issue.ID_NOT_UNIQUE);
+    assertTrue(v.hasIssue(Issue.ID_NOT_UNIQUE));
+    assertFalse(db.verbatimList().iterator().hasNext());
+
+    db.put(v);
+    VerbatimRecord v2 = db.getVerbatim(v.getId());
+    assertNotSame(v, v2);
+    assertEquals(v, v2);
+    assertTrue(v2.hasIssue(Issue.ID_NOT_UNIQUE));
+
+    // regular updates still work after the record was persisted
+    db.addIssues(v.getId(), Issue.NOT_INTERPRETED);
+    assertTrue(db.getVerbatim(v.getId()).hasIssue(Issue.NOT_INTERPRETED));
+  }
+
+  private static VerbatimRecord verbatim(int line) {
+    VerbatimRecord v = new VerbatimRecord(line, "taxa.txt", AcefTerm.AcceptedSpecies);
+    v.put(AcefTerm.AcceptedTaxonID, "id" + line);
+    v.put(AcefTerm.Genus, "Abies");
+    v.put(AcefTerm.SpeciesEpithet, "alba");
+    v.put(AcefTerm.AuthorString, "Mill.");
+    return v;
+  }
+
   public static NeoUsage taxon(String id) {
     NeoUsage t = NeoUsage.createTaxon(Origin.SOURCE, TaxonomicStatus.ACCEPTED);
     t.usage.setName(RandomUtils.randomName());
@@ -0,0 +1,85 @@
+package life.catalogue.importer.neo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.Files;
+import life.catalogue.api.model.VerbatimRecord;
+import life.catalogue.api.vocab.Issue;
+import life.catalogue.config.NormalizerConfig;
+import org.apache.commons.io.FileUtils;
+import org.gbif.dwc.terms.AcefTerm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the former put, get and put again cycle per verbatim record with a single put after reserving a key.
+ * The main method adds the GC profiler which reports the bytes allocated per record as gc.alloc.rate.norm.
+ * Not run by the test suite, run the main method from the IDE or the test classpath instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeoDbVerbatimBenchmark {
+  private final NormalizerConfig cfg = new NormalizerConfig();
+  private NeoDb db;
+  private int line;
+
+  @Setup(Level.Iteration)
+  public void setup() throws IOException {
+    cfg.archiveDir = Files.createTempDir();
+    cfg.scratchDir = Files.createTempDir();
+    db = NeoDbFactory.create(77, 1, cfg);
+  }
+
+  @TearDown(Level.Iteration)
+  public void destroy() {
+    db.closeAndDelete();
+    FileUtils.deleteQuietly(cfg.archiveDir);
+    FileUtils.deleteQuietly(cfg.scratchDir);
+  }
+
+  private VerbatimRecord verbatim() {
+    line++;
+    VerbatimRecord v = new VerbatimRecord(line, "taxa.txt", AcefTerm.AcceptedSpecies);
+    v.put(AcefTerm.AcceptedTaxonID, "id" + line);
+    v.put(AcefTerm.Genus, "Abies");
+    v.put(AcefTerm.SpeciesEpithet, "alba");
+    v.put(AcefTerm.AuthorString, "Mill.");
+    return v;
+  }
+
+  @Benchmark
+  public VerbatimRecord putGetPut() {
+    VerbatimRecord v = verbatim();
+    db.put(v);
+    v.addIssue(Issue.NOT_INTERPRETED);
+    VerbatimRecord old = db.getVerbatim(v.getId());
+    v.addIssues(old.getIssues());
+    db.put(v);
+    return v;
+  }
+
+  @Benchmark
+  public VerbatimRecord reservePut() {
+    VerbatimRecord v = verbatim();
+    db.reserve(v);
+    v.addIssue(Issue.NOT_INTERPRETED);
+    db.put(v);
+    return v;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(NeoDbVerbatimBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()
+    ).run();
+  }
+}
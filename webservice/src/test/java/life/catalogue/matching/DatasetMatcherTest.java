@@ -0,0 +1,82 @@
+package life.catalogue.matching;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import life.catalogue.api.model.Name;
+import life.catalogue.common.tax.AuthorshipNormalizer;
+import life.catalogue.db.PgSetupRule;
+import life.catalogue.db.TestDataRule;
+import life.catalogue.db.mapper.NameMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DatasetMatcherTest {
+  final int datasetKey = TestDataRule.TestData.TREE.key;
+  NameIndex ni;
+
+  @ClassRule
+  public static PgSetupRule pgSetupRule = new PgSetupRule();
+
+  @Rule
+  public final TestDataRule testDataRule = TestDataRule.tree();
+
+  @Before
+  public void init() throws Exception {
+    ni = NameIndexFactory.memory(PgSetupRule.getSqlSessionFactory(), AuthorshipNormalizer.INSTANCE);
+  }
+
+  @After
+  public void stop() throws Exception {
+    ni.close();
+  }
+
+  @Test
+  public void parallelSameAsSequential() throws Exception {
+    // populate the names index
+    DatasetMatcher seq = new DatasetMatcher(PgSetupRule.getSqlSessionFactory(), ni, true);
+    assertTrue(seq.match(datasetKey, true) > 0);
+    assertTrue(ni.size() > 0);
+
+    // inserted matches become exact ones when matching again
+    clearMatches();
+    int seqUpdates = seq.match(datasetKey, false);
+    Map<String, String> expected = matches();
+    assertEquals(expected.values().stream().filter(v -> !v.startsWith("null|")).count(), seqUpdates);
+
+    // small chunks so many chunks are pending at the same time
+    for (int threads : new int[]{2, 4}) {
+      clearMatches();
+      DatasetMatcher par = new DatasetMatcher(PgSetupRule.getSqlSessionFactory(), ni, true, threads, 3);
+      assertEquals(seqUpdates, par.match(datasetKey, false));
+      assertEquals(expected, matches());
+      // nothing changed anymore
+      assertEquals(0, par.match(datasetKey, false));
+    }
+  }
+
+  private Map<String, String> matches() {
+    Map<String, String> ids = new HashMap<>();
+    try (SqlSession session = PgSetupRule.getSqlSessionFactory().openSession(true)) {
+      for (Name n : session.getMapper(NameMapper.class).processDataset(datasetKey)) {
+        ids.put(n.getId(), n.getNameIndexId() + "|" + n.getNameIndexMatchType());
+      }
+    }
+    return ids;
+  }
+
+  private void clearMatches() {
+    try (SqlSession session = PgSetupRule.getSqlSessionFactory().openSession(true)) {
+      NameMapper nm = session.getMapper(NameMapper.class);
+      for (String id : matches().keySet()) {
+        nm.updateMatch(datasetKey, id, null, null);
+      }
+    }
+  }
+}
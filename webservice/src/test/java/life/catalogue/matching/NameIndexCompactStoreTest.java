@@ -0,0 +1,190 @@
+package life.catalogue.matching;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import life.catalogue.api.TestEntityGenerator;
+import life.catalogue.api.model.Name;
+import life.catalogue.common.tax.AuthorshipNormalizer;
+import life.catalogue.matching.authorship.AuthorComparator;
+import org.gbif.nameparser.api.NomCode;
+import org.gbif.nameparser.api.Rank;
+import org.junit.Test;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+
+import static org.junit.Assert.*;
+
+public class NameIndexCompactStoreTest {
+  static final AuthorComparator authComp = new AuthorComparator(AuthorshipNormalizer.INSTANCE);
+  static final int FP = AuthorshipNormalizer.INSTANCE.fingerprint();
+
+  @Test
+  public void size() throws Exception {
+    File dbf = File.createTempFile("colNidxStore",".db");
+    dbf.delete();
+    try {
+      DBMaker.Maker maker = DBMaker.fileDB(dbf).fileMmapEnableIfSupported();
+      NameIndexCompactStore db = new NameIndexCompactStore(maker, FP);
+
+      assertEquals(0, db.count());
+
+      add(db, "a", 1);
+      assertEquals(1, db.count());
+
+      add(db, "b", 2);
+      assertEquals(3, db.count());
+
+      add(db, "a", 3);
+      assertEquals(6, db.count());
+
+      // now shutdown and reopen
+      db.close();
+      db = new NameIndexCompactStore(maker, FP);
+
+      assertEquals(6, db.count());
+      assertEquals(4, CandidateRecord.count(db.candidates("a")));
+      assertNull(db.lastModified());
+
+      LocalDateTime modified = LocalDateTime.of(2020, 5, 17, 13, 45, 12);
+      db.setLastModified(modified);
+      db.close();
+
+      db = new NameIndexCompactStore(maker, FP);
+      assertEquals(6, db.count());
+      assertEquals(modified, db.lastModified());
+
+      db.clear();
+      assertEquals(0, db.count());
+      assertNull(db.lastModified());
+      assertNull(db.candidates("a"));
+      assertEquals(NameIndexStore.UNKNOWN_ID, db.lookup("a"));
+
+      // a different authorship normalizer clears the store
+      add(db, "a", 2);
+      db.setLastModified(modified);
+      db.close();
+      int fp2 = AuthorshipNormalizer.createWithoutAuthormap().fingerprint();
+      assertNotEquals(FP, fp2);
+      db = new NameIndexCompactStore(maker, fp2);
+      assertEquals(0, db.count());
+      assertNull(db.lastModified());
+      assertNull(db.candidates("a"));
+      db.close();
+
+      // but not when reopened with the same one
+      db = new NameIndexCompactStore(maker, fp2);
+      add(db, "a", 1);
+      db.close();
+      db = new NameIndexCompactStore(maker, fp2);
+      assertEquals(1, db.count());
+      db.close();
+
+    } finally {
+      dbf.delete();
+    }
+  }
+
+  @Test
+  public void legacyFormat() throws Exception {
+    File dbf = File.createTempFile("colNidxStore",".db");
+    dbf.delete();
+    try {
+      DBMaker.Maker maker = DBMaker.fileDB(dbf).fileMmapEnableIfSupported();
+      assertTrue(NameIndexCompactStore.isCompatible(maker));
+
+      // a names map with string keys as written by the former store
+      DB db = maker.make();
+      db.hashMap("names", Serializer.STRING_ASCII, Serializer.STRING).createOrOpen().put("abies", "1");
+      db.close();
+      assertFalse(NameIndexCompactStore.isCompatible(maker));
+
+      dbf.delete();
+      NameIndexCompactStore store = new NameIndexCompactStore(maker, FP);
+      add(store, "a", 1);
+      store.close();
+      assertTrue(NameIndexCompactStore.isCompatible(maker));
+    } finally {
+      dbf.delete();
+    }
+  }
+
+  @Test
+  public void roundtrip() throws Exception {
+    NameIndexCompactStore db = new NameIndexCompactStore(DBMaker.memoryDirectDB(), FP);
+    Name n = TestEntityGenerator.newName();
+    n.setRank(Rank.SUBSPECIES);
+    n.setCode(NomCode.ZOOLOGICAL);
+    n.setCreated(LocalDateTime.of(2020, 5, 17, 13, 45, 12));
+    n.setModified(LocalDateTime.of(2020, 5, 18, 13, 45, 12));
+    IndexName in = new IndexName(n, authComp);
+    db.add("a", CandidateRecord.create(in, db), in);
+
+    int[] records = db.candidates("a");
+    assertEquals(1, CandidateRecord.count(records));
+    assertEquals(Rank.SUBSPECIES, CandidateRecord.rank(records, 0));
+    assertEquals(NomCode.ZOOLOGICAL, CandidateRecord.code(records, 0));
+    assertEquals(db.lookup(CandidateRecord.foldCase(in.normalizedFullName())), CandidateRecord.get(records, 0, CandidateRecord.FULL_NAME));
+    assertEquals(db.lookup(CandidateRecord.foldCase(in.normalizedFullName().toUpperCase())), CandidateRecord.get(records, 0, CandidateRecord.FULL_NAME));
+
+    AuthorComparator.AuthorTeams teams = CandidateRecord.authorTeams(records, 0, db);
+    assertEquals(in.authorTeams().combination, teams.combination);
+    assertEquals(in.authorTeams().combinationYear, teams.combinationYear);
+    assertEquals(in.authorTeams().combinationEmpty, teams.combinationEmpty);
+    assertEquals(in.authorTeams().basionym, teams.basionym);
+    assertEquals(in.authorTeams().basionymYear, teams.basionymYear);
+    assertEquals(in.authorTeams().basionymEmpty, teams.basionymEmpty);
+
+    // the full name with all its properties is kept
+    Name n2 = db.name(CandidateRecord.get(records, 0, CandidateRecord.REF));
+    assertEquals(n, n2);
+    assertEquals(Name.class, n2.getClass());
+
+    // replace the same name
+    n.setRemarks("changed");
+    in = new IndexName(n, authComp);
+    db.add("a", CandidateRecord.create(in, db), n);
+    assertEquals(1, db.count());
+    records = db.candidates("a");
+    assertEquals(1, CandidateRecord.count(records));
+    assertEquals("changed", db.name(CandidateRecord.get(records, 0, CandidateRecord.REF)).getRemarks());
+
+    assertNull(db.candidates("b"));
+    db.close();
+  }
+
+  @Test
+  public void dictionary() throws Exception {
+    NameIndexCompactStore db = new NameIndexCompactStore(DBMaker.memoryDirectDB(), FP);
+    assertEquals(NameIndexStore.NULL_ID, db.intern(null));
+    assertEquals(NameIndexStore.NULL_ID, db.lookup(null));
+    assertNull(db.value(NameIndexStore.NULL_ID));
+    assertEquals(NameIndexStore.UNKNOWN_ID, db.lookup("Abies"));
+
+    int id = db.intern("Abies");
+    assertTrue(id >= 0);
+    assertEquals(id, db.intern("Abies"));
+    assertEquals(id, db.lookup("Abies"));
+    assertEquals("Abies", db.value(id));
+    assertNotEquals(id, db.intern("abies"));
+    db.close();
+  }
+
+  @Test
+  public void teams() throws Exception {
+    assertTrue(CandidateRecord.split(CandidateRecord.join(Collections.emptyList())).isEmpty());
+    assertEquals(Arrays.asList("l", "de candolle"), CandidateRecord.split(CandidateRecord.join(Arrays.asList("l", "de candolle"))));
+    assertEquals("strasse", CandidateRecord.foldCase("STRASSE"));
+    assertEquals(CandidateRecord.foldCase("ǅ"), CandidateRecord.foldCase("ǆ"));
+  }
+
+  private static void add(NameIndexStore db, String key, int size) {
+    for (int idx = 0; idx < size; idx++) {
+      Name n = TestEntityGenerator.newName();
+      db.add(key, CandidateRecord.create(new IndexName(n, authComp), db), n);
+    }
+  }
+}
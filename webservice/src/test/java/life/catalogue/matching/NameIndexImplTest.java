@@ -6,7 +6,9 @@ import life.catalogue.api.TestEntityGenerator;
 import life.catalogue.api.model.IssueContainer;
 import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameMatch;
+import life.catalogue.api.vocab.Datasets;
 import life.catalogue.api.vocab.MatchType;
+import life.catalogue.api.vocab.Origin;
 import life.catalogue.common.tax.AuthorshipNormalizer;
 import life.catalogue.db.PgSetupRule;
 import life.catalogue.db.mapper.NameMapper;
@@ -21,7 +23,9 @@ import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -109,6 +113,41 @@ public class NameIndexImplTest {
     assertInsert("Puma concolor", Rank.SPECIES, NomCode.ZOOLOGICAL);
   }
   
+  @Test
+  public void warmStart() throws Exception {
+    File location = File.createTempFile("nidx", ".db");
+    location.delete();
+    try {
+      ni = NameIndexFactory.persistent(location, PgSetupRule.getSqlSessionFactory(), aNormalizer);
+      assertInsert("Larus fundatus", Rank.SPECIES, null);
+      ni.close();
+      // the full reload remembers the latest modification
+      ni = NameIndexFactory.persistent(location, PgSetupRule.getSqlSessionFactory(), aNormalizer);
+      assertEquals(1, ni.size());
+      ni.close();
+  
+      // warm start
+      ni = NameIndexFactory.persistent(location, PgSetupRule.getSqlSessionFactory(), aNormalizer);
+      assertEquals(1, ni.size());
+      // a name added to postgres behind the index
+      Thread.sleep(10);
+      Name n = name(null, "Puma concolor", Rank.SPECIES, NomCode.ZOOLOGICAL);
+      n.setId("warm1");
+      n.setDatasetKey(Datasets.NAME_INDEX);
+      n.setOrigin(Origin.SOURCE);
+      try (SqlSession session = PgSetupRule.getSqlSessionFactory().openSession(true)) {
+        session.getMapper(NameMapper.class).create(n);
+      }
+      ((NameIndexImpl) ni).loadFromPgSinceStart();
+      assertEquals(2, ni.size());
+      NameMatch m = match("Puma concolor", Rank.SPECIES, NomCode.ZOOLOGICAL);
+      assertEquals("warm1", m.getName().getId());
+  
+    } finally {
+      location.delete();
+    }
+  }
+  
   @Test
   public void testLookup() throws Exception {
     setupTest();
@@ -198,6 +237,33 @@ public class NameIndexImplTest {
     assertEquals(12, ni.size());
   }
   
+  @Test
+  public void matchAll() throws Exception {
+    setupTest();
+    List<Name> names = Lists.newArrayList(
+        name(null, "Oenanthe Vieillot", Rank.GENUS, NomCode.ZOOLOGICAL),
+        name(null, "Abies alba", Rank.SPECIES, NomCode.BOTANICAL),
+        name(null, "Oenanthe", Rank.GENUS, NomCode.BOTANICAL),
+        name(null, "Rodentia", Rank.ORDER, NomCode.BOTANICAL),
+        name(null, "Oenanthe Pal", Rank.GENUS, null)
+    );
+    List<NameMatch> matches = ni.matchAll(names, false, false);
+    assertEquals(names.size(), matches.size());
+    // results must be in the same order as the names given and identical to single matches
+    for (int i = 0; i < names.size(); i++) {
+      NameMatch m = ni.match(names.get(i), false, false);
+      assertEquals(m.getType(), matches.get(i).getType());
+      if (m.hasMatch()) {
+        assertEquals(m.getName().getId(), matches.get(i).getName().getId());
+      }
+    }
+    assertEquals(idGen.id(2), matches.get(0).getName().getId());
+    assertEquals(idGen.id(9), matches.get(1).getName().getId());
+    assertEquals(idGen.id(4), matches.get(2).getName().getId());
+    assertEquals(MatchType.NONE, matches.get(3).getType());
+    assertEquals(idGen.id(3), matches.get(4).getName().getId());
+  }
+  
   static Name name(Integer key, String name, Rank rank, NomCode code) {
     Name n = NameParser.PARSER.parse(name, rank, code, IssueContainer.VOID).get().getName();
     n.setRank(rank);
@@ -4,6 +4,7 @@ import com.google.common.io.Files;
 import life.catalogue.WsServerConfig;
 import life.catalogue.api.model.Dataset;
 import life.catalogue.api.vocab.Users;
+import life.catalogue.config.ImporterConfig;
 import life.catalogue.dao.DatasetImportDao;
 import life.catalogue.dao.TreeRepoRule;
 import life.catalogue.db.PgSetupRule;
@@ -57,7 +58,8 @@ public class CatalogueReleaseTest {
   }
   
   private CatalogueRelease buildRelease() {
-    return CatalogueRelease.release(PgSetupRule.getSqlSessionFactory(), NameUsageIndexService.passThru(), exp, diDao, d.getKey(), Users.TESTER);
+    return CatalogueRelease.release(PgSetupRule.getSqlSessionFactory(), NameUsageIndexService.passThru(), exp, diDao, d.getKey(), Users.TESTER,
+        new ImporterConfig().partitionIndexThreads);
   }
   
   @Test
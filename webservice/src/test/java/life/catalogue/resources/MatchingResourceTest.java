@@ -5,14 +5,18 @@ import life.catalogue.api.model.Name;
 import life.catalogue.api.model.NameMatch;
 import life.catalogue.api.vocab.MatchType;
 import life.catalogue.WsServerRule;
+import life.catalogue.dw.jersey.MoreMediaTypes;
 import org.gbif.nameparser.api.NameType;
 import org.gbif.nameparser.api.Rank;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import javax.ws.rs.client.Entity;
+
 import static life.catalogue.ApiUtils.userCreds;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class MatchingResourceTest extends ResourceTestBase {
 
@@ -36,4 +40,19 @@ public class MatchingResourceTest extends ResourceTestBase {
     assertNotNull(match);
     assertEquals(MatchType.NONE, match.getType());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void matchNdjsonBadLines() {
+    String body = "{\"name\": \"Abies alba Mill.\"}\n"
+        + "{\"name\": \n"
+        + "{\"rank\": \"species\"}\n"
+        + "{\"name\": \"Abies\", \"rank\": \"genus\"}\n";
+    String resp = userCreds(base.queryParam("verbose", false))
+        .post(Entity.entity(body, MoreMediaTypes.APP_NDJSON), String.class);
+    String[] lines = resp.split("\n");
+    // one result per line, bad lines become no matches instead of truncating the response
+    assertEquals(4, lines.length);
+    assertTrue(lines[1].contains(MatchType.NONE.name()));
+    assertTrue(lines[2].contains(MatchType.NONE.name()));
+  }
+}